@@ -22,7 +22,12 @@ import ParentSettingsScreen from './src/screens/ParentSettingsScreen';
 import PINEntryScreen from './src/screens/PINEntryScreen';
 
 // Utils
-import {checkFirstLaunch, initializeApp, migratePINToNativeStorage} from './src/utils/storage';
+import {
+  checkFirstLaunch,
+  initializeApp,
+  migratePINToNativeStorage,
+  migrateSettingsToNativeStore,
+} from './src/utils/storage';
 import {theme} from './src/utils/theme';
 import {initializeVolumeControl} from './src/utils/volumeControl';
 import {initializeScreenTimeControl} from './src/utils/screenTimeControl';
@@ -70,6 +75,20 @@ export default function App() {
     };
   }, [isSetupComplete, appState]);
 
+  // Starts AdMob once native code allows it (after the first screen is drawn and
+  // the UI thread is idle), then shows an ad after a short delay if eligible
+  const startAdMob = () => {
+    initializeAdMob()
+      .then(() => {
+        setTimeout(async () => {
+          await showInterstitialIfEligible();
+        }, 2000);
+      })
+      .catch(error => {
+        console.warn('Failed to initialize AdMob:', error);
+      });
+  };
+
   const initializeApplication = async () => {
     try {
       await initializeApp();
@@ -82,6 +101,8 @@ export default function App() {
         try {
           // Migrate PIN to native storage so overlay lock screen can verify it
           await migratePINToNativeStorage();
+          // Settings saved by older versions must reach the native store before the controls read them
+          await migrateSettingsToNativeStore();
 
           // Request POST_NOTIFICATIONS permission on Android 13+ before initializing controls
           // This is needed for the foreground service that keeps enforcement active
@@ -89,11 +110,8 @@ export default function App() {
 
           await initializeVolumeControl();
           await initializeScreenTimeControl();
-          await initializeAdMob();
-          // Show ad after initialization if eligible
-          setTimeout(async () => {
-            await showInterstitialIfEligible();
-          }, 2000);
+          // Not awaited: the ad SDK waits until the first screen is drawn
+          startAdMob();
         } catch (error) {
           console.warn('Failed to initialize controls:', error);
         }
@@ -114,11 +132,7 @@ export default function App() {
       // Request POST_NOTIFICATIONS permission on Android 13+ before initializing controls
       await requestPostNotificationsPermission();
 
-      await initializeAdMob();
-      // Show ad after a short delay to let the UI settle
-      setTimeout(async () => {
-        await showInterstitialIfEligible();
-      }, 2000);
+      startAdMob();
     } catch (error) {
       console.warn('Failed to initialize after setup:', error);
     }
@@ -0,0 +1,38 @@
+package com.kidsguard;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+
+/**
+ * Lets JS wait for AdInitScheduler before it touches the ad SDK
+ */
+public class AdInitModule extends ReactContextBaseJavaModule {
+    public static final String NAME = "AdInitModule";
+
+    public AdInitModule(ReactApplicationContext context) {
+        super(context);
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Resolves once the first screen has been drawn and the main thread is idle
+     */
+    @ReactMethod
+    public void whenReady(final Promise promise) {
+        AdInitScheduler.whenReady(new Runnable() {
+            @Override
+            public void run() {
+                promise.resolve(true);
+            }
+        });
+    }
+}
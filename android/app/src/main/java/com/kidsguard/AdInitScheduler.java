@@ -0,0 +1,119 @@
+package com.kidsguard;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the ad SDK back until the app has shown real content and gone idle.
+ *
+ * Loading the first ad starts the Mobile Ads SDK, a WebView and its
+ * threads. That used to happen while the first screen, usually the
+ * parent's PIN entry, was still being built. whenReady() callbacks run once
+ * the React root has drawn a frame with content and the main thread has
+ * gone idle after it. Only MainActivity calls watch(), so a process that
+ * never shows React (a service-only start of ":enforcer") never releases
+ * them.
+ *
+ * Logs, under "AdInitScheduler", the time from process start to the first
+ * content frame and to the release, and reports both to the enforcer, whose
+ * dump keeps them per cold start (StartupTrace), to compare cold starts with
+ * the ad SDK deferred and loaded up front.
+ */
+public final class AdInitScheduler {
+    private static final String TAG = "AdInitScheduler";
+
+    private static final List<Runnable> pending = new ArrayList<>();
+    private static boolean ready = false;
+    // Decor view being watched for content; null once content was drawn
+    private static View watchedDecorView;
+    private static long firstContentFrameMs = -1;
+
+    private AdInitScheduler() {
+    }
+
+    /**
+     * Called from MainActivity.onResume; a recreated activity takes over the watch
+     */
+    public static void watch(final Activity activity) {
+        final View decorView = activity.getWindow().getDecorView();
+        final Context appContext = activity.getApplicationContext();
+        synchronized (AdInitScheduler.class) {
+            if (ready || decorView == watchedDecorView) {
+                return;
+            }
+            watchedDecorView = decorView;
+        }
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                View reactRoot = ResumeFrameWatcher.getReactRoot(activity);
+                if (reactRoot == null || !ResumeFrameWatcher.hasSizedChild(reactRoot)) {
+                    return true;
+                }
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                synchronized (AdInitScheduler.class) {
+                    if (watchedDecorView != decorView) {
+                        return true; // Superseded by a newer activity
+                    }
+                    watchedDecorView = null;
+                }
+                firstContentFrameMs = sinceProcessStartMs();
+                Log.i(TAG, "First content frame " + firstContentFrameMs + "ms after process start");
+                Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+                    @Override
+                    public boolean queueIdle() {
+                        release(appContext);
+                        return false;
+                    }
+                });
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Run callback once the ad SDK may start: right away if it already may,
+     * otherwise on the main thread when it is released
+     */
+    public static void whenReady(Runnable callback) {
+        synchronized (AdInitScheduler.class) {
+            if (!ready) {
+                pending.add(callback);
+                return;
+            }
+        }
+        callback.run();
+    }
+
+    private static void release(Context context) {
+        List<Runnable> callbacks;
+        synchronized (AdInitScheduler.class) {
+            if (ready) {
+                return;
+            }
+            ready = true;
+            callbacks = new ArrayList<>(pending);
+            pending.clear();
+        }
+        long releaseMs = sinceProcessStartMs();
+        Log.i(TAG, "Ad SDK released " + releaseMs + "ms after process start, "
+            + callbacks.size() + " waiting");
+        EnforcerClient.reportUiStart(context, firstContentFrameMs, releaseMs);
+        for (Runnable callback : callbacks) {
+            callback.run();
+        }
+    }
+
+    private static long sinceProcessStartMs() {
+        return SystemClock.uptimeMillis() - StartupTrace.processStartUptimeMs();
+    }
+}
@@ -5,21 +5,35 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.SharedPreferences;
 import android.content.pm.ServiceInfo;
 import android.os.Build;
+import android.os.Debug;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.PowerManager;
 import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+
 public class EnforcementService extends Service {
     private static final String TAG = "EnforcementService";
     private static final String CHANNEL_ID = "kids_guard_enforcement";
     private static final int NOTIFICATION_ID = 1001;
     private static final long SCREEN_TIME_CHECK_INTERVAL_MS = 60000; // 60 seconds
+    private static final long SESSION_BREAK_MS = 5 * 60000; // Screen off this long ends a session
+    // The parent's PIN lifts bedtime until it ends, for this long at most
+    private static final long PIN_OVERRIDE_MS = 30 * 60000;
 
     // Intent action constants
     public static final String ACTION_START = "com.kidsguard.ACTION_START";
@@ -37,26 +51,191 @@ public class EnforcementService extends Service {
         @Override
         public void run() {
             if (isMonitoringScreenTime) {
+                long cpuStartNs = Debug.threadCpuTimeNanos();
+                checkStartNs = System.nanoTime();
                 checkScreenTimeLimit();
                 screenTimeHandler.postDelayed(this, SCREEN_TIME_CHECK_INTERVAL_MS);
+                EnforcementStats.INSTANCE.recordWakeup(EnforcementStats.Source.SERVICE_TICK,
+                    Debug.threadCpuTimeNanos() - cpuStartNs);
+            }
+        }
+    };
+
+    // When the check now running started, for the check-to-lock latency
+    private long checkStartNs;
+
+    // Daily budget, bedtime and continuous session rules; only the earliest deadline is armed
+    private PolicyEvaluator evaluator;
+    private PolicyRules.ContinuousSessionRule sessionRule;
+    private final Runnable policyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (evaluator != null) {
+                long cpuStartNs = Debug.threadCpuTimeNanos();
+                checkStartNs = System.nanoTime();
+                evaluator.onDeadline(ScreenTimeModule.clock.currentTimeMillis());
+                armPolicyTimer();
+                EnforcementStats.INSTANCE.recordWakeup(EnforcementStats.Source.POLICY_TIMER,
+                    Debug.threadCpuTimeNanos() - cpuStartNs);
             }
         }
     };
 
+    private final PolicyEvaluator.Rule budgetRule = new PolicyRules.BudgetRule(new PolicyRules.BudgetSource() {
+        @Override
+        public ScreenTimeBudget load() {
+            return isMonitoringScreenTime ? ScreenTimeModule.getBudgetStatic(EnforcementService.this) : ScreenTimeBudget.NONE;
+        }
+    });
+
+    private final PolicyEvaluator.Listener policyListener = new PolicyEvaluator.Listener() {
+        @Override
+        public void onViolationChanged(PolicyEvaluator.Rule rule, boolean violated) {
+            TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(),
+                violated ? "rule violated" : "rule cleared", rule.getId());
+            LockOverlayManager.getInstance().setDeviceLockRule(getDeviceLockRule());
+            boolean budgetBlocksApps = PolicyRules.BUDGET_ID.equals(rule.getId()) && appPolicies.hasLimitedApps();
+            if (violated && !budgetBlocksApps) {
+                Log.d(TAG, "Rule " + rule.getId() + " violated, locking");
+                launchLockActivity();
+            } else if (!violated && !isDeviceLockRequired()) {
+                // Keep the lock while any other rule still applies
+                Log.d(TAG, "Rule " + rule.getId() + " cleared, unlocking");
+                try {
+                    LockOverlayManager overlay = LockOverlayManager.getInstance();
+                    if (overlay.getBlockedPackage() == null) {
+                        overlay.dismiss();
+                    }
+                } catch (Exception e) {
+                    Log.w(TAG, "Error dismissing overlay after rule cleared", e);
+                }
+            }
+            if (budgetBlocksApps) {
+                // Budget state decides whether the limited apps are blocked
+                applyAppPolicy(0);
+            }
+        }
+    };
+
+    // Per-app blocking, driven by foreground changes from usage events
+    private AppPolicyTable appPolicies = AppPolicyTable.EMPTY;
+    private ForegroundAppMonitor appMonitor;
+    private final ForegroundAppMonitor.Callback appMonitorCallback = new ForegroundAppMonitor.Callback() {
+        @Override
+        public void onForegroundAppChanged(String packageName, long eventTimeMs) {
+            applyAppPolicy(eventTimeMs);
+        }
+    };
+
+    // Handler delays stop while the device sleeps, so re-evaluate and re-arm the warnings from the
+    // wall clock when it wakes up or the clock/time zone changes. Screen on/off also drives the
+    // session rule.
+    private final BroadcastReceiver clockReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            checkStartNs = System.nanoTime();
+            long nowMs = ScreenTimeModule.clock.currentTimeMillis();
+            String action = intent.getAction();
+            if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                appMonitor.stop();
+                LockOverlayManager.getInstance().onScreenInteractive(false);
+            } else if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                updateAppMonitor();
+                LockOverlayManager.getInstance().onScreenInteractive(true);
+            }
+            if (sessionRule != null) {
+                if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                    sessionRule.onScreenOff(nowMs);
+                } else if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                    sessionRule.onScreenOn(nowMs);
+                }
+            }
+            if (Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+                updateScheduleRule();
+            }
+            evaluator.reevaluateAll(nowMs);
+            rescheduleDeadline();
+        }
+    };
+
+    // Pre-limit warnings, re-armed whenever the deadline inputs change
+    private ScreenTimeWarningScheduler warningScheduler;
+    private final SharedPreferences.OnSharedPreferenceChangeListener screenTimePrefsListener =
+        new SharedPreferences.OnSharedPreferenceChangeListener() {
+            @Override
+            public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
+                checkStartNs = System.nanoTime();
+                if (ScreenTimeModule.KEY_SCHEDULE_WINDOWS.equals(key)) {
+                    updateScheduleRule();
+                    armPolicyTimer();
+                    return;
+                }
+                if (ScreenTimeModule.KEY_APP_POLICIES.equals(key)) {
+                    appPolicies = ScreenTimeModule.getAppPolicyTableStatic(EnforcementService.this);
+                    LockOverlayManager.getInstance().setDeviceLockRule(getDeviceLockRule());
+                    updateAppMonitor();
+                    applyAppPolicy(0);
+                    return;
+                }
+                if (ScreenTimeModule.KEY_MAX_SESSION_MINUTES.equals(key)) {
+                    updateSessionRule();
+                    armPolicyTimer();
+                    return;
+                }
+                if (ScreenTimeModule.KEY_PIN_OVERRIDE.equals(key)) {
+                    applyPinOverride();
+                    armPolicyTimer();
+                    return;
+                }
+                for (String deadlineKey : ScreenTimeModule.DEADLINE_KEYS) {
+                    if (deadlineKey.equals(key)) {
+                        rescheduleDeadline();
+                        return;
+                    }
+                }
+            }
+        };
+
     @Override
     public void onCreate() {
         super.onCreate();
         Log.d(TAG, "EnforcementService created");
+        checkStartNs = System.nanoTime();
+        TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(), "service created", null);
         screenTimeHandler = new Handler(Looper.getMainLooper());
+        ScreenTimeModule.recoverBudgetStatic(this);
         createNotificationChannel();
+        warningScheduler = new ScreenTimeWarningScheduler(this, screenTimeHandler);
+
+        appPolicies = ScreenTimeModule.getAppPolicyTableStatic(this);
+        appMonitor = new ForegroundAppMonitor(this, screenTimeHandler, appMonitorCallback);
+
+        evaluator = new PolicyEvaluator(policyListener);
+        evaluator.putRule(budgetRule, ScreenTimeModule.clock.currentTimeMillis());
+        updateScheduleRule();
+        updateSessionRule();
+        applyPinOverride();
+        ScreenTimeModule.getPrefs(this).registerOnSharedPreferenceChangeListener(screenTimePrefsListener);
+
+        IntentFilter clockFilter = new IntentFilter(Intent.ACTION_SCREEN_ON);
+        clockFilter.addAction(Intent.ACTION_SCREEN_OFF);
+        clockFilter.addAction(Intent.ACTION_TIME_CHANGED);
+        clockFilter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        registerReceiver(clockReceiver, clockFilter);
 
         // Check if screen time enforcement was active before service restart
         restoreScreenTimeStateIfNeeded();
+        armPolicyTimer();
+        updateAppMonitor();
+        VolumePolicy.getInstance().restore(this);
+        StartupTrace.onEnforcementReady();
+        ScreenTimeEvents.send(this, ScreenTimeEvents.TYPE_SERVICE_STARTED, null);
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         Log.d(TAG, "EnforcementService onStartCommand");
+        checkStartNs = System.nanoTime();
 
         // Handle intent actions
         boolean handledIntent = false;
@@ -92,6 +271,7 @@ public class EnforcementService extends Service {
         }
 
         // Create notification
+        long cpuStartNs = Debug.threadCpuTimeNanos();
         Notification notification = createNotification();
 
         // Start as foreground service
@@ -103,6 +283,9 @@ public class EnforcementService extends Service {
             startForeground(NOTIFICATION_ID, notification);
             Log.d(TAG, "Started foreground service (Android < 14)");
         }
+        EnforcementStats.INSTANCE.recordCallback(EnforcementStats.Source.NOTIFICATION_REBUILD,
+            Debug.threadCpuTimeNanos() - cpuStartNs);
+        EnforcementStats.INSTANCE.recordBinderCalls(EnforcementStats.Source.NOTIFICATION_REBUILD, 1);
 
         // Return START_STICKY to ensure the service restarts if killed by the system
         return START_STICKY;
@@ -111,7 +294,13 @@ public class EnforcementService extends Service {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        ScreenTimeModule.getPrefs(this).unregisterOnSharedPreferenceChangeListener(screenTimePrefsListener);
+        unregisterReceiver(clockReceiver);
+        screenTimeHandler.removeCallbacks(policyRunnable);
+        appMonitor.stop();
+        evaluator = null; // Leave the overlay as it is while shutting down
         stopScreenTimeMonitoring();
+        TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(), "service destroyed", null);
         Log.d(TAG, "EnforcementService destroyed");
     }
 
@@ -120,6 +309,76 @@ public class EnforcementService extends Service {
         return null; // We don't need binding
     }
 
+    /**
+     * adb shell dumpsys activity service com.kidsguard/.EnforcementService
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        long nowMs = ScreenTimeModule.clock.currentTimeMillis();
+        ZoneId zone = ZoneId.systemDefault();
+        writer.println("EnforcementService (now " + formatTime(nowMs, zone) + ")");
+
+        writer.println("  Policy:");
+        ScreenTimeBudget budget = ScreenTimeModule.getBudgetStatic(this);
+        writer.println("    monitoring=" + isMonitoringScreenTime
+            + " enforcing=" + budget.enforcing
+            + " paused=" + budget.isPaused()
+            + " used=" + budget.getUsageSeconds(nowMs) + "s"
+            + " limit=" + budget.getEffectiveLimitSeconds() + "s"
+            + " (bonus " + budget.bonusSeconds + "s)"
+            + " deadline=" + (budget.getDeadlineMs() > 0 ? formatTime(budget.getDeadlineMs(), zone) : "none"));
+        PolicyEvaluator current = evaluator;
+        if (current != null) {
+            writer.println("    rules=" + current.getRuleCount()
+                + " budget=" + current.isViolated(PolicyRules.BUDGET_ID)
+                + " schedule=" + current.isViolated(PolicyRules.SCHEDULE_ID)
+                + " session=" + current.isViolated(PolicyRules.SESSION_ID));
+            long nextMs = current.nextDeadlineMs();
+            writer.println("    next deadline: " + (nextMs == PolicyEvaluator.NO_DEADLINE
+                ? "none" : formatTime(nextMs, zone) + " (in " + ((nextMs - nowMs) / 1000) + "s)"));
+        } else {
+            writer.println("    evaluator stopped");
+        }
+        writer.println("    app policies=" + appPolicies.size()
+            + " limited=" + appPolicies.hasLimitedApps()
+            + " monitor=" + (appMonitor != null && appMonitor.isRunning())
+            + " foreground=" + (appMonitor != null ? appMonitor.getForegroundPackage() : null));
+
+        LockOverlayManager overlay = LockOverlayManager.getInstance();
+        writer.println("  Overlay: showing=" + overlay.isShowing()
+            + " mode=" + overlay.getMode()
+            + " blocked=" + overlay.getBlockedPackage());
+
+        writer.println("  Recent transitions (oldest first):");
+        TransitionLog.INSTANCE.dump(writer, "    ", zone);
+
+        writer.println("  Latency:");
+        writer.println("    limit_to_lock: " + LockOverlayManager.LIMIT_LATENCY.summary());
+        writer.println("    check_to_lock: " + LockOverlayManager.LOCK_LATENCY.summary());
+        writer.println("    unlock: " + LockOverlayManager.UNLOCK_LATENCY.summary());
+        writer.println("    pin_verify: " + PINStorageHelper.VERIFY_LATENCY.summary());
+        writer.println("    keypad_draw: " + PinPadView.KEY_DRAW_LATENCY.summary());
+
+        writer.println("  Cost by subsystem:");
+        EnforcementStats.INSTANCE.dump(writer, "    ");
+
+        writer.println("  Process start:");
+        StartupTrace.dump(writer, "    ");
+
+        // Steady-state footprint of the :enforcer process
+        Runtime runtime = Runtime.getRuntime();
+        writer.println("  Memory:");
+        writer.println("    pss=" + Debug.getPss() + "KB"
+            + " java_heap=" + ((runtime.totalMemory() - runtime.freeMemory()) / 1024) + "KB"
+            + " of " + (runtime.maxMemory() / 1024) + "KB"
+            + " native_heap=" + (Debug.getNativeHeapAllocatedSize() / 1024) + "KB"
+            + " volume_policy=" + VolumePolicy.getInstance().isEnforcing());
+    }
+
+    private static String formatTime(long timeMs, ZoneId zone) {
+        return Instant.ofEpochMilli(timeMs).atZone(zone).toLocalDateTime().toString();
+    }
+
     // ============ Screen Time Enforcement Methods ============
 
     private void updateScreenTimeEnforcement(boolean enforcing) {
@@ -133,6 +392,7 @@ public class EnforcementService extends Service {
     }
 
     private void stopScreenTimeEnforcement() {
+        TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(), "monitoring stopped", null);
         isMonitoringScreenTime = false;
         stopScreenTimeMonitoring();
         // Dismiss overlay if showing
@@ -146,14 +406,17 @@ public class EnforcementService extends Service {
 
     private void startScreenTimeMonitoring() {
         if (isMonitoringScreenTime) {
+            rescheduleDeadline(); // Limit may have changed
             return; // Already monitoring
         }
 
         isMonitoringScreenTime = true;
+        TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(), "monitoring started", null);
 
         // Start periodic checks
         screenTimeHandler.removeCallbacks(screenTimeCheckRunnable);
         screenTimeHandler.postDelayed(screenTimeCheckRunnable, SCREEN_TIME_CHECK_INTERVAL_MS);
+        rescheduleDeadline();
 
         Log.d(TAG, "Screen time monitoring started in foreground service");
     }
@@ -163,28 +426,240 @@ public class EnforcementService extends Service {
             screenTimeHandler.removeCallbacks(screenTimeCheckRunnable);
         }
         isMonitoringScreenTime = false;
+        rescheduleDeadline(); // Drops the budget deadline and any pending warnings
         Log.d(TAG, "Screen time monitoring stopped");
     }
 
+    /**
+     * Backstop for the policy timer: relock when a device lock went away while a
+     * rule still needs it. The evaluator only calls back when a verdict changes,
+     * so a bedtime or session lock whose fallback activity closed would otherwise
+     * stay away until the next rule change.
+     */
     private void checkScreenTimeLimit() {
         try {
-            boolean enforcing = ScreenTimeModule.isEnforcingStatic(this);
-            if (!enforcing) {
-                Log.d(TAG, "Screen time not enforcing, skipping check");
+            ScreenTimeBudget budget = ScreenTimeModule.getBudgetStatic(this);
+            long nowMs = ScreenTimeModule.clock.currentTimeMillis();
+            if (budget.enforcing) {
+                Log.d(TAG, "Screen time check: used=" + budget.getUsageSeconds(nowMs)
+                    + "s, limit=" + budget.getEffectiveLimitSeconds() + "s");
+            }
+
+            if (evaluator == null) {
+                return;
+            }
+            // Catches a budget deadline the policy timer missed; the rule's listener locks
+            // and tells the lock screens, so the relock below agrees with what they check
+            evaluator.reevaluate(PolicyRules.BUDGET_ID, nowMs);
+            armPolicyTimer();
+            if (isDeviceLockRequired()) {
+                Log.d(TAG, "Device lock required, launching lock activity");
+                launchLockActivity();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking screen time limit", e);
+        }
+    }
+
+    /**
+     * Re-evaluate the daily budget after its inputs changed and re-arm the warnings
+     */
+    private void rescheduleDeadline() {
+        if (screenTimeHandler == null || warningScheduler == null) {
+            return;
+        }
+        if (evaluator != null) {
+            evaluator.reevaluate(PolicyRules.BUDGET_ID, ScreenTimeModule.clock.currentTimeMillis());
+            armPolicyTimer();
+        }
+        if (!isMonitoringScreenTime) {
+            warningScheduler.cancel();
+            return;
+        }
+        try {
+            long deadlineMs = ScreenTimeModule.getDeadlineMsStatic(this);
+            warningScheduler.schedule(deadlineMs, ScreenTimeModule.getWarningMinutesStatic(this));
+        } catch (Exception e) {
+            Log.e(TAG, "Error scheduling screen time warnings", e);
+        }
+    }
+
+    // ============ Policy Methods ============
+
+    /**
+     * Arm the single timer at the earliest rule deadline. Nothing runs in between.
+     */
+    private void armPolicyTimer() {
+        if (screenTimeHandler == null || evaluator == null) {
+            return;
+        }
+        screenTimeHandler.removeCallbacks(policyRunnable);
+        long nextMs = evaluator.nextDeadlineMs();
+        if (nextMs != PolicyEvaluator.NO_DEADLINE) {
+            long delayMs = Math.max(0, nextMs - ScreenTimeModule.clock.currentTimeMillis());
+            screenTimeHandler.postDelayed(policyRunnable, delayMs);
+            Log.d(TAG, "Next policy deadline in " + (delayMs / 1000) + "s");
+        }
+        updateUnlockTime();
+    }
+
+    /**
+     * Tell the lock screen when the device lock ends by itself. Rules change only
+     * through the evaluator, and every change re-arms the timer, so this runs from there.
+     */
+    private void updateUnlockTime() {
+        long nowMs = ScreenTimeModule.clock.currentTimeMillis();
+        long unlockMs = appPolicies.hasLimitedApps()
+            ? evaluator.clearTimeMs(nowMs, PolicyRules.SCHEDULE_ID, PolicyRules.SESSION_ID)
+            : evaluator.clearTimeMs(nowMs, PolicyRules.SCHEDULE_ID, PolicyRules.SESSION_ID, PolicyRules.BUDGET_ID);
+        boolean unlocksItself = unlockMs != PolicyEvaluator.NO_DEADLINE && unlockMs > nowMs;
+        LockOverlayManager.getInstance().setUnlockTimeMs(unlocksItself ? unlockMs : 0);
+    }
+
+    /**
+     * Rebuild the bedtime rule from the stored windows and the current time zone
+     */
+    private void updateScheduleRule() {
+        try {
+            ScheduleIndex schedule = ScreenTimeModule.getScheduleIndexStatic(this);
+            if (schedule.isEmpty()) {
+                evaluator.removeRule(PolicyRules.SCHEDULE_ID);
+            } else {
+                evaluator.putRule(new PolicyRules.ScheduleRule(schedule, ZoneId.systemDefault()),
+                    ScreenTimeModule.clock.currentTimeMillis());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error applying schedule", e);
+        }
+    }
+
+    /**
+     * Add, update or drop the continuous session rule. A new session starts now;
+     * changing the limit keeps the session that is already running.
+     */
+    private void updateSessionRule() {
+        try {
+            int maxMinutes = ScreenTimeModule.getMaxSessionMinutesStatic(this);
+            long nowMs = ScreenTimeModule.clock.currentTimeMillis();
+            if (maxMinutes <= 0) {
+                sessionRule = null;
+                evaluator.removeRule(PolicyRules.SESSION_ID);
+            } else if (sessionRule == null) {
+                sessionRule = new PolicyRules.ContinuousSessionRule(maxMinutes * 60000L, SESSION_BREAK_MS, nowMs);
+                evaluator.putRule(sessionRule, nowMs);
+            } else {
+                sessionRule.setMaxSessionMs(maxMinutes * 60000L);
+                evaluator.reevaluate(PolicyRules.SESSION_ID, nowMs);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error applying session limit", e);
+        }
+    }
+
+    /**
+     * Apply the lock the parent's PIN lifted on a lock screen. Bedtime counts
+     * as over until it ends or for PIN_OVERRIDE_MS at most; a session limit
+     * starts a new session. The daily budget keeps running either way. Also
+     * runs at creation, so a restarted service keeps a bedtime override.
+     */
+    private void applyPinOverride() {
+        try {
+            String override = ScreenTimeModule.getPinOverrideStatic(this);
+            int split = override.lastIndexOf(':');
+            if (split < 0) {
                 return;
             }
+            String ruleId = override.substring(0, split);
+            long atMs = Long.parseLong(override.substring(split + 1));
+            long nowMs = ScreenTimeModule.clock.currentTimeMillis();
+            long leftMs = atMs + PIN_OVERRIDE_MS - nowMs;
+            if (leftMs <= 0 || leftMs > PIN_OVERRIDE_MS) {
+                return; // Over, or the clock went back since
+            }
+            if (PolicyRules.SCHEDULE_ID.equals(ruleId)) {
+                evaluator.suppress(PolicyRules.SCHEDULE_ID, nowMs, leftMs);
+            } else if (PolicyRules.SESSION_ID.equals(ruleId) && sessionRule != null) {
+                sessionRule.restart(nowMs);
+                evaluator.reevaluate(PolicyRules.SESSION_ID, nowMs);
+            }
+            TransitionLog.INSTANCE.record(nowMs, "pin override", ruleId);
+        } catch (Exception e) {
+            Log.e(TAG, "Error applying PIN override", e);
+        }
+    }
 
-            int usedSeconds = ScreenTimeModule.getDailyUsageSecondsStatic(this);
-            int limitSeconds = ScreenTimeModule.getLimitStatic(this);
+    /**
+     * Whether some rule needs the whole device locked
+     */
+    private boolean isDeviceLockRequired() {
+        return getDeviceLockRule() != null;
+    }
 
-            Log.d(TAG, "Screen time check: used=" + usedSeconds + "s, limit=" + limitSeconds + "s");
+    /**
+     * The rule that needs the whole device locked, or null. Bedtime goes first,
+     * then the session limit. An exhausted budget only blocks the limited apps
+     * when the parent set any.
+     */
+    private String getDeviceLockRule() {
+        if (evaluator.isViolated(PolicyRules.SCHEDULE_ID)) {
+            return PolicyRules.SCHEDULE_ID;
+        }
+        if (evaluator.isViolated(PolicyRules.SESSION_ID)) {
+            return PolicyRules.SESSION_ID;
+        }
+        if (evaluator.isViolated(PolicyRules.BUDGET_ID) && !appPolicies.hasLimitedApps()) {
+            return PolicyRules.BUDGET_ID;
+        }
+        return null;
+    }
 
-            if (usedSeconds >= limitSeconds) {
-                Log.d(TAG, "Screen time limit exceeded, launching lock activity");
-                launchLockActivity();
+    // ============ App Policy Methods ============
+
+    /**
+     * Poll usage events only while the screen is on and some app has a policy
+     */
+    private void updateAppMonitor() {
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        boolean interactive = powerManager == null || powerManager.isInteractive();
+        if (!appPolicies.isEmpty() && interactive && ForegroundAppMonitor.hasUsageAccess(this)) {
+            appMonitor.start();
+        } else {
+            appMonitor.stop();
+        }
+    }
+
+    /**
+     * Block or release the foreground app. Only app blocks are touched here;
+     * a device lock is left to the policy rules. eventTimeMs is when the app
+     * came to the foreground, or 0 when re-applying after a policy change.
+     */
+    private void applyAppPolicy(long eventTimeMs) {
+        if (evaluator == null) {
+            return;
+        }
+        String packageName = appMonitor.getForegroundPackage();
+        if (packageName == null || packageName.equals(getPackageName())) {
+            return; // Our own lock screen or settings
+        }
+
+        try {
+            LockOverlayManager overlay = LockOverlayManager.getInstance();
+            overlay.onForegroundAppChanged(packageName);
+
+            int policy = appPolicies.lookup(packageName);
+            boolean blocked = policy == AppPolicyTable.BLOCK
+                || (policy == AppPolicyTable.BLOCK_AFTER_LIMIT && evaluator.isViolated(PolicyRules.BUDGET_ID));
+
+            if (blocked) {
+                if (overlay.showAppBlockScreen(this, packageName) && eventTimeMs > 0) {
+                    // Event timestamps come from the system clock
+                    ForegroundAppMonitor.recordBlockLatency(System.currentTimeMillis() - eventTimeMs);
+                }
+            } else if (overlay.getBlockedPackage() != null) {
+                overlay.dismiss();
             }
         } catch (Exception e) {
-            Log.e(TAG, "Error checking screen time limit", e);
+            Log.e(TAG, "Error applying app policy", e);
         }
     }
 
@@ -193,6 +668,9 @@ public class EnforcementService extends Service {
             LockOverlayManager overlay = LockOverlayManager.getInstance();
             if (!overlay.isShowing()) {
                 overlay.showLockScreen(this);
+                if (overlay.isShowing()) {
+                    LockOverlayManager.LOCK_LATENCY.recordMicros((System.nanoTime() - checkStartNs) / 1000);
+                }
                 Log.d(TAG, "Lock overlay shown via EnforcementService");
             }
         } catch (Exception e) {
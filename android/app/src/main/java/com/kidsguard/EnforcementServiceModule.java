@@ -12,6 +12,7 @@ import com.facebook.react.bridge.Promise;
 import androidx.annotation.NonNull;
 
 public class EnforcementServiceModule extends ReactContextBaseJavaModule {
+    public static final String NAME = "EnforcementServiceModule";
     private static final String TAG = "EnforcementServiceModule";
     private final ReactApplicationContext reactContext;
     private boolean serviceRunning = false;
@@ -24,7 +25,7 @@ public class EnforcementServiceModule extends ReactContextBaseJavaModule {
     @NonNull
     @Override
     public String getName() {
-        return "EnforcementServiceModule";
+        return NAME;
     }
 
     @ReactMethod
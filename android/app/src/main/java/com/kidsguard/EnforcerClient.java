@@ -0,0 +1,185 @@
+package com.kidsguard;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * UI process side of EnforcerProvider: each call is one synchronous binder
+ * transaction into the ":enforcer" process, which starts it if needed.
+ *
+ * The budget is cached here for getSnapshotSync() and usage ticks. Budget
+ * commands answer with the new budget and ScreenTimeEvents broadcasts carry
+ * it, so both refill the cache; anything else only marks it stale. The last
+ * known budget is kept either way, for readers that must not block.
+ */
+final class EnforcerClient {
+    private static final String TAG = "EnforcerClient";
+
+    private static volatile ScreenTimeBudget cachedBudget;
+    // False once the cached budget may be out of date
+    private static volatile boolean budgetCurrent = false;
+    private static volatile boolean cachedLocked = false;
+    private static final AtomicBoolean refreshing = new AtomicBoolean();
+    private static Handler backgroundHandler;
+
+    private EnforcerClient() {
+    }
+
+    static Bundle call(Context context, String method, Bundle extras) {
+        Bundle result = context.getContentResolver().call(EnforcerProvider.getUri(context), method, null, extras);
+        if (result == null) {
+            throw new IllegalStateException("Enforcer did not answer " + method);
+        }
+        return result;
+    }
+
+    static Bundle call(Context context, String method) {
+        return call(context, method, null);
+    }
+
+    /**
+     * Calls a method that answers EXTRA_RESULT, and caches the budget it
+     * answers with (EXTRA_BUDGET); without one the cache is marked stale
+     */
+    static boolean command(Context context, String method, Bundle extras) {
+        Bundle result;
+        try {
+            result = call(context, method, extras);
+        } catch (RuntimeException e) {
+            invalidate();
+            throw e;
+        }
+        Bundle budget = result.getBundle(EnforcerProvider.EXTRA_BUDGET);
+        if (budget != null) {
+            setBudget(EnforcerProvider.getBudget(budget));
+        } else {
+            invalidate();
+        }
+        return result.getBoolean(EnforcerProvider.EXTRA_RESULT);
+    }
+
+    static boolean command(Context context, String method) {
+        return command(context, method, null);
+    }
+
+    static Bundle withInt(String key, int value) {
+        Bundle extras = new Bundle();
+        extras.putInt(key, value);
+        return extras;
+    }
+
+    static Bundle withString(String key, String value) {
+        Bundle extras = new Bundle();
+        extras.putString(key, value);
+        return extras;
+    }
+
+    /**
+     * Current budget, read from the enforcer when the cache is stale
+     */
+    static ScreenTimeBudget getBudget(Context context) {
+        ScreenTimeBudget budget = cachedBudget;
+        if (budget == null || !budgetCurrent) {
+            budget = fetchBudget(context);
+        }
+        return budget;
+    }
+
+    /**
+     * Last known budget, or null before the first one arrived. Never makes
+     * IPC; a stale or missing budget is read again in the background.
+     */
+    static ScreenTimeBudget getLastBudget(Context context) {
+        ScreenTimeBudget budget = cachedBudget;
+        if (budget == null || !budgetCurrent) {
+            refreshInBackground(context.getApplicationContext());
+        }
+        return budget;
+    }
+
+    private static ScreenTimeBudget fetchBudget(Context context) {
+        Bundle result = call(context, EnforcerProvider.METHOD_GET_BUDGET);
+        ScreenTimeBudget budget = EnforcerProvider.getBudget(result);
+        cachedLocked = result.getBoolean(EnforcerProvider.EXTRA_LOCKED);
+        setBudget(budget);
+        return budget;
+    }
+
+    private static void refreshInBackground(final Context context) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return; // One read at a time is enough
+        }
+        getBackgroundHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    fetchBudget(context);
+                } catch (Exception e) {
+                    Log.w(TAG, "Error refreshing the budget, keeping the last one", e);
+                } finally {
+                    refreshing.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Overlay state as of the last budget read or lock event
+     */
+    static boolean isLocked() {
+        return cachedLocked;
+    }
+
+    static void setLocked(boolean locked) {
+        cachedLocked = locked;
+    }
+
+    /**
+     * Budget sent along with an enforcer event
+     */
+    /**
+     * Send this process's cold start times to the enforcer's dump, off the
+     * calling thread
+     */
+    static void reportUiStart(final Context context, long firstContentFrameMs, long adReleaseMs) {
+        final Bundle extras = new Bundle();
+        extras.putLong(EnforcerProvider.EXTRA_FIRST_FRAME_MS, firstContentFrameMs);
+        extras.putLong(EnforcerProvider.EXTRA_AD_RELEASE_MS, adReleaseMs);
+        getBackgroundHandler().post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    call(context, EnforcerProvider.METHOD_RECORD_UI_START, extras);
+                } catch (Exception e) {
+                    Log.w(TAG, "Error reporting the cold start", e);
+                }
+            }
+        });
+    }
+
+    private static synchronized Handler getBackgroundHandler() {
+        if (backgroundHandler == null) {
+            HandlerThread thread = new HandlerThread(TAG);
+            thread.start();
+            backgroundHandler = new Handler(thread.getLooper());
+        }
+        return backgroundHandler;
+    }
+
+    static void setBudget(ScreenTimeBudget budget) {
+        cachedBudget = budget;
+        budgetCurrent = true;
+    }
+
+    /**
+     * Mark the cached budget stale; it is still served by getLastBudget()
+     */
+    static void invalidate() {
+        budgetCurrent = false;
+    }
+}
@@ -0,0 +1,376 @@
+package com.kidsguard;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Front door of the ":enforcer" process.
+ *
+ * The enforcer process is the only one that opens the screen time, PIN and
+ * volume preferences, so they never see writes from two processes; they are
+ * also the only copy of the parent's settings (METHOD_GET_SETTINGS). The UI
+ * process sends every read and command through call() (one binder
+ * transaction, see EnforcerClient) and hears about changes through
+ * ScreenTimeEvents broadcasts.
+ *
+ * Commands that change enforcer state run on the enforcer's main thread,
+ * where the service, the lock screens and the volume observer live, so
+ * they never race those; only reads stay on the binder thread.
+ */
+public class EnforcerProvider extends ContentProvider {
+    private static final String TAG = "EnforcerProvider";
+    private static final String AUTHORITY_SUFFIX = ".enforcer";
+    // Longest a binder thread waits for a command handed to the main thread
+    private static final long MAIN_THREAD_WAIT_MS = 2000;
+
+    public static final String METHOD_GET_BUDGET = "getBudget";
+    public static final String METHOD_START_ENFORCING = "startEnforcing";
+    public static final String METHOD_STOP_ENFORCING = "stopEnforcing";
+    public static final String METHOD_PAUSE_TIMER = "pauseTimer";
+    public static final String METHOD_RESUME_TIMER = "resumeTimer";
+    public static final String METHOD_GRANT_EXTRA_TIME = "grantExtraTime";
+    public static final String METHOD_PUT_SETTINGS = "putSettings";
+    public static final String METHOD_IS_IN_SCHEDULE_WINDOW = "isInScheduleWindow";
+    public static final String METHOD_GET_APP_BLOCK_LATENCY = "getAppBlockLatency";
+    public static final String METHOD_GET_ENFORCEMENT_STATS = "getEnforcementStats";
+    public static final String METHOD_GET_LATENCY_STATS = "getLatencyStats";
+    public static final String METHOD_SAVE_PIN = "savePIN";
+    public static final String METHOD_VERIFY_PIN = "verifyPIN";
+    public static final String METHOD_START_VOLUME = "startVolume";
+    public static final String METHOD_STOP_VOLUME = "stopVolume";
+    public static final String METHOD_IS_VOLUME_ENFORCING = "isVolumeEnforcing";
+    public static final String METHOD_GET_SETTINGS = "getSettings";
+    public static final String METHOD_SAVE_VOLUME_SETTINGS = "saveVolumeSettings";
+    public static final String METHOD_SAVE_SCREEN_TIME_SETTINGS = "saveScreenTimeSettings";
+    public static final String METHOD_RECORD_UI_START = "recordUiStart";
+
+    public static final String EXTRA_RESULT = "result";
+    public static final String EXTRA_SECONDS = "seconds";
+    public static final String EXTRA_PIN = "pin";
+    public static final String EXTRA_PERCENT = "percent";
+    public static final String EXTRA_LOCKED = "locked";
+    public static final String EXTRA_MINUTES = "minutes";
+    public static final String EXTRA_OUTCOME = "outcome";
+    public static final String EXTRA_LOCKOUT_MS = "lockoutMs";
+    // Budget after a budget command, as putBudget() writes it
+    public static final String EXTRA_BUDGET = "budget";
+    public static final String EXTRA_FIRST_FRAME_MS = "firstFrameMs";
+    public static final String EXTRA_AD_RELEASE_MS = "adReleaseMs";
+
+    // Run on the main thread; everything else only reads and stays on the binder thread
+    private static final Set<String> MAIN_THREAD_METHODS = new HashSet<>(Arrays.asList(
+        METHOD_START_ENFORCING, METHOD_STOP_ENFORCING, METHOD_PAUSE_TIMER, METHOD_RESUME_TIMER,
+        METHOD_GRANT_EXTRA_TIME, METHOD_PUT_SETTINGS, METHOD_SAVE_PIN, METHOD_VERIFY_PIN,
+        METHOD_START_VOLUME, METHOD_STOP_VOLUME, METHOD_SAVE_VOLUME_SETTINGS, METHOD_SAVE_SCREEN_TIME_SETTINGS
+    ));
+
+    // Commands that may change the budget; they answer with it (EXTRA_BUDGET)
+    private static final Set<String> BUDGET_METHODS = new HashSet<>(Arrays.asList(
+        METHOD_START_ENFORCING, METHOD_STOP_ENFORCING, METHOD_PAUSE_TIMER, METHOD_RESUME_TIMER,
+        METHOD_GRANT_EXTRA_TIME, METHOD_SAVE_SCREEN_TIME_SETTINGS
+    ));
+
+    // Settings the UI may write with METHOD_PUT_SETTINGS; budget keys only change through commands
+    private static final String[] STRING_SETTINGS = {
+        ScreenTimeModule.KEY_SCHEDULE_WINDOWS, ScreenTimeModule.KEY_WARNING_MINUTES, ScreenTimeModule.KEY_APP_POLICIES
+    };
+    private static final String[] INT_SETTINGS = {
+        ScreenTimeModule.KEY_MAX_SESSION_MINUTES
+    };
+
+    private Handler mainHandler;
+    private boolean limitChanged = false;
+
+    // A budget save writes several keys; tell the UI once per save
+    private final Runnable budgetChangedNotifier = new Runnable() {
+        @Override
+        public void run() {
+            ScreenTimeEvents.send(getContext(),
+                limitChanged ? ScreenTimeEvents.TYPE_LIMIT_CHANGED : ScreenTimeEvents.TYPE_BUDGET_CHANGED, null);
+            limitChanged = false;
+        }
+    };
+
+    // Registered for the provider's lifetime, which is the process lifetime
+    private final SharedPreferences.OnSharedPreferenceChangeListener budgetListener =
+        new SharedPreferences.OnSharedPreferenceChangeListener() {
+            @Override
+            public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
+                for (String deadlineKey : ScreenTimeModule.DEADLINE_KEYS) {
+                    if (deadlineKey.equals(key)) {
+                        if (ScreenTimeModule.KEY_LIMIT_SECONDS.equals(key) || ScreenTimeModule.KEY_BONUS_SECONDS.equals(key)) {
+                            limitChanged = true;
+                        }
+                        mainHandler.removeCallbacks(budgetChangedNotifier);
+                        mainHandler.post(budgetChangedNotifier);
+                        return;
+                    }
+                }
+            }
+        };
+
+    public static Uri getUri(Context context) {
+        return Uri.parse("content://" + context.getPackageName() + AUTHORITY_SUFFIX);
+    }
+
+    @Override
+    public boolean onCreate() {
+        mainHandler = new Handler(Looper.getMainLooper());
+        ScreenTimeModule.recoverBudgetStatic(getContext());
+        ScreenTimeModule.getPrefs(getContext()).registerOnSharedPreferenceChangeListener(budgetListener);
+        return true;
+    }
+
+    /**
+     * Runs on a binder thread of the enforcer process; commands are handed to
+     * the main thread and waited for
+     */
+    @Nullable
+    @Override
+    public Bundle call(@NonNull final String method, @Nullable String arg, @Nullable final Bundle extras) {
+        if (!MAIN_THREAD_METHODS.contains(method) || Looper.myLooper() == Looper.getMainLooper()) {
+            return handle(method, extras);
+        }
+        FutureTask<Bundle> task = new FutureTask<>(new Callable<Bundle>() {
+            @Override
+            public Bundle call() {
+                return handle(method, extras);
+            }
+        });
+        mainHandler.post(task);
+        try {
+            return task.get(MAIN_THREAD_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            Log.e(TAG, "Command " + method + " on the main thread failed or timed out", e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private Bundle handle(String method, Bundle extras) {
+        Context context = getContext();
+        Bundle result = new Bundle();
+        switch (method) {
+            case METHOD_GET_BUDGET:
+                putBudget(result, ScreenTimeModule.getBudgetStatic(context));
+                result.putBoolean(EXTRA_LOCKED, LockOverlayManager.getInstance().isShowing());
+                break;
+            case METHOD_START_ENFORCING:
+                ScreenTimeModule.startEnforcingStatic(context, extras.getInt(EXTRA_SECONDS));
+                result.putBoolean(EXTRA_RESULT, true);
+                break;
+            case METHOD_STOP_ENFORCING:
+                ScreenTimeModule.stopEnforcingStatic(context);
+                result.putBoolean(EXTRA_RESULT, true);
+                break;
+            case METHOD_PAUSE_TIMER:
+                result.putBoolean(EXTRA_RESULT, ScreenTimeModule.pauseTimerStatic(context));
+                break;
+            case METHOD_RESUME_TIMER:
+                result.putBoolean(EXTRA_RESULT, ScreenTimeModule.resumeTimerStatic(context));
+                break;
+            case METHOD_GRANT_EXTRA_TIME:
+                boolean granted = ScreenTimeModule.grantExtraTimeStatic(context, extras.getInt(EXTRA_SECONDS));
+                if (granted) {
+                    // Saving on the main thread ran the service's prefs listener already, so the
+                    // budget is re-evaluated; bedtime or a session limit may still hold the lock
+                    LockOverlayManager overlay = LockOverlayManager.getInstance();
+                    if (!overlay.isDeviceLockRequired() && overlay.getBlockedPackage() == null) {
+                        overlay.dismiss();
+                    }
+                }
+                result.putBoolean(EXTRA_RESULT, granted);
+                break;
+            case METHOD_PUT_SETTINGS:
+                putSettings(context, extras);
+                result.putBoolean(EXTRA_RESULT, true);
+                break;
+            case METHOD_IS_IN_SCHEDULE_WINDOW:
+                result.putBoolean(EXTRA_RESULT, ScreenTimeModule.getScheduleIndexStatic(context)
+                    .isLockedAt(ScreenTimeModule.clock.currentTimeMillis(), ZoneId.systemDefault()));
+                break;
+            case METHOD_GET_APP_BLOCK_LATENCY:
+                result.putDouble("lastMs", ForegroundAppMonitor.getLastBlockLatencyMs());
+                result.putDouble("maxMs", ForegroundAppMonitor.getMaxBlockLatencyMs());
+                result.putInt("blocks", ForegroundAppMonitor.getBlockCount());
+                result.putInt("slowBlocks", ForegroundAppMonitor.getSlowBlockCount());
+                result.putDouble("targetMs", ForegroundAppMonitor.TARGET_BLOCK_LATENCY_MS);
+                break;
+            case METHOD_GET_ENFORCEMENT_STATS:
+                for (EnforcementStats.Source source : EnforcementStats.Source.values()) {
+                    Bundle entry = new Bundle();
+                    entry.putDouble("wakeups", EnforcementStats.INSTANCE.getWakeups(source));
+                    entry.putDouble("callbacks", EnforcementStats.INSTANCE.getCallbacks(source));
+                    entry.putDouble("binderCalls", EnforcementStats.INSTANCE.getBinderCalls(source));
+                    entry.putDouble("cpuMs", EnforcementStats.INSTANCE.getCpuNanos(source) / 1000000.0);
+                    result.putBundle(source.key, entry);
+                }
+                break;
+            case METHOD_GET_LATENCY_STATS:
+                result.putBundle("limitToLock", toLatencyBundle(LockOverlayManager.LIMIT_LATENCY));
+                result.putBundle("checkToLock", toLatencyBundle(LockOverlayManager.LOCK_LATENCY));
+                result.putBundle("unlock", toLatencyBundle(LockOverlayManager.UNLOCK_LATENCY));
+                result.putBundle("pinVerify", toLatencyBundle(PINStorageHelper.VERIFY_LATENCY));
+                result.putBundle("keypadDraw", toLatencyBundle(PinPadView.KEY_DRAW_LATENCY));
+                break;
+            case METHOD_RECORD_UI_START:
+                StartupTrace.recordUiStart(extras.getLong(EXTRA_FIRST_FRAME_MS), extras.getLong(EXTRA_AD_RELEASE_MS));
+                break;
+            case METHOD_SAVE_PIN:
+                PINStorageHelper.savePIN(context, extras.getString(EXTRA_PIN));
+                result.putBoolean(EXTRA_RESULT, true);
+                break;
+            case METHOD_VERIFY_PIN:
+                PinAttempts.Outcome outcome = PINStorageHelper.attemptPIN(context, extras.getString(EXTRA_PIN));
+                result.putBoolean(EXTRA_RESULT, outcome == PinAttempts.Outcome.ACCEPTED);
+                result.putString(EXTRA_OUTCOME, outcome.name());
+                result.putLong(EXTRA_LOCKOUT_MS, PINStorageHelper.getLockoutRemainingMs(context));
+                break;
+            case METHOD_START_VOLUME:
+                VolumePolicy.getInstance().start(context, extras.getInt(EXTRA_PERCENT));
+                result.putBoolean(EXTRA_RESULT, true);
+                break;
+            case METHOD_STOP_VOLUME:
+                VolumePolicy.getInstance().stop(context);
+                result.putBoolean(EXTRA_RESULT, true);
+                break;
+            case METHOD_IS_VOLUME_ENFORCING:
+                result.putBoolean(EXTRA_RESULT, VolumePolicy.getInstance().isEnforcing());
+                break;
+            case METHOD_GET_SETTINGS:
+                putAllSettings(context, result);
+                break;
+            case METHOD_SAVE_VOLUME_SETTINGS:
+                VolumePolicy.getInstance().setStoredPercent(context, VolumeMath.clampPercent(extras.getInt(EXTRA_PERCENT)));
+                result.putBoolean(EXTRA_RESULT, true);
+                break;
+            case METHOD_SAVE_SCREEN_TIME_SETTINGS:
+                ScreenTimeModule.setLimitStatic(context, extras.getInt(EXTRA_MINUTES));
+                result.putBoolean(EXTRA_RESULT, true);
+                break;
+            default:
+                Log.w(TAG, "Unknown method " + method);
+                return null;
+        }
+        if (BUDGET_METHODS.contains(method)) {
+            Bundle budget = new Bundle();
+            putBudget(budget, ScreenTimeModule.getBudgetStatic(context));
+            result.putBundle(EXTRA_BUDGET, budget);
+        }
+        return result;
+    }
+
+    private static void putSettings(Context context, Bundle extras) {
+        SharedPreferences.Editor editor = ScreenTimeModule.getPrefs(context).edit();
+        for (String key : STRING_SETTINGS) {
+            if (extras.containsKey(key)) {
+                editor.putString(key, extras.getString(key));
+            }
+        }
+        for (String key : INT_SETTINGS) {
+            if (extras.containsKey(key)) {
+                editor.putInt(key, extras.getInt(key));
+            }
+        }
+        editor.apply();
+    }
+
+    /**
+     * Everything the settings screens show, in the shape storage.getAllSettings()
+     * returns. "locked" is the enforcement state itself, so it cannot drift.
+     */
+    private static void putAllSettings(Context context, Bundle result) {
+        int percent = VolumePolicy.getStoredPercent(context);
+        Bundle volume = new Bundle();
+        volume.putInt("volume", percent >= 0 ? percent : VolumeMath.DEFAULT_PERCENT);
+        volume.putBoolean("locked", VolumePolicy.isLockedStored(context));
+        volume.putBoolean("isDefault", percent < 0);
+        result.putBundle("volume", volume);
+
+        ScreenTimeBudget budget = ScreenTimeModule.getBudgetStatic(context);
+        Bundle screenTime = new Bundle();
+        screenTime.putInt("limitMinutes", budget.limitSeconds / 60);
+        screenTime.putBoolean("locked", budget.enforcing);
+        screenTime.putBoolean("isDefault", !ScreenTimeModule.hasLimitStatic(context));
+        result.putBundle("screenTime", screenTime);
+    }
+
+    static void putBudget(Bundle bundle, ScreenTimeBudget budget) {
+        bundle.putInt("limitSeconds", budget.limitSeconds);
+        bundle.putBoolean("enforcing", budget.enforcing);
+        bundle.putLong("timerStartMs", budget.timerStartMs);
+        bundle.putLong("accumulatedMs", budget.accumulatedMs);
+        bundle.putInt("bonusSeconds", budget.bonusSeconds);
+    }
+
+    static ScreenTimeBudget getBudget(Bundle bundle) {
+        return new ScreenTimeBudget(
+            bundle.getInt("limitSeconds"),
+            bundle.getBoolean("enforcing"),
+            bundle.getLong("timerStartMs"),
+            bundle.getLong("accumulatedMs"),
+            bundle.getInt("bonusSeconds")
+        );
+    }
+
+    private static Bundle toLatencyBundle(LatencyHistogram histogram) {
+        Bundle bundle = new Bundle();
+        bundle.putDouble("count", histogram.getCount());
+        bundle.putDouble("p50Ms", histogram.getPercentileMicros(50) / 1000.0);
+        bundle.putDouble("p90Ms", histogram.getPercentileMicros(90) / 1000.0);
+        bundle.putDouble("p99Ms", histogram.getPercentileMicros(99) / 1000.0);
+        bundle.putDouble("maxMs", histogram.getMaxMicros() / 1000.0);
+        return bundle;
+    }
+
+    // ============ Not a data provider ============
+
+    @Nullable
+    @Override
+    public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
+                        @Nullable String[] selectionArgs, @Nullable String sortOrder) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public String getType(@NonNull Uri uri) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        return null;
+    }
+
+    @Override
+    public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
+        return 0;
+    }
+
+    @Override
+    public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection,
+                      @Nullable String[] selectionArgs) {
+        return 0;
+    }
+}
@@ -0,0 +1,181 @@
+package com.kidsguard;
+
+import android.app.AppOpsManager;
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Process;
+import android.util.Log;
+
+/**
+ * Detects foreground app changes from incremental UsageEvents queries.
+ *
+ * Each poll only asks for events since the last one it saw. The poll runs
+ * only while it is started, and the service starts it only while the screen
+ * is on and some app has a policy. The interval keeps detection-to-block
+ * latency under TARGET_BLOCK_LATENCY_MS.
+ */
+public class ForegroundAppMonitor {
+    private static final String TAG = "ForegroundAppMonitor";
+    private static final long POLL_INTERVAL_MS = 200;
+    private static final long LOOKBACK_MS = 10000; // Finds the current app when starting
+    public static final long TARGET_BLOCK_LATENCY_MS = 300;
+
+    /** Called on the handler thread when a different app comes to the foreground */
+    public interface Callback {
+        void onForegroundAppChanged(String packageName, long eventTimeMs);
+    }
+
+    // Block latency stats, read by ScreenTimeModule for the JS side
+    private static volatile long lastBlockLatencyMs = -1;
+    private static volatile long maxBlockLatencyMs = -1;
+    private static volatile int blockCount = 0;
+    private static volatile int slowBlockCount = 0;
+
+    private final Context context;
+    private final Handler handler;
+    private final Callback callback;
+    private final UsageStatsManager usageStatsManager;
+    // Reused for every event so polling does not allocate per event
+    private final UsageEvents.Event event = new UsageEvents.Event();
+
+    private boolean running = false;
+    private long lastEventTimeMs = 0;
+    private String foregroundPackage;
+
+    private final Runnable pollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (running) {
+                long cpuStartNs = Debug.threadCpuTimeNanos();
+                poll();
+                handler.postDelayed(this, POLL_INTERVAL_MS);
+                EnforcementStats.INSTANCE.recordWakeup(EnforcementStats.Source.APP_MONITOR_POLL,
+                    Debug.threadCpuTimeNanos() - cpuStartNs);
+            }
+        }
+    };
+
+    public ForegroundAppMonitor(Context context, Handler handler, Callback callback) {
+        this.context = context.getApplicationContext();
+        this.handler = handler;
+        this.callback = callback;
+        this.usageStatsManager = (UsageStatsManager) this.context.getSystemService(Context.USAGE_STATS_SERVICE);
+    }
+
+    public void start() {
+        if (running || usageStatsManager == null) {
+            return;
+        }
+        running = true;
+        lastEventTimeMs = Math.max(lastEventTimeMs, System.currentTimeMillis() - LOOKBACK_MS);
+        handler.post(pollRunnable);
+        Log.d(TAG, "Foreground app monitor started");
+    }
+
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        handler.removeCallbacks(pollRunnable);
+        Log.d(TAG, "Foreground app monitor stopped");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Last app seen in the foreground, or null if none seen yet
+     */
+    public String getForegroundPackage() {
+        return foregroundPackage;
+    }
+
+    private void poll() {
+        try {
+            long nowMs = System.currentTimeMillis();
+            UsageEvents events = usageStatsManager.queryEvents(lastEventTimeMs + 1, nowMs);
+            EnforcementStats.INSTANCE.recordBinderCalls(EnforcementStats.Source.APP_MONITOR_POLL, 1);
+            if (events == null) {
+                return;
+            }
+
+            String latestPackage = null;
+            long latestTimeMs = 0;
+            while (events.getNextEvent(event)) {
+                lastEventTimeMs = Math.max(lastEventTimeMs, event.getTimeStamp());
+                // MOVE_TO_FOREGROUND has the same value as ACTIVITY_RESUMED on API 29+
+                if (event.getEventType() == UsageEvents.Event.MOVE_TO_FOREGROUND) {
+                    latestPackage = event.getPackageName();
+                    latestTimeMs = event.getTimeStamp();
+                }
+            }
+
+            if (latestPackage != null && !latestPackage.equals(foregroundPackage)) {
+                // Interned like AppPolicyTable's keys, so its lookups hit on identity
+                foregroundPackage = latestPackage.intern();
+                callback.onForegroundAppChanged(foregroundPackage, latestTimeMs);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error polling usage events", e);
+        }
+    }
+
+    /**
+     * Record the time from the app coming to the foreground until its block was shown
+     */
+    public static void recordBlockLatency(long latencyMs) {
+        lastBlockLatencyMs = latencyMs;
+        maxBlockLatencyMs = Math.max(maxBlockLatencyMs, latencyMs);
+        blockCount++;
+        if (latencyMs > TARGET_BLOCK_LATENCY_MS) {
+            slowBlockCount++;
+            Log.w(TAG, "App block took " + latencyMs + "ms (target " + TARGET_BLOCK_LATENCY_MS + "ms)");
+        } else {
+            Log.d(TAG, "App blocked in " + latencyMs + "ms");
+        }
+    }
+
+    public static long getLastBlockLatencyMs() {
+        return lastBlockLatencyMs;
+    }
+
+    public static long getMaxBlockLatencyMs() {
+        return maxBlockLatencyMs;
+    }
+
+    public static int getBlockCount() {
+        return blockCount;
+    }
+
+    public static int getSlowBlockCount() {
+        return slowBlockCount;
+    }
+
+    /**
+     * Whether the user granted usage access (PACKAGE_USAGE_STATS)
+     */
+    public static boolean hasUsageAccess(Context context) {
+        try {
+            AppOpsManager appOps = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+            if (appOps == null) {
+                return false;
+            }
+            int mode;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                mode = appOps.unsafeCheckOpNoThrow(AppOpsManager.OPSTR_GET_USAGE_STATS, Process.myUid(), context.getPackageName());
+            } else {
+                mode = appOps.checkOpNoThrow(AppOpsManager.OPSTR_GET_USAGE_STATS, Process.myUid(), context.getPackageName());
+            }
+            return mode == AppOpsManager.MODE_ALLOWED;
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking usage access", e);
+            return false;
+        }
+    }
+}
@@ -2,19 +2,18 @@ package com.kidsguard;
 
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
 import android.graphics.PixelFormat;
 import android.graphics.Typeface;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
+import android.os.PowerManager;
 import android.provider.Settings;
-import android.text.InputType;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.Button;
-import android.widget.EditText;
 import android.widget.LinearLayout;
 import android.widget.ScrollView;
 import android.widget.TextView;
@@ -24,47 +23,250 @@ import android.widget.Toast;
  * Manages a system overlay that covers the entire screen.
  * This overlay cannot be dismissed by Home, Recent Apps, or Back buttons.
  * Only the correct parent PIN can remove it.
+ *
+ * The same overlay also blocks single apps. In that mode it is removed again
+ * once another app comes to the foreground, and the PIN allows the app until
+ * the child leaves it.
  */
 public class LockOverlayManager {
     private static final String TAG = "LockOverlayManager";
 
+    // Limit reached -> overlay added, check found a violation -> overlay added,
+    // and PIN tap -> overlay or lock activity removed
+    public static final LatencyHistogram LIMIT_LATENCY = new LatencyHistogram();
+    public static final LatencyHistogram LOCK_LATENCY = new LatencyHistogram();
+    public static final LatencyHistogram UNLOCK_LATENCY = new LatencyHistogram();
+
     private static LockOverlayManager instance;
     private WindowManager windowManager;
     private View overlayView;
-    private boolean isShowing = false;
+    // Written on the main thread, read by EnforcerProvider on binder threads
+    private volatile boolean isShowing = false;
     private Context context;
-
-    public static LockOverlayManager getInstance() {
+    // Device lock vs app block, the rule holding a device lock, and the app the
+    // parent allowed with the PIN
+    private final LockState lockState = new LockState();
+    // When the device lock ends by itself (0 = only the PIN ends it), and its live line
+    private long unlockTimeMs = 0;
+    private UnlockCountdown countdown;
+    // Parts of a device lock's view that follow the device lock rule
+    private TextView lockTitleText;
+    private TextView lockDetailText;
+    private Button extraTimeButton;
+
+    public static synchronized LockOverlayManager getInstance() {
         if (instance == null) {
             instance = new LockOverlayManager();
         }
         return instance;
     }
 
+    /**
+     * Drop the overlay and lock state, as when the process dies (simulation tests)
+     */
+    static synchronized void resetInstance() {
+        if (instance != null) {
+            instance.dismiss();
+            instance = null;
+        }
+    }
+
     public boolean isShowing() {
         return isShowing;
     }
 
+    /**
+     * When the device lock ends without the PIN (bedtime over, ...), or 0.
+     * Set by the enforcement service whenever its rules change.
+     */
+    public void setUnlockTimeMs(long unlockTimeMs) {
+        this.unlockTimeMs = unlockTimeMs;
+        if (countdown != null) {
+            countdown.setUnlockTimeMs(unlockTimeMs);
+        }
+    }
+
+    public long getUnlockTimeMs() {
+        return unlockTimeMs;
+    }
+
+    /**
+     * Which rule needs the device locked right now, or null. Set by the
+     * enforcement service on every rule change, before it shows a lock.
+     */
+    public void setDeviceLockRule(String ruleId) {
+        lockState.setDeviceLockRule(ruleId);
+        if (ruleId != null && isShowing) {
+            showLockRule(); // Bedtime may start while a budget lock is up
+        }
+    }
+
+    public String getDeviceLockRule() {
+        return lockState.getDeviceLockRule();
+    }
+
+    /**
+     * Whether some rule still needs the device locked. The lock activity
+     * fallback asks this before it closes itself.
+     */
+    public boolean isDeviceLockRequired() {
+        return lockState.getDeviceLockRule() != null;
+    }
+
+    /**
+     * Lock screen title for the rule holding the device lock. A lock shown before
+     * the service named a rule is the budget's.
+     */
+    static String getLockTitle(Context ctx, String rule) {
+        if (PolicyRules.SCHEDULE_ID.equals(rule)) {
+            return ctx.getString(R.string.screen_time_bedtime_title);
+        }
+        if (PolicyRules.SESSION_ID.equals(rule)) {
+            return ctx.getString(R.string.screen_time_session_title);
+        }
+        return ctx.getString(R.string.screen_time_title);
+    }
+
+    /**
+     * Text of the lock screen's info card for the rule holding the device lock
+     */
+    static String getLockDetail(Context ctx, String rule) {
+        try {
+            if (PolicyRules.SCHEDULE_ID.equals(rule)) {
+                return ctx.getString(R.string.screen_time_bedtime_reached);
+            }
+            if (PolicyRules.SESSION_ID.equals(rule)) {
+                return ctx.getString(R.string.screen_time_session_reached,
+                    formatSeconds(ScreenTimeModule.getMaxSessionMinutesStatic(ctx) * 60));
+            }
+            return ctx.getString(R.string.screen_time_limit_reached, formatSeconds(ScreenTimeModule.getLimitStatic(ctx)));
+        } catch (Exception e) {
+            return ctx.getString(R.string.screen_time_limit_reached_fallback);
+        }
+    }
+
+    /**
+     * Extra time only lifts a lock that the budget alone is holding
+     */
+    static boolean offersExtraTime(String rule) {
+        return rule == null || PolicyRules.BUDGET_ID.equals(rule);
+    }
+
+    /**
+     * Screen on/off from the enforcement service: the countdown only ticks while it can be seen
+     */
+    public void onScreenInteractive(boolean interactive) {
+        if (countdown == null) {
+            return;
+        }
+        if (interactive) {
+            countdown.start();
+        } else {
+            countdown.stop();
+        }
+    }
+
+    public LockState.Mode getMode() {
+        return lockState.getMode();
+    }
+
+    /**
+     * The overlay's root view while showing (overdraw tests)
+     */
+    View getOverlayView() {
+        return overlayView;
+    }
+
+    /**
+     * Package currently blocked by the overlay, or null for a device lock
+     */
+    public String getBlockedPackage() {
+        return isShowing ? lockState.getBlockedPackage() : null;
+    }
+
     public void showLockScreen(Context ctx) {
+        if (isShowing && lockState.getMode() == LockState.Mode.APP_BLOCKED) {
+            dismiss(); // A device lock replaces an app block
+        }
         if (isShowing) {
             Log.d(TAG, "Lock screen already showing");
             return;
         }
 
         this.context = ctx.getApplicationContext();
+        lockState.lockDevice();
 
         // Check overlay permission
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(context)) {
             Log.e(TAG, "SYSTEM_ALERT_WINDOW permission not granted, falling back to activity");
+            TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(), "lock activity fallback", "no overlay permission");
+            lockState.unlock();
             launchLockActivity(context);
             return;
         }
 
+        addOverlay();
+        if (isShowing) {
+            recordLimitLatency();
+        }
+    }
+
+    /**
+     * Block a single app. Returns false if nothing was shown (already showing,
+     * or the parent allowed this app for the current visit).
+     */
+    public boolean showAppBlockScreen(Context ctx, String packageName) {
+        if (isShowing || !lockState.blockApp(packageName)) {
+            return false;
+        }
+
+        this.context = ctx.getApplicationContext();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(context)) {
+            // The lock activity would unlock the whole timer, so just leave the app
+            Log.e(TAG, "SYSTEM_ALERT_WINDOW permission not granted, sending blocked app home");
+            TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(), "app sent home", packageName);
+            lockState.unlock();
+            goHome(context);
+            return true;
+        }
+
+        addOverlay();
+        return isShowing;
+    }
+
+    /**
+     * Time from the budget running out until the overlay was added. Locks for
+     * other reasons (bedtime, session) have no such time and are skipped.
+     */
+    private void recordLimitLatency() {
+        try {
+            ScreenTimeBudget budget = ScreenTimeModule.getBudgetStatic(context);
+            long nowMs = ScreenTimeModule.clock.currentTimeMillis();
+            long deadlineMs = budget.getDeadlineMs();
+            if (deadlineMs > 0 && budget.isExceeded(nowMs)) {
+                LIMIT_LATENCY.recordMicros((nowMs - deadlineMs) * 1000);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error recording lock latency", e);
+        }
+    }
+
+    /**
+     * Forget the PIN allowance once the child has left the allowed app
+     */
+    public void onForegroundAppChanged(String packageName) {
+        lockState.onForegroundAppChanged(packageName);
+    }
+
+    private void addOverlay() {
+
         try {
             windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
 
-            // Create overlay layout params - covers entire screen, stays on top of everything
-            // Use TRANSLUCENT instead of OPAQUE to allow soft keyboard to render properly
+            // Create overlay layout params - covers entire screen, stays on top of everything.
+            // OPAQUE: the lock can stay up for hours, and an opaque window is composited
+            // without blending in whatever is underneath. createLockView() fills every pixel.
             WindowManager.LayoutParams params = new WindowManager.LayoutParams(
                 WindowManager.LayoutParams.MATCH_PARENT,
                 WindowManager.LayoutParams.MATCH_PARENT,
@@ -74,21 +276,39 @@ public class LockOverlayManager {
                 WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN
                     | WindowManager.LayoutParams.FLAG_SHOW_WHEN_LOCKED
                     | WindowManager.LayoutParams.FLAG_TURN_SCREEN_ON,
-                PixelFormat.TRANSLUCENT
+                PixelFormat.OPAQUE
             );
             params.gravity = Gravity.TOP | Gravity.START;
-            // Required for keyboard input on Android 11+
-            params.softInputMode = WindowManager.LayoutParams.SOFT_INPUT_ADJUST_RESIZE;
 
             // Create the overlay view
             overlayView = createLockView();
 
             windowManager.addView(overlayView, params);
             isShowing = true;
+            if (countdown != null) {
+                PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+                onScreenInteractive(powerManager == null || powerManager.isInteractive());
+            }
+            TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(),
+                lockState.getMode() == LockState.Mode.APP_BLOCKED ? "app blocked" : "device locked",
+                lockState.getBlockedPackage());
+            ScreenTimeEvents.send(context, ScreenTimeEvents.TYPE_LOCKED, lockState.getBlockedPackage());
             Log.d(TAG, "Lock overlay shown");
         } catch (Exception e) {
-            Log.e(TAG, "Error showing lock overlay, falling back to activity", e);
-            launchLockActivity(context);
+            countdown = null;
+            lockTitleText = null;
+            lockDetailText = null;
+            extraTimeButton = null;
+            boolean appBlock = lockState.getMode() == LockState.Mode.APP_BLOCKED;
+            TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(), "overlay failed", lockState.getBlockedPackage());
+            lockState.unlock();
+            if (appBlock) {
+                Log.e(TAG, "Error showing app block overlay, sending blocked app home", e);
+                goHome(context);
+            } else {
+                Log.e(TAG, "Error showing lock overlay, falling back to activity", e);
+                launchLockActivity(context);
+            }
         }
     }
 
@@ -98,9 +318,19 @@ public class LockOverlayManager {
         }
 
         try {
+            if (countdown != null) {
+                countdown.stop();
+                countdown = null;
+            }
             windowManager.removeView(overlayView);
             overlayView = null;
+            lockTitleText = null;
+            lockDetailText = null;
+            extraTimeButton = null;
             isShowing = false;
+            lockState.unlock();
+            TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(), "overlay dismissed", null);
+            ScreenTimeEvents.send(context, ScreenTimeEvents.TYPE_UNLOCKED, null);
             Log.d(TAG, "Lock overlay dismissed");
         } catch (Exception e) {
             Log.e(TAG, "Error dismissing lock overlay", e);
@@ -110,15 +340,41 @@ public class LockOverlayManager {
     private void launchLockActivity(Context ctx) {
         try {
             Intent intent = new Intent(ctx, ScreenTimeLockActivity.class);
-            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+            // SINGLE_TOP: the service's backstop check relaunches a lock that may still be up
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP
+                | Intent.FLAG_ACTIVITY_SINGLE_TOP);
             ctx.startActivity(intent);
+            ScreenTimeEvents.send(ctx, ScreenTimeEvents.TYPE_LOCKED, null);
         } catch (Exception e) {
             Log.e(TAG, "Error launching lock activity fallback", e);
         }
     }
 
+    private void goHome(Context ctx) {
+        try {
+            Intent intent = new Intent(Intent.ACTION_MAIN);
+            intent.addCategory(Intent.CATEGORY_HOME);
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            ctx.startActivity(intent);
+        } catch (Exception e) {
+            Log.e(TAG, "Error sending blocked app home", e);
+        }
+    }
+
+    private String getAppLabel(String packageName) {
+        try {
+            PackageManager pm = context.getPackageManager();
+            return pm.getApplicationLabel(pm.getApplicationInfo(packageName, 0)).toString();
+        } catch (Exception e) {
+            return packageName;
+        }
+    }
+
     private View createLockView() {
-        // Main scrollable container
+        final String appPackage = lockState.getBlockedPackage();
+
+        // Main scrollable container, and the only full-screen background: cards and
+        // buttons are the sole layers drawn over it
         ScrollView scrollView = new ScrollView(context);
         scrollView.setBackgroundColor(0xFF0F172A);
         scrollView.setFillViewport(true);
@@ -140,7 +396,7 @@ public class LockOverlayManager {
 
         // Title
         TextView titleText = new TextView(context);
-        titleText.setText("Screen Time Limit");
+        titleText.setText("App Blocked"); // Device locks: see showLockRule()
         titleText.setTextSize(28);
         titleText.setTextColor(0xFFFFFFFF);
         titleText.setGravity(Gravity.CENTER);
@@ -150,78 +406,67 @@ public class LockOverlayManager {
 
         // Subtitle
         TextView subtitleText = new TextView(context);
-        subtitleText.setText("Time's up!");
+        subtitleText.setText(appPackage != null ? getAppLabel(appPackage) : "Time's up!");
         subtitleText.setTextSize(18);
         subtitleText.setTextColor(0xFFCBD5E1);
         subtitleText.setGravity(Gravity.CENTER);
         subtitleText.setPadding(0, 0, 0, dpToPx(32));
         contentLayout.addView(subtitleText);
 
-        // Usage info card
-        LinearLayout usageCard = new LinearLayout(context);
-        usageCard.setOrientation(LinearLayout.VERTICAL);
-        usageCard.setPadding(dpToPx(24), dpToPx(20), dpToPx(24), dpToPx(20));
+        // Live countdown to when the device lock ends by itself
+        countdown = null;
+        if (appPackage == null) {
+            TextView countdownText = new TextView(context);
+            countdownText.setTextSize(16);
+            countdownText.setTextColor(0xFFE2E8F0);
+            countdownText.setGravity(Gravity.CENTER);
+            countdownText.setPadding(0, 0, 0, dpToPx(24));
+            contentLayout.addView(countdownText);
+            countdown = new UnlockCountdown(countdownText);
+            countdown.setUnlockTimeMs(unlockTimeMs);
+        }
+
+        // Usage info card: the text view carries the card background itself
+        TextView usageText = new TextView(context);
+        usageText.setText("This app is blocked by your parent");
+        usageText.setTextSize(16);
+        usageText.setTextColor(0xFFE2E8F0);
+        usageText.setGravity(Gravity.CENTER);
+        usageText.setLineSpacing(dpToPx(4), 1.0f);
+        usageText.setPadding(dpToPx(24), dpToPx(20), dpToPx(24), dpToPx(20));
         LinearLayout.LayoutParams usageCardParams = new LinearLayout.LayoutParams(
             LinearLayout.LayoutParams.MATCH_PARENT,
             LinearLayout.LayoutParams.WRAP_CONTENT
         );
         usageCardParams.setMargins(0, 0, 0, dpToPx(32));
-        usageCard.setLayoutParams(usageCardParams);
+        usageText.setLayoutParams(usageCardParams);
 
         GradientDrawable usageCardBg = new GradientDrawable();
         usageCardBg.setColor(0xFF1E293B);
         usageCardBg.setCornerRadius(dpToPx(12));
-        usageCard.setBackground(usageCardBg);
-
-        // Usage text
-        TextView usageText = new TextView(context);
-        try {
-            int limitSeconds = ScreenTimeModule.getLimitStatic(context);
-            String limitFormatted = formatSeconds(limitSeconds);
-            usageText.setText("Time limit reached\nAllowed time: " + limitFormatted);
-        } catch (Exception e) {
-            usageText.setText("Screen time limit reached");
-        }
-        usageText.setTextSize(16);
-        usageText.setTextColor(0xFFE2E8F0);
-        usageText.setGravity(Gravity.CENTER);
-        usageText.setLineSpacing(dpToPx(4), 1.0f);
-        usageCard.addView(usageText);
-
-        contentLayout.addView(usageCard);
+        usageText.setBackground(usageCardBg);
+        contentLayout.addView(usageText);
 
         // Instruction
         TextView instructionText = new TextView(context);
-        instructionText.setText("Enter parent PIN to unlock");
+        instructionText.setText(appPackage != null
+            ? "Press Home to leave, or enter parent PIN to allow"
+            : "Enter parent PIN to unlock");
         instructionText.setTextSize(14);
         instructionText.setTextColor(0xFF94A3B8);
         instructionText.setGravity(Gravity.CENTER);
         instructionText.setPadding(0, 0, 0, dpToPx(12));
         contentLayout.addView(instructionText);
 
-        // PIN input
-        final EditText pinInput = new EditText(context);
-        pinInput.setHint("\u2022\u2022\u2022\u2022");
-        pinInput.setHintTextColor(0xFF64748B);
-        pinInput.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_VARIATION_PASSWORD);
-        pinInput.setTextSize(24);
-        pinInput.setTextColor(0xFF1E293B);
-        pinInput.setGravity(Gravity.CENTER);
-        int pinPad = dpToPx(16);
-        pinInput.setPadding(dpToPx(24), pinPad, dpToPx(24), pinPad);
-
-        GradientDrawable pinBg = new GradientDrawable();
-        pinBg.setColor(0xFFF1F5F9);
-        pinBg.setCornerRadius(dpToPx(12));
-        pinInput.setBackground(pinBg);
-
+        // PIN keypad, drawn in-place so unlocking never brings up the IME
+        final PinPadView pinPad = new PinPadView(context);
         LinearLayout.LayoutParams pinParams = new LinearLayout.LayoutParams(
             LinearLayout.LayoutParams.MATCH_PARENT,
             LinearLayout.LayoutParams.WRAP_CONTENT
         );
         pinParams.setMargins(0, 0, 0, dpToPx(16));
-        pinInput.setLayoutParams(pinParams);
-        contentLayout.addView(pinInput);
+        pinPad.setLayoutParams(pinParams);
+        contentLayout.addView(pinPad);
 
         // Error text (hidden initially)
         final TextView errorText = new TextView(context);
@@ -251,28 +496,29 @@ public class LockOverlayManager {
         unlockButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                String entered = pinInput.getText().toString();
-                if (entered.isEmpty()) {
+                long tapNs = System.nanoTime();
+                if (pinPad.isEmpty()) {
                     Toast.makeText(context, "Please enter PIN", Toast.LENGTH_SHORT).show();
                     return;
                 }
 
-                boolean isValid = PINStorageHelper.verifyPIN(context, entered);
-                if (isValid) {
-                    // Stop enforcement so the timer doesn't re-lock
-                    try {
-                        SharedPreferences prefs = context.getSharedPreferences("screen_time_prefs", Context.MODE_PRIVATE);
-                        prefs.edit()
-                            .putBoolean("enforcing", false)
-                            .putLong("timer_start_ms", 0)
-                            .apply();
-                    } catch (Exception ex) {
-                        Log.e(TAG, "Error stopping enforcement on unlock", ex);
+                PinAttempts.Outcome outcome = PINStorageHelper.attemptPIN(context, pinPad.getPin());
+                if (outcome == PinAttempts.Outcome.ACCEPTED) {
+                    LockState.PinAction action = acceptPin(context);
+                    boolean ruleOverride = action == LockState.PinAction.SUPPRESS_RULE
+                        || action == LockState.PinAction.RESTART_SESSION;
+                    if (ruleOverride && isDeviceLockRequired()) {
+                        // Another rule (the budget behind bedtime) may still hold the lock
+                        pinPad.clear();
+                        showLockRule();
+                        return;
                     }
                     dismiss();
+                    if (!isShowing) {
+                        UNLOCK_LATENCY.recordMicros((System.nanoTime() - tapNs) / 1000);
+                    }
                 } else {
-                    errorText.setVisibility(View.VISIBLE);
-                    pinInput.setText("");
+                    showPinError(errorText, pinPad, outcome);
                 }
             }
         });
@@ -281,19 +527,133 @@ public class LockOverlayManager {
             LinearLayout.LayoutParams.MATCH_PARENT,
             LinearLayout.LayoutParams.WRAP_CONTENT
         );
+        unlockParams.setMargins(0, 0, 0, dpToPx(12));
         unlockButton.setLayoutParams(unlockParams);
         contentLayout.addView(unlockButton);
 
+        lockTitleText = null;
+        lockDetailText = null;
+        extraTimeButton = null;
+        if (appPackage != null) {
+            scrollView.addView(contentLayout);
+            return scrollView;
+        }
+
+        // Extra time button: grants more minutes but keeps enforcing
+        Button extraTimeButton = new Button(context);
+        extraTimeButton.setText("+" + (ScreenTimeModule.DEFAULT_EXTRA_TIME_SECONDS / 60) + " MIN");
+        extraTimeButton.setTextSize(16);
+        extraTimeButton.setTextColor(0xFFFFFFFF);
+        extraTimeButton.setTypeface(null, Typeface.BOLD);
+        extraTimeButton.setAllCaps(false);
+        extraTimeButton.setPadding(dpToPx(40), btnPad, dpToPx(40), btnPad);
+
+        GradientDrawable extraTimeBg = new GradientDrawable();
+        extraTimeBg.setColor(0xFF334155);
+        extraTimeBg.setCornerRadius(dpToPx(12));
+        extraTimeButton.setBackground(extraTimeBg);
+
+        extraTimeButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                long tapNs = System.nanoTime();
+                if (pinPad.isEmpty()) {
+                    Toast.makeText(context, "Please enter PIN", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+
+                PinAttempts.Outcome outcome = PINStorageHelper.attemptPIN(context, pinPad.getPin());
+                if (outcome == PinAttempts.Outcome.ACCEPTED) {
+                    // Enforcement stays on. Saving the grant re-evaluates the budget in the
+                    // service right away; another rule (bedtime) may still hold the lock.
+                    ScreenTimeModule.grantExtraTimeStatic(context, ScreenTimeModule.DEFAULT_EXTRA_TIME_SECONDS);
+                    if (isDeviceLockRequired()) {
+                        pinPad.clear();
+                        showLockRule();
+                        return;
+                    }
+                    dismiss();
+                    if (!isShowing) {
+                        UNLOCK_LATENCY.recordMicros((System.nanoTime() - tapNs) / 1000);
+                    }
+                } else {
+                    showPinError(errorText, pinPad, outcome);
+                }
+            }
+        });
+
+        LinearLayout.LayoutParams extraTimeParams = new LinearLayout.LayoutParams(
+            LinearLayout.LayoutParams.MATCH_PARENT,
+            LinearLayout.LayoutParams.WRAP_CONTENT
+        );
+        extraTimeButton.setLayoutParams(extraTimeParams);
+        contentLayout.addView(extraTimeButton);
+
+        lockTitleText = titleText;
+        lockDetailText = usageText;
+        this.extraTimeButton = extraTimeButton;
+        showLockRule();
+
         scrollView.addView(contentLayout);
         return scrollView;
     }
 
+    /**
+     * Correct PIN on a lock screen, this overlay or the lock activity: do what
+     * LockState says for the rule holding the lock. Only a budget lock stops
+     * enforcing; bedtime and session overrides go to the enforcement service,
+     * which keeps the lock while another rule still needs it.
+     */
+    public LockState.PinAction acceptPin(Context ctx) {
+        String rule = lockState.getDeviceLockRule();
+        LockState.PinAction action = lockState.onPinAccepted();
+        try {
+            if (action == LockState.PinAction.STOP_ENFORCING) {
+                ScreenTimeModule.stopEnforcingStatic(ctx);
+            } else if (action != LockState.PinAction.ALLOW_APP) {
+                ScreenTimeModule.overrideRuleStatic(ctx, rule);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error applying PIN unlock", e);
+        }
+        return action;
+    }
+
+    /**
+     * Title, card text and "+N MIN" button for the rule holding the device lock
+     */
+    private void showLockRule() {
+        if (lockTitleText == null) {
+            return; // App block, or nothing showing
+        }
+        String rule = lockState.getDeviceLockRule();
+        lockTitleText.setText(getLockTitle(context, rule));
+        lockDetailText.setText(getLockDetail(context, rule));
+        extraTimeButton.setVisibility(offersExtraTime(rule) ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Wrong PIN, or a lockout from too many of them (shared with every unlock path)
+     */
+    private void showPinError(TextView errorText, PinPadView pinPad, PinAttempts.Outcome outcome) {
+        TransitionLog.INSTANCE.record(ScreenTimeModule.clock.currentTimeMillis(),
+            outcome == PinAttempts.Outcome.REFUSED ? "pin refused" : "wrong pin", null);
+        if (outcome == PinAttempts.Outcome.REJECTED) {
+            errorText.setText("Incorrect PIN");
+        } else {
+            long remainingMs = PINStorageHelper.getLockoutRemainingMs(context);
+            errorText.setText(context.getString(R.string.screen_time_locked_out, (int) ((remainingMs + 999) / 1000)));
+        }
+        errorText.setVisibility(View.VISIBLE);
+        pinPad.clear();
+    }
+
     private int dpToPx(int dp) {
         float density = context.getResources().getDisplayMetrics().density;
         return Math.round(dp * density);
     }
 
-    private String formatSeconds(int seconds) {
+    private static String formatSeconds(int seconds) {
         int hours = seconds / 3600;
         int minutes = (seconds % 3600) / 60;
         if (hours > 0) {
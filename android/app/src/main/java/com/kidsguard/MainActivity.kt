@@ -1,8 +1,6 @@
 package com.kidsguard
 
 import android.os.Bundle
-import android.os.Handler
-import android.os.Looper
 import com.facebook.react.ReactActivity
 import com.facebook.react.ReactActivityDelegate
 import com.facebook.react.defaults.DefaultNewArchitectureEntryPoint.fabricEnabled
@@ -24,32 +22,14 @@ class MainActivity : ReactActivity() {
       DefaultReactActivityDelegate(this, mainComponentName, fabricEnabled)
 
   /**
-   * Force layout refresh when resuming from background to fix blank screen issue.
-   * This is needed because when Android recreates the JS context after being in background,
-   * the native view hierarchy may not properly render until user interaction.
+   * Times the frames after a resume and resends the React root's size to JS only if it came back
+   * blank; see [ResumeFrameWatcher]. The ad SDK waits for the first content frame; see
+   * [AdInitScheduler].
    */
   override fun onResume() {
     super.onResume()
-
-    // Schedule multiple layout refreshes to ensure the view is properly rendered
-    val decorView = window.decorView
-    val handler = Handler(Looper.getMainLooper())
-
-    // Immediate refresh
-    decorView.post {
-      decorView.requestLayout()
-      decorView.invalidate()
-    }
-
-    // Delayed refresh to catch any late rendering issues
-    handler.postDelayed({
-      decorView.requestLayout()
-      decorView.invalidate()
-    }, 100)
-
-    handler.postDelayed({
-      decorView.requestLayout()
-      decorView.invalidate()
-    }, 300)
+    StartupTrace.watchFirstFrame(window.decorView)
+    ResumeFrameWatcher.onResume(this)
+    AdInitScheduler.watch(this)
   }
 }
@@ -1,6 +1,7 @@
 package com.kidsguard
 
 import android.app.Application
+import android.os.Trace
 import com.facebook.react.PackageList
 import com.facebook.react.ReactApplication
 import com.facebook.react.ReactHost
@@ -14,7 +15,8 @@ import com.facebook.soloader.SoLoader
 
 class MainApplication : Application(), ReactApplication {
 
-  override val reactNativeHost: ReactNativeHost =
+  // Built on first use, so a process started only for EnforcementService never creates it
+  private val defaultReactNativeHost: ReactNativeHost by lazy {
       object : DefaultReactNativeHost(this) {
         override fun getPackages(): List<ReactPackage> =
             PackageList(this).packages.apply {
@@ -30,17 +32,44 @@ class MainApplication : Application(), ReactApplication {
         override val isNewArchEnabled: Boolean = BuildConfig.IS_NEW_ARCHITECTURE_ENABLED
         override val isHermesEnabled: Boolean = BuildConfig.IS_HERMES_ENABLED
       }
+  }
+
+  private var reactNativeStarted = false
+
+  /**
+   * React Native starts when something first asks for the host, which is the
+   * ReactActivity delegate. Sticky restarts of EnforcementService skip it.
+   */
+  override val reactNativeHost: ReactNativeHost
+    get() {
+      startReactNative()
+      return defaultReactNativeHost
+    }
 
   override val reactHost: ReactHost
     get() = getDefaultReactHost(this.applicationContext, reactNativeHost)
 
   override fun onCreate() {
+    StartupTrace.markAppStart()
     super.onCreate()
-    SoLoader.init(this, false)
-    if (BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
-      // If you opted-in for the New Architecture, we load the native entry point for this app.
-      load()
+  }
+
+  private fun startReactNative() {
+    if (reactNativeStarted) {
+      return
+    }
+    reactNativeStarted = true
+    StartupTrace.markReactStart()
+    Trace.beginSection("KidsGuard:startReactNative")
+    try {
+      SoLoader.init(this, false)
+      if (BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
+        // If you opted-in for the New Architecture, we load the native entry point for this app.
+        load()
+      }
+      ReactNativeFlipper.initializeFlipper(this, defaultReactNativeHost.reactInstanceManager)
+    } finally {
+      Trace.endSection()
     }
-    ReactNativeFlipper.initializeFlipper(this, reactNativeHost.reactInstanceManager)
   }
 }
@@ -2,16 +2,28 @@ package com.kidsguard;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.SystemClock;
 import android.util.Log;
 
 /**
  * Helper class for storing and verifying PIN
- * Uses SharedPreferences for easy access from both JS and native code
+ * Uses SharedPreferences for easy access from both JS and native code.
+ * Every unlock path (overlay, lock activity, JS through EnforcerProvider)
+ * verifies here, so they share one failed-attempt count and lockout
+ * (PinAttempts), kept in memory and persisted as a single long. Lockouts
+ * run on elapsed realtime, so setting the clock does not affect them.
  */
 public class PINStorageHelper {
     private static final String TAG = "PINStorageHelper";
     private static final String PREFS_NAME = "kids_guard_pin";
     private static final String KEY_PIN = "parent_pin";
+    private static final String KEY_ATTEMPTS = "attempts";
+
+    // Loaded from prefs on first use in the process; guarded by the class lock
+    private static PinAttempts attempts;
+
+    // Prefs read plus comparison, for every unlock path
+    public static final LatencyHistogram VERIFY_LATENCY = new LatencyHistogram();
 
     /**
      * Save PIN to SharedPreferences
@@ -19,7 +31,15 @@ public class PINStorageHelper {
     public static void savePIN(Context context, String pin) {
         try {
             SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit().putString(KEY_PIN, pin).apply();
+            // A new PIN starts with a clean slate; re-saving the same one (the
+            // JS migration does on every start) must not clear a lockout
+            synchronized (PINStorageHelper.class) {
+                if (pin != null && pin.equals(prefs.getString(KEY_PIN, null))) {
+                    return;
+                }
+                attempts = new PinAttempts();
+                prefs.edit().putString(KEY_PIN, pin).remove(KEY_ATTEMPTS).apply();
+            }
             Log.d(TAG, "PIN saved successfully");
         } catch (Exception e) {
             Log.e(TAG, "Error saving PIN", e);
@@ -30,22 +50,69 @@ public class PINStorageHelper {
      * Verify PIN
      */
     public static boolean verifyPIN(Context context, String enteredPin) {
+        return attemptPIN(context, enteredPin) == PinAttempts.Outcome.ACCEPTED;
+    }
+
+    /**
+     * Verify PIN and count the attempt. While locked out the PIN is not
+     * checked and the result is REFUSED.
+     */
+    public static synchronized PinAttempts.Outcome attemptPIN(Context context, String enteredPin) {
+        long startNs = System.nanoTime();
         try {
             SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            String storedPin = prefs.getString(KEY_PIN, null);
+            long nowMs = SystemClock.elapsedRealtime();
+            PinAttempts state = getAttempts(prefs, nowMs);
+            if (!state.mayAttempt(nowMs)) {
+                Log.w(TAG, "PIN refused, locked out for " + state.getLockoutRemainingMs(nowMs) + "ms");
+                return PinAttempts.Outcome.REFUSED;
+            }
 
+            String storedPin = prefs.getString(KEY_PIN, null);
             if (storedPin == null) {
                 Log.w(TAG, "No PIN stored");
-                return false;
+                return PinAttempts.Outcome.REJECTED;
             }
 
-            boolean isValid = storedPin.equals(enteredPin);
-            Log.d(TAG, "PIN verification: " + (isValid ? "SUCCESS" : "FAILED"));
-            return isValid;
+            boolean isValid = PinCheck.matches(storedPin, enteredPin);
+            int failuresBefore = state.getFailures();
+            PinAttempts.Outcome outcome = state.record(isValid, nowMs);
+            if (!isValid || failuresBefore > 0) {
+                prefs.edit().putLong(KEY_ATTEMPTS, state.toRecord()).apply();
+            }
+            Log.d(TAG, "PIN verification: " + outcome);
+            return outcome;
         } catch (Exception e) {
             Log.e(TAG, "Error verifying PIN", e);
-            return false;
+            return PinAttempts.Outcome.REJECTED;
+        } finally {
+            VERIFY_LATENCY.recordMicros((System.nanoTime() - startNs) / 1000);
+        }
+    }
+
+    /**
+     * Time before the next attempt is allowed, 0 if not locked out
+     */
+    public static synchronized long getLockoutRemainingMs(Context context) {
+        try {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            long nowMs = SystemClock.elapsedRealtime();
+            return getAttempts(prefs, nowMs).getLockoutRemainingMs(nowMs);
+        } catch (Exception e) {
+            Log.e(TAG, "Error reading PIN lockout", e);
+            return 0;
+        }
+    }
+
+    private static PinAttempts getAttempts(SharedPreferences prefs, long nowMs) {
+        if (attempts == null) {
+            attempts = PinAttempts.fromRecord(prefs.getLong(KEY_ATTEMPTS, 0));
+            // A lockout from before a reboot restarts now, once
+            if (attempts.restartIfRebooted(nowMs)) {
+                prefs.edit().putLong(KEY_ATTEMPTS, attempts.toRecord()).apply();
+            }
         }
+        return attempts;
     }
 
     /**
@@ -1,15 +1,19 @@
 package com.kidsguard;
 
+import android.os.Bundle;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
 
 public class PINStorageModule extends ReactContextBaseJavaModule {
+    public static final String NAME = "PINStorageModule";
     private static final String TAG = "PINStorageModule";
     private final ReactApplicationContext reactContext;
 
@@ -21,13 +25,14 @@ public class PINStorageModule extends ReactContextBaseJavaModule {
     @NonNull
     @Override
     public String getName() {
-        return "PINStorageModule";
+        return NAME;
     }
 
     @ReactMethod
     public void savePIN(String pin, Promise promise) {
         try {
-            PINStorageHelper.savePIN(reactContext, pin);
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_SAVE_PIN,
+                EnforcerClient.withString(EnforcerProvider.EXTRA_PIN, pin));
             Log.d(TAG, "PIN cached for native access");
             promise.resolve(true);
         } catch (Exception e) {
@@ -36,11 +41,20 @@ public class PINStorageModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Counts toward the same lockout as the native lock screens. Resolves
+     * { valid, outcome, lockoutSeconds }, outcome being a PinAttempts.Outcome name.
+     */
     @ReactMethod
     public void verifyPIN(String pin, Promise promise) {
         try {
-            boolean isValid = PINStorageHelper.verifyPIN(reactContext, pin);
-            promise.resolve(isValid);
+            Bundle result = EnforcerClient.call(reactContext, EnforcerProvider.METHOD_VERIFY_PIN,
+                EnforcerClient.withString(EnforcerProvider.EXTRA_PIN, pin));
+            WritableMap map = Arguments.createMap();
+            map.putBoolean("valid", result.getBoolean(EnforcerProvider.EXTRA_RESULT));
+            map.putString("outcome", result.getString(EnforcerProvider.EXTRA_OUTCOME));
+            map.putInt("lockoutSeconds", (int) ((result.getLong(EnforcerProvider.EXTRA_LOCKOUT_MS) + 999) / 1000));
+            promise.resolve(map);
         } catch (Exception e) {
             Log.e(TAG, "Error verifying PIN", e);
             promise.reject("ERROR", "Failed to verify PIN: " + e.getMessage());
@@ -19,6 +19,7 @@ import com.facebook.react.modules.core.PermissionAwareActivity;
 import androidx.annotation.NonNull;
 
 public class PermissionsModule extends ReactContextBaseJavaModule implements PermissionListener {
+    public static final String NAME = "PermissionsModule";
     private static final String TAG = "PermissionsModule";
     private static final int REQUEST_POST_NOTIFICATIONS = 1001;
     private final ReactApplicationContext reactContext;
@@ -32,7 +33,7 @@ public class PermissionsModule extends ReactContextBaseJavaModule implements Per
     @NonNull
     @Override
     public String getName() {
-        return "PermissionsModule";
+        return NAME;
     }
 
     @ReactMethod
@@ -0,0 +1,201 @@
+package com.kidsguard;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.view.HapticFeedbackConstants;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.util.Arrays;
+
+/**
+ * PIN entry for the lock screens, drawn by this one view: a row of dots for
+ * the digits entered so far above a 4x3 keypad (1-9, delete, 0). Nothing
+ * here takes focus or talks to the IME, so showing the lock never starts
+ * the soft keyboard or resizes the window around it.
+ *
+ * Touch handling and onDraw allocate nothing; the digits live in a fixed
+ * buffer that clear() wipes.
+ */
+public class PinPadView extends View {
+    public static final int MAX_DIGITS = 8;
+
+    // Key touched -> keypad redrawn with it, i.e. the cost of one typed digit
+    public static final LatencyHistogram KEY_DRAW_LATENCY = new LatencyHistogram();
+
+    private static final String[] LABELS = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "\u232B", "0", ""};
+    private static final int DELETE_KEY = 9;
+    private static final int COLUMNS = 3;
+    private static final int ROWS = 4;
+    // Empty dots shown before anything is typed
+    private static final int MIN_DOTS = 4;
+
+    private final char[] digits = new char[MAX_DIGITS];
+    private int length = 0;
+    private int pressedKey = -1;
+    private long touchNs = 0;
+
+    private final Paint keyPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint pressedKeyPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint dotPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint emptyDotPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF keyRect = new RectF();
+
+    private final float gap;
+    private final float keyHeight;
+    private final float dotsHeight;
+    private final float dotRadius;
+    private final float cornerRadius;
+    private float keyWidth;
+
+    public PinPadView(Context context) {
+        super(context);
+        float density = context.getResources().getDisplayMetrics().density;
+        gap = 12 * density;
+        keyHeight = 60 * density;
+        dotsHeight = 48 * density;
+        dotRadius = 7 * density;
+        cornerRadius = 12 * density;
+
+        keyPaint.setColor(0xFF1E293B);
+        pressedKeyPaint.setColor(0xFF334155);
+        labelPaint.setColor(0xFFFFFFFF);
+        labelPaint.setTextSize(26 * density);
+        labelPaint.setTextAlign(Paint.Align.CENTER);
+        dotPaint.setColor(0xFFFFFFFF);
+        emptyDotPaint.setColor(0xFF64748B);
+        emptyDotPaint.setStyle(Paint.Style.STROKE);
+        emptyDotPaint.setStrokeWidth(2 * density);
+
+        setHapticFeedbackEnabled(true);
+        setContentDescription("PIN keypad");
+    }
+
+    /** The digits entered so far */
+    public String getPin() {
+        return new String(digits, 0, length);
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /** Drop the entered digits, e.g. after a wrong PIN */
+    public void clear() {
+        Arrays.fill(digits, '\0');
+        length = 0;
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = (int) Math.ceil(dotsHeight + gap + ROWS * keyHeight + (ROWS - 1) * gap);
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        keyWidth = (w - getPaddingLeft() - getPaddingRight() - (COLUMNS - 1) * gap) / COLUMNS;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        float contentWidth = COLUMNS * keyWidth + (COLUMNS - 1) * gap;
+
+        // Dots row
+        int dots = Math.max(MIN_DOTS, length);
+        float dotSpacing = dotRadius * 4;
+        float firstDotX = left + (contentWidth - (dots - 1) * dotSpacing) / 2;
+        float dotY = top + dotsHeight / 2;
+        for (int i = 0; i < dots; i++) {
+            canvas.drawCircle(firstDotX + i * dotSpacing, dotY, dotRadius, i < length ? dotPaint : emptyDotPaint);
+        }
+
+        // Keys
+        float labelOffset = -(labelPaint.ascent() + labelPaint.descent()) / 2;
+        for (int key = 0; key < LABELS.length; key++) {
+            if (LABELS[key].isEmpty()) {
+                continue;
+            }
+            setKeyRect(key);
+            canvas.drawRoundRect(keyRect, cornerRadius, cornerRadius, key == pressedKey ? pressedKeyPaint : keyPaint);
+            canvas.drawText(LABELS[key], keyRect.centerX(), keyRect.centerY() + labelOffset, labelPaint);
+        }
+
+        if (touchNs != 0) {
+            KEY_DRAW_LATENCY.recordMicros((System.nanoTime() - touchNs) / 1000);
+            touchNs = 0;
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN: {
+                int key = keyAt(event.getX(), event.getY());
+                if (key < 0) {
+                    return false;
+                }
+                pressedKey = key;
+                touchNs = System.nanoTime();
+                invalidate();
+                return true;
+            }
+            case MotionEvent.ACTION_UP: {
+                int key = pressedKey;
+                pressedKey = -1;
+                if (key >= 0 && key == keyAt(event.getX(), event.getY())) {
+                    press(key);
+                    performHapticFeedback(HapticFeedbackConstants.KEYBOARD_TAP);
+                }
+                touchNs = System.nanoTime();
+                invalidate();
+                return true;
+            }
+            case MotionEvent.ACTION_CANCEL:
+                pressedKey = -1;
+                invalidate();
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    private void press(int key) {
+        if (key == DELETE_KEY) {
+            if (length > 0) {
+                digits[--length] = '\0';
+            }
+        } else if (length < MAX_DIGITS) {
+            digits[length++] = LABELS[key].charAt(0);
+        }
+    }
+
+    /** Key under (x, y), or -1 off the grid; a gap counts towards the key before it */
+    private int keyAt(float x, float y) {
+        float gridX = x - getPaddingLeft();
+        float gridY = y - getPaddingTop() - dotsHeight - gap;
+        if (gridX < 0 || gridY < 0 || keyWidth <= 0) {
+            return -1;
+        }
+        int column = (int) (gridX / (keyWidth + gap));
+        int row = (int) (gridY / (keyHeight + gap));
+        if (column >= COLUMNS || row >= ROWS) {
+            return -1;
+        }
+        int key = row * COLUMNS + column;
+        return LABELS[key].isEmpty() ? -1 : key;
+    }
+
+    private void setKeyRect(int key) {
+        float left = getPaddingLeft() + (key % COLUMNS) * (keyWidth + gap);
+        float top = getPaddingTop() + dotsHeight + gap + (key / COLUMNS) * (keyHeight + gap);
+        keyRect.set(left, top, left + keyWidth, top + keyHeight);
+    }
+}
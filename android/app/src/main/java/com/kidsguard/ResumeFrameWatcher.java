@@ -0,0 +1,192 @@
+package com.kidsguard;
+
+import android.app.Activity;
+import android.graphics.Point;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.View.MeasureSpec;
+import android.view.ViewGroup;
+import android.view.Window;
+
+import com.facebook.react.ReactInstanceManager;
+import com.facebook.react.ReactRootView;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.UIManager;
+import com.facebook.react.uimanager.RootViewUtil;
+import com.facebook.react.uimanager.UIManagerHelper;
+
+/**
+ * Frame timing for the first second after MainActivity resumes, and the
+ * fix for the blank screen that used to follow some resumes.
+ *
+ * The blank screen happens when React renders against a root view of size
+ * 0x0. That is the case when the root was measured before its recreated
+ * React instance attached, so JS never received the real size. The views
+ * then exist but all have zero size. Instead of re-laying out the whole
+ * window three times on every resume, the React root is checked every
+ * EMPTY_CHECK_INTERVAL_MS for EMPTY_CHECKS checks, until it has drawn
+ * something, and only a root whose rendered tree is empty gets its size
+ * sent to JS again. That goes straight to the UIManager: requestLayout
+ * would not do, since ReactRootView only passes its size on from onMeasure
+ * when the measure specs changed, and for this root they have not.
+ *
+ * Shows up in logcat under "ResumeFrames" with the frame count, janky
+ * frames and percentiles of total frame time, and with any size resends.
+ */
+public final class ResumeFrameWatcher {
+    private static final String TAG = "ResumeFrames";
+    // Frames drawn this long after a resume are timed
+    private static final long WATCH_MS = 1000;
+    // The React root is checked this often after a resume, at most EMPTY_CHECKS times
+    private static final long EMPTY_CHECK_INTERVAL_MS = 250;
+    private static final int EMPTY_CHECKS = 8;
+    private static final long FRAME_BUDGET_NS = 16666667L;
+
+    // Total duration of every frame timed after a resume, across resumes
+    public static final LatencyHistogram RESUME_FRAMES = new LatencyHistogram();
+    private static volatile int emptyRootResends = 0;
+    // Stops the checks of an earlier resume; main thread only
+    private static int resumes = 0;
+    private static Handler metricsHandler;
+
+    private ResumeFrameWatcher() {
+    }
+
+    /**
+     * Called from MainActivity.onResume
+     */
+    public static void onResume(final Activity activity) {
+        scheduleEmptyCheck(activity, ++resumes, 1);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            watchFrames(activity.getWindow());
+        }
+    }
+
+    private static void scheduleEmptyCheck(final Activity activity, final int resume, final int check) {
+        activity.getWindow().getDecorView().postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                checkRoot(activity, resume, check);
+            }
+        }, EMPTY_CHECK_INTERVAL_MS);
+    }
+
+    private static void checkRoot(Activity activity, int resume, int check) {
+        if (resume != resumes || activity.isFinishing()) {
+            return;
+        }
+        View reactRoot = getReactRoot(activity);
+        // An empty root means JS has not rendered yet, which the size cannot help with
+        if (reactRoot != null && reactRoot.getWidth() > 0 && reactRoot.getHeight() > 0
+                && ((ViewGroup) reactRoot).getChildCount() > 0) {
+            if (hasSizedChild(reactRoot)) {
+                return;
+            }
+            // React rendered views, but none of them has a size
+            if (resendRootSize(reactRoot)) {
+                emptyRootResends++;
+                Log.w(TAG, "React root drew nothing " + check * EMPTY_CHECK_INTERVAL_MS
+                    + "ms after resume, sent its size to JS again (" + emptyRootResends + " time(s) so far)");
+            }
+        }
+        if (check < EMPTY_CHECKS) {
+            scheduleEmptyCheck(activity, resume, check + 1);
+        }
+    }
+
+    /**
+     * Send the root's current size to JS the way ReactRootView.onMeasure
+     * does, which lays the React tree out again. False if the root is not
+     * attached to a React instance.
+     */
+    private static boolean resendRootSize(View reactRoot) {
+        if (!(reactRoot instanceof ReactRootView)) {
+            return false;
+        }
+        ReactRootView root = (ReactRootView) reactRoot;
+        ReactInstanceManager manager = root.getReactInstanceManager();
+        ReactContext context = manager == null ? null : manager.getCurrentReactContext();
+        UIManager uiManager = context == null ? null : UIManagerHelper.getUIManager(context, root.getUIManagerType());
+        if (uiManager == null) {
+            return false;
+        }
+        Point offset = RootViewUtil.getViewportOffset(root);
+        uiManager.updateRootLayoutSpecs(root.getRootViewTag(),
+            MeasureSpec.makeMeasureSpec(root.getWidth(), MeasureSpec.EXACTLY),
+            MeasureSpec.makeMeasureSpec(root.getHeight(), MeasureSpec.EXACTLY),
+            offset.x, offset.y);
+        return true;
+    }
+
+    /**
+     * The activity's React root view, or null before it is attached
+     */
+    static View getReactRoot(Activity activity) {
+        View content = activity.findViewById(android.R.id.content);
+        if (!(content instanceof ViewGroup) || ((ViewGroup) content).getChildCount() == 0) {
+            return null;
+        }
+        View reactRoot = ((ViewGroup) content).getChildAt(0);
+        return reactRoot instanceof ViewGroup ? reactRoot : null;
+    }
+
+    /**
+     * Whether React has laid out any top-level view with a non-empty size
+     */
+    static boolean hasSizedChild(View reactRoot) {
+        ViewGroup root = (ViewGroup) reactRoot;
+        for (int i = 0; i < root.getChildCount(); i++) {
+            View child = root.getChildAt(i);
+            if (child.getWidth() > 0 && child.getHeight() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void watchFrames(final Window window) {
+        if (metricsHandler == null) {
+            HandlerThread thread = new HandlerThread("FrameMetrics");
+            thread.start();
+            metricsHandler = new Handler(thread.getLooper());
+        }
+
+        // Counted on the metrics thread only
+        final int[] frames = new int[2]; // total, janky
+        final Window.OnFrameMetricsAvailableListener listener = new Window.OnFrameMetricsAvailableListener() {
+            @Override
+            public void onFrameMetricsAvailable(Window w, FrameMetrics metrics, int dropCount) {
+                long totalNs = metrics.getMetric(FrameMetrics.TOTAL_DURATION);
+                RESUME_FRAMES.recordMicros(totalNs / 1000);
+                frames[0]++;
+                if (totalNs > FRAME_BUDGET_NS) {
+                    frames[1]++;
+                }
+            }
+        };
+        window.addOnFrameMetricsAvailableListener(listener, metricsHandler);
+
+        window.getDecorView().postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    window.removeOnFrameMetricsAvailableListener(listener);
+                } catch (Exception e) {
+                    return; // Window already gone
+                }
+                metricsHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        Log.i(TAG, "Resume: " + frames[0] + " frame(s), " + frames[1] + " janky, "
+                            + emptyRootResends + " empty-root size resend(s); all resumes: " + RESUME_FRAMES.summary());
+                    }
+                });
+            }
+        }, WATCH_MS);
+    }
+}
@@ -0,0 +1,308 @@
+package com.kidsguard;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+/**
+ * Single stream of screen time state changes to JS ("onScreenTimeEvent").
+ *
+ * The ":enforcer" process calls send(), which is a package-only broadcast
+ * carrying the budget as of the event. In the UI process the receiver puts
+ * that budget in EnforcerClient's cache and hands the event on; all state
+ * here is confined to the main thread. Events are built and sent to JS on a
+ * background thread, since a budget read after a command dropped the cache
+ * is a binder call. Nothing is built or sent to JS unless it has a listener
+ * attached. While the app is in the background, events are coalesced to the
+ * latest state per type and sent when it comes back. Usage ticks (at most one
+ * per USAGE_TICK_MS, computed from the cached budget) only run in the
+ * foreground while the budget is counting, and every budget broadcast
+ * starts or stops them.
+ */
+public final class ScreenTimeEvents {
+    private static final String TAG = "ScreenTimeEvents";
+    public static final String EVENT_NAME = "onScreenTimeEvent";
+    private static final long USAGE_TICK_MS = 1000;
+
+    private static final String ACTION_EVENT = "com.kidsguard.SCREEN_TIME_EVENT";
+    private static final String EXTRA_TYPE = "type";
+    private static final String EXTRA_REASON = "reason";
+    private static final String EXTRA_BUDGET = "budget";
+
+    public static final String TYPE_USAGE = "usage";
+    public static final String TYPE_LOCKED = "locked";
+    public static final String TYPE_UNLOCKED = "unlocked";
+    public static final String TYPE_LIMIT_CHANGED = "limitChanged";
+    public static final String TYPE_SERVICE_STARTED = "serviceStarted";
+    // Budget changed without touching the limit; refreshes the cache, not sent to JS
+    public static final String TYPE_BUDGET_CHANGED = "budgetChanged";
+
+    private static final ScreenTimeEvents INSTANCE = new ScreenTimeEvents();
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private Handler emitHandler;
+    private ReactApplicationContext reactContext;
+    private int listenerCount = 0;
+    private boolean foreground = false;
+
+    // Coalesced while in the background; the lock keeps only its latest state
+    private boolean pendingServiceStarted = false;
+    private boolean pendingLimitChanged = false;
+    private String pendingLockType;
+    private String pendingLockReason;
+
+    private final BroadcastReceiver receiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            Bundle budget = intent.getBundleExtra(EXTRA_BUDGET);
+            if (budget != null) {
+                EnforcerClient.setBudget(EnforcerProvider.getBudget(budget));
+            } else {
+                EnforcerClient.invalidate();
+            }
+            onEnforcerEvent(intent.getStringExtra(EXTRA_TYPE), intent.getStringExtra(EXTRA_REASON));
+            updateUsageTicks();
+        }
+    };
+
+    private final LifecycleEventListener lifecycleListener = new LifecycleEventListener() {
+        @Override
+        public void onHostResume() {
+            foreground = true;
+            flushPending();
+            updateUsageTicks();
+        }
+
+        @Override
+        public void onHostPause() {
+            foreground = false;
+            updateUsageTicks();
+        }
+
+        @Override
+        public void onHostDestroy() {
+            foreground = false;
+            updateUsageTicks();
+        }
+    };
+
+    private final Runnable usageTick = new Runnable() {
+        @Override
+        public void run() {
+            if (!isBudgetCounting()) {
+                return; // The next budget broadcast starts them again
+            }
+            emit(TYPE_USAGE, null);
+            handler.postDelayed(this, USAGE_TICK_MS);
+        }
+    };
+
+    public static ScreenTimeEvents getInstance() {
+        return INSTANCE;
+    }
+
+    private ScreenTimeEvents() {
+    }
+
+    /**
+     * Publish from the enforcer process. reason is the rule id or blocked
+     * package, or null.
+     */
+    public static void send(Context context, String type, String reason) {
+        try {
+            Intent intent = new Intent(ACTION_EVENT);
+            intent.setPackage(context.getPackageName());
+            intent.putExtra(EXTRA_TYPE, type);
+            intent.putExtra(EXTRA_REASON, reason);
+            Bundle budget = new Bundle();
+            EnforcerProvider.putBudget(budget, ScreenTimeModule.getBudgetStatic(context));
+            intent.putExtra(EXTRA_BUDGET, budget);
+            context.sendBroadcast(intent);
+        } catch (Exception e) {
+            Log.e(TAG, "Error sending " + type, e);
+        }
+    }
+
+    /**
+     * Called when ScreenTimeModule is created for a React instance
+     */
+    void attach(final ReactApplicationContext context) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                release();
+                reactContext = context;
+                context.addLifecycleEventListener(lifecycleListener);
+                ContextCompat.registerReceiver(context, receiver, new IntentFilter(ACTION_EVENT),
+                    ContextCompat.RECEIVER_NOT_EXPORTED);
+            }
+        });
+    }
+
+    void detach() {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                release();
+            }
+        });
+    }
+
+    void addListener() {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                listenerCount++;
+                updateUsageTicks();
+            }
+        });
+    }
+
+    void removeListeners(final int count) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                listenerCount = Math.max(0, listenerCount - count);
+                if (listenerCount == 0) {
+                    clearPending();
+                }
+                updateUsageTicks();
+            }
+        });
+    }
+
+    // ============ Internals ============
+
+    private void onEnforcerEvent(String type, String reason) {
+        if (TYPE_LOCKED.equals(type) || TYPE_UNLOCKED.equals(type)) {
+            EnforcerClient.setLocked(TYPE_LOCKED.equals(type));
+        }
+        if (!isListening() || type == null || TYPE_BUDGET_CHANGED.equals(type)) {
+            return;
+        }
+        if (foreground) {
+            emit(type, reason);
+        } else if (TYPE_SERVICE_STARTED.equals(type)) {
+            pendingServiceStarted = true;
+        } else if (TYPE_LIMIT_CHANGED.equals(type)) {
+            pendingLimitChanged = true;
+        } else if (TYPE_LOCKED.equals(type) || TYPE_UNLOCKED.equals(type)) {
+            pendingLockType = type;
+            pendingLockReason = reason;
+        }
+    }
+
+    private void release() {
+        if (reactContext != null) {
+            reactContext.removeLifecycleEventListener(lifecycleListener);
+            reactContext.unregisterReceiver(receiver);
+            reactContext = null;
+        }
+        listenerCount = 0;
+        foreground = false;
+        clearPending();
+        updateUsageTicks();
+    }
+
+    private boolean isListening() {
+        return listenerCount > 0 && reactContext != null;
+    }
+
+    private void updateUsageTicks() {
+        handler.removeCallbacks(usageTick);
+        if (isListening() && foreground && isBudgetCounting()) {
+            handler.post(usageTick);
+        }
+    }
+
+    /**
+     * Whether usage is advancing, from the cached budget so the main thread
+     * makes no IPC. An unknown budget counts, so the first tick reads it.
+     */
+    private boolean isBudgetCounting() {
+        ScreenTimeBudget budget = EnforcerClient.getLastBudget(reactContext);
+        return budget == null || (budget.enforcing && !budget.isPaused());
+    }
+
+    private void flushPending() {
+        if (!isListening()) {
+            return;
+        }
+        if (pendingServiceStarted) {
+            emit(TYPE_SERVICE_STARTED, null);
+        }
+        if (pendingLimitChanged) {
+            emit(TYPE_LIMIT_CHANGED, null);
+        }
+        if (pendingLockType != null) {
+            emit(pendingLockType, pendingLockReason);
+        }
+        clearPending();
+    }
+
+    private void clearPending() {
+        pendingServiceStarted = false;
+        pendingLimitChanged = false;
+        pendingLockType = null;
+        pendingLockReason = null;
+    }
+
+    private void emit(final String type, final String reason) {
+        final ReactApplicationContext context = reactContext;
+        if (context == null) {
+            return;
+        }
+        if (emitHandler == null) {
+            HandlerThread thread = new HandlerThread(TAG);
+            thread.start();
+            emitHandler = new Handler(thread.getLooper());
+        }
+        emitHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                emitNow(context, type, reason);
+            }
+        });
+    }
+
+    /**
+     * Runs on the emit thread, in the order emit() was called
+     */
+    private static void emitNow(ReactApplicationContext context, String type, String reason) {
+        if (!context.hasActiveReactInstance()) {
+            return;
+        }
+        try {
+            ScreenTimeBudget budget = EnforcerClient.getBudget(context);
+            WritableMap params = Arguments.createMap();
+            params.putString("type", type);
+            params.putInt("usageSeconds", budget.getUsageSeconds(ScreenTimeModule.clock.currentTimeMillis()));
+            params.putInt("limitSeconds", budget.getEffectiveLimitSeconds());
+            params.putBoolean("enforcing", budget.enforcing);
+            params.putBoolean("paused", budget.isPaused());
+            params.putBoolean("locked", EnforcerClient.isLocked());
+            if (reason != null) {
+                params.putString("reason", reason);
+            }
+            context
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(EVENT_NAME, params);
+        } catch (Exception e) {
+            Log.e(TAG, "Error emitting " + type, e);
+        }
+    }
+}
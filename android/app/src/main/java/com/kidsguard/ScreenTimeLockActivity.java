@@ -2,15 +2,14 @@ package com.kidsguard;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.os.Debug;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.Button;
-import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -23,14 +22,17 @@ public class ScreenTimeLockActivity extends Activity {
     private static final long RELAUNCH_CHECK_INTERVAL = 200; // 200ms - very aggressive
     private static final long IMMEDIATE_RELAUNCH_DELAY = 100; // 100ms for immediate relaunch
 
-    private EditText pinInput;
+    private PinPadView pinPad;
     private Button unlockButton;
+    private Button extraTimeButton;
     private TextView usageText;
     private TextView titleText;
+    private UnlockCountdown countdown;
 
     private Handler relaunchHandler;
     private boolean isUnlocked = false;
     private Runnable relaunchRunnable;
+    private long unlockTapNs = 0; // For the tap -> lock removed latency
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -50,29 +52,22 @@ public class ScreenTimeLockActivity extends Activity {
         // Create layout programmatically (no XML needed)
         createLayout();
 
-        // Get usage information and display it
-        displayUsageInfo();
+        // Title, info card and extra time button for the rule holding the lock
+        showLockRule();
 
         // Start monitoring for bypass attempts
         startRelaunchMonitoring();
     }
 
     private void createLayout() {
-        // Main container with gradient-like background
-        android.widget.RelativeLayout mainContainer = new android.widget.RelativeLayout(this);
-        mainContainer.setBackgroundColor(0xFF0F172A); // Dark slate background
-        mainContainer.setPadding(40, 60, 40, 60);
+        // The window paints the one background layer; the content sits directly on it
+        getWindow().setBackgroundDrawable(new android.graphics.drawable.ColorDrawable(0xFF0F172A)); // Dark slate
 
         // Content container (centered)
         android.widget.LinearLayout contentLayout = new android.widget.LinearLayout(this);
         contentLayout.setOrientation(android.widget.LinearLayout.VERTICAL);
         contentLayout.setGravity(android.view.Gravity.CENTER);
-        android.widget.RelativeLayout.LayoutParams contentParams = new android.widget.RelativeLayout.LayoutParams(
-            android.widget.RelativeLayout.LayoutParams.MATCH_PARENT,
-            android.widget.RelativeLayout.LayoutParams.WRAP_CONTENT
-        );
-        contentParams.addRule(android.widget.RelativeLayout.CENTER_IN_PARENT);
-        contentLayout.setLayoutParams(contentParams);
+        contentLayout.setPadding(40, 60, 40, 60);
 
         // Icon/Logo area
         TextView iconText = new TextView(this);
@@ -84,7 +79,6 @@ public class ScreenTimeLockActivity extends Activity {
 
         // Title
         titleText = new TextView(this);
-        titleText.setText(getString(R.string.screen_time_title));
         titleText.setTextSize(28);
         titleText.setTextColor(0xFFFFFFFF);
         titleText.setGravity(android.view.Gravity.CENTER);
@@ -101,32 +95,34 @@ public class ScreenTimeLockActivity extends Activity {
         subtitleText.setPadding(0, 0, 0, 40);
         contentLayout.addView(subtitleText);
 
-        // Usage info card
-        android.widget.LinearLayout usageCard = new android.widget.LinearLayout(this);
-        usageCard.setOrientation(android.widget.LinearLayout.VERTICAL);
-        usageCard.setBackgroundColor(0xFF1E293B); // Slightly lighter background
-        usageCard.setPadding(30, 25, 30, 25);
+        // Live countdown to when the lock ends by itself (bedtime over, ...)
+        TextView countdownText = new TextView(this);
+        countdownText.setTextSize(16);
+        countdownText.setTextColor(0xFFE2E8F0);
+        countdownText.setGravity(android.view.Gravity.CENTER);
+        countdownText.setPadding(0, 0, 0, 30);
+        contentLayout.addView(countdownText);
+        countdown = new UnlockCountdown(countdownText);
+
+        // Usage info card: the text view carries the card background itself
+        usageText = new TextView(this);
+        usageText.setTextSize(16);
+        usageText.setTextColor(0xFFE2E8F0);
+        usageText.setGravity(android.view.Gravity.CENTER);
+        usageText.setLineSpacing(1.2f, 1.2f);
+        usageText.setPadding(30, 25, 30, 25);
         android.widget.LinearLayout.LayoutParams usageCardParams = new android.widget.LinearLayout.LayoutParams(
             android.widget.LinearLayout.LayoutParams.MATCH_PARENT,
             android.widget.LinearLayout.LayoutParams.WRAP_CONTENT
         );
         usageCardParams.setMargins(0, 0, 0, 40);
-        usageCard.setLayoutParams(usageCardParams);
+        usageText.setLayoutParams(usageCardParams);
 
-        // Set rounded corners
         android.graphics.drawable.GradientDrawable usageCardBg = new android.graphics.drawable.GradientDrawable();
-        usageCardBg.setColor(0xFF1E293B);
+        usageCardBg.setColor(0xFF1E293B); // Slightly lighter background
         usageCardBg.setCornerRadius(16);
-        usageCard.setBackground(usageCardBg);
-
-        usageText = new TextView(this);
-        usageText.setTextSize(16);
-        usageText.setTextColor(0xFFE2E8F0);
-        usageText.setGravity(android.view.Gravity.CENTER);
-        usageText.setLineSpacing(1.2f, 1.2f);
-        usageCard.addView(usageText);
-
-        contentLayout.addView(usageCard);
+        usageText.setBackground(usageCardBg);
+        contentLayout.addView(usageText);
 
         // Instruction text
         TextView instructionText = new TextView(this);
@@ -137,28 +133,15 @@ public class ScreenTimeLockActivity extends Activity {
         instructionText.setPadding(0, 0, 0, 15);
         contentLayout.addView(instructionText);
 
-        // PIN input with rounded corners
-        pinInput = new EditText(this);
-        pinInput.setHint(getString(R.string.screen_time_pin_hint));
-        pinInput.setHintTextColor(0xFF64748B);
-        pinInput.setInputType(android.text.InputType.TYPE_CLASS_NUMBER | android.text.InputType.TYPE_NUMBER_VARIATION_PASSWORD);
-        pinInput.setTextSize(24);
-        pinInput.setTextColor(0xFF1E293B);
-        pinInput.setGravity(android.view.Gravity.CENTER);
-        pinInput.setPadding(30, 25, 30, 25);
-
-        android.graphics.drawable.GradientDrawable pinBg = new android.graphics.drawable.GradientDrawable();
-        pinBg.setColor(0xFFF1F5F9);
-        pinBg.setCornerRadius(12);
-        pinInput.setBackground(pinBg);
-
+        // PIN keypad, drawn in-place so unlocking never brings up the IME
+        pinPad = new PinPadView(this);
         android.widget.LinearLayout.LayoutParams pinParams = new android.widget.LinearLayout.LayoutParams(
             android.widget.LinearLayout.LayoutParams.MATCH_PARENT,
             android.widget.LinearLayout.LayoutParams.WRAP_CONTENT
         );
         pinParams.setMargins(0, 0, 0, 25);
-        pinInput.setLayoutParams(pinParams);
-        contentLayout.addView(pinInput);
+        pinPad.setLayoutParams(pinParams);
+        contentLayout.addView(pinPad);
 
         // Unlock button with rounded corners
         unlockButton = new Button(this);
@@ -187,23 +170,48 @@ public class ScreenTimeLockActivity extends Activity {
         unlockButton.setLayoutParams(unlockParams);
         contentLayout.addView(unlockButton);
 
-        mainContainer.addView(contentLayout);
-        setContentView(mainContainer);
+        // Extra time button: grants more minutes but keeps enforcing
+        extraTimeButton = new Button(this);
+        extraTimeButton.setText(getString(R.string.screen_time_extra_time, ScreenTimeModule.DEFAULT_EXTRA_TIME_SECONDS / 60));
+        extraTimeButton.setTextSize(16);
+        extraTimeButton.setTextColor(0xFFFFFFFF);
+        extraTimeButton.setTypeface(null, android.graphics.Typeface.BOLD);
+        extraTimeButton.setPadding(50, 30, 50, 30);
+
+        android.graphics.drawable.GradientDrawable extraTimeBg = new android.graphics.drawable.GradientDrawable();
+        extraTimeBg.setColor(0xFF334155); // Slate
+        extraTimeBg.setCornerRadius(12);
+        extraTimeButton.setBackground(extraTimeBg);
+
+        extraTimeButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                handleExtraTime();
+            }
+        });
+        android.widget.LinearLayout.LayoutParams extraTimeParams = new android.widget.LinearLayout.LayoutParams(
+            android.widget.LinearLayout.LayoutParams.MATCH_PARENT,
+            android.widget.LinearLayout.LayoutParams.WRAP_CONTENT
+        );
+        extraTimeButton.setLayoutParams(extraTimeParams);
+        contentLayout.addView(extraTimeButton);
+
+        setContentView(contentLayout);
     }
 
-    private void displayUsageInfo() {
-        try {
-            int limitSeconds = ScreenTimeModule.getLimitStatic(this);
-            String limitFormatted = formatSeconds(limitSeconds);
-            usageText.setText(getString(R.string.screen_time_limit_reached, limitFormatted));
-        } catch (Exception e) {
-            Log.e(TAG, "Error displaying usage info", e);
-            usageText.setText(getString(R.string.screen_time_limit_reached_fallback));
-        }
+    /**
+     * Extra time is offered only when the budget alone holds the lock (see LockOverlayManager)
+     */
+    private void showLockRule() {
+        String rule = LockOverlayManager.getInstance().getDeviceLockRule();
+        titleText.setText(LockOverlayManager.getLockTitle(this, rule));
+        usageText.setText(LockOverlayManager.getLockDetail(this, rule));
+        extraTimeButton.setVisibility(LockOverlayManager.offersExtraTime(rule) ? View.VISIBLE : View.GONE);
     }
 
     private void handleUnlock() {
-        String enteredPin = pinInput.getText().toString();
+        unlockTapNs = System.nanoTime();
+        String enteredPin = pinPad.getPin();
 
         if (enteredPin.isEmpty()) {
             Toast.makeText(this, getString(R.string.screen_time_enter_pin_toast), Toast.LENGTH_SHORT).show();
@@ -214,29 +222,28 @@ public class ScreenTimeLockActivity extends Activity {
         verifyPIN(enteredPin, new Callback() {
             @Override
             public void invoke(Object... args) {
-                boolean isValid = (boolean) args[0];
+                final PinAttempts.Outcome outcome = (PinAttempts.Outcome) args[0];
 
                 runOnUiThread(new Runnable() {
                     @Override
                     public void run() {
-                        if (isValid) {
+                        if (outcome == PinAttempts.Outcome.ACCEPTED) {
+                            // Same decision as the overlay: only a budget lock stops enforcing
+                            LockOverlayManager overlay = LockOverlayManager.getInstance();
+                            LockState.PinAction action = overlay.acceptPin(ScreenTimeLockActivity.this);
+                            if (action != LockState.PinAction.STOP_ENFORCING && overlay.isDeviceLockRequired()) {
+                                // Another rule (the budget behind bedtime) may still hold the lock
+                                pinPad.clear();
+                                showLockRule();
+                                return;
+                            }
                             isUnlocked = true;
                             stopRelaunchMonitoring();
-                            // Stop enforcement so timer doesn't re-lock
-                            try {
-                                SharedPreferences prefs = getSharedPreferences("screen_time_prefs", MODE_PRIVATE);
-                                prefs.edit()
-                                    .putBoolean("enforcing", false)
-                                    .putLong("timer_start_ms", 0)
-                                    .apply();
-                            } catch (Exception ex) {
-                                Log.e(TAG, "Error stopping enforcement", ex);
-                            }
                             Toast.makeText(ScreenTimeLockActivity.this, getString(R.string.screen_time_unlocked), Toast.LENGTH_SHORT).show();
                             finish();
                         } else {
-                            Toast.makeText(ScreenTimeLockActivity.this, getString(R.string.screen_time_incorrect_pin), Toast.LENGTH_SHORT).show();
-                            pinInput.setText("");
+                            Toast.makeText(ScreenTimeLockActivity.this, getPinError(outcome), Toast.LENGTH_SHORT).show();
+                            pinPad.clear();
                         }
                     }
                 });
@@ -244,13 +251,52 @@ public class ScreenTimeLockActivity extends Activity {
         });
     }
 
+    private void handleExtraTime() {
+        unlockTapNs = System.nanoTime();
+        String enteredPin = pinPad.getPin();
+
+        if (enteredPin.isEmpty()) {
+            Toast.makeText(this, getString(R.string.screen_time_enter_pin_toast), Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        PinAttempts.Outcome outcome = PINStorageHelper.attemptPIN(this, enteredPin);
+        if (outcome == PinAttempts.Outcome.ACCEPTED) {
+            // Enforcement stays on. Saving the grant re-evaluates the budget in the
+            // service right away; another rule (bedtime) may still hold the lock.
+            ScreenTimeModule.grantExtraTimeStatic(this, ScreenTimeModule.DEFAULT_EXTRA_TIME_SECONDS);
+            if (LockOverlayManager.getInstance().isDeviceLockRequired()) {
+                pinPad.clear();
+                showLockRule();
+                return;
+            }
+            isUnlocked = true;
+            stopRelaunchMonitoring();
+            Toast.makeText(this, getString(R.string.screen_time_unlocked), Toast.LENGTH_SHORT).show();
+            finish();
+        } else {
+            Toast.makeText(this, getPinError(outcome), Toast.LENGTH_SHORT).show();
+            pinPad.clear();
+        }
+    }
+
+    /**
+     * Wrong PIN, or a lockout from too many of them (shared with every unlock path)
+     */
+    private String getPinError(PinAttempts.Outcome outcome) {
+        if (outcome == PinAttempts.Outcome.REJECTED) {
+            return getString(R.string.screen_time_incorrect_pin);
+        }
+        long remainingMs = PINStorageHelper.getLockoutRemainingMs(this);
+        return getString(R.string.screen_time_locked_out, (int) ((remainingMs + 999) / 1000));
+    }
+
     private void verifyPIN(String enteredPin, Callback callback) {
         try {
-            boolean isValid = PINStorageHelper.verifyPIN(this, enteredPin);
-            callback.invoke(isValid);
+            callback.invoke(PINStorageHelper.attemptPIN(this, enteredPin));
         } catch (Exception e) {
             Log.e(TAG, "Error verifying PIN", e);
-            callback.invoke(false);
+            callback.invoke(PinAttempts.Outcome.REJECTED);
         }
     }
 
@@ -260,26 +306,26 @@ public class ScreenTimeLockActivity extends Activity {
         Toast.makeText(this, getString(R.string.screen_time_only_parent), Toast.LENGTH_SHORT).show();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Stopped with the screen off; the service keeps the unlock time current
+        countdown.setUnlockTimeMs(LockOverlayManager.getInstance().getUnlockTimeMs());
+        countdown.start();
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
 
-        // Check if limit is still exceeded when returning from emergency call
-        try {
-            int usedSeconds = ScreenTimeModule.getDailyUsageSecondsStatic(this);
-            int limitSeconds = ScreenTimeModule.getLimitStatic(this);
-            boolean enforcing = ScreenTimeModule.isEnforcingStatic(this);
-
-            if (!enforcing || usedSeconds < limitSeconds) {
-                // Enforcement was disabled or limit no longer exceeded
-                isUnlocked = true;
-                stopRelaunchMonitoring();
-                finish();
-                return;
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error checking limit on resume", e);
+        // Check if a lock is still needed when returning from emergency call. This is
+        // the fallback for every device lock (budget, bedtime, session), so ask the
+        // enforcement service's rules rather than the budget alone.
+        if (!LockOverlayManager.getInstance().isDeviceLockRequired()) {
+            closeWithoutPin();
+            return;
         }
+        showLockRule();
 
         // Restart monitoring if not unlocked
         if (!isUnlocked) {
@@ -309,6 +355,7 @@ public class ScreenTimeLockActivity extends Activity {
     @Override
     protected void onStop() {
         super.onStop();
+        countdown.stop();
 
         // Also relaunch when stopped (moved to background)
         if (!isUnlocked && !isFinishing()) {
@@ -328,6 +375,21 @@ public class ScreenTimeLockActivity extends Activity {
     protected void onDestroy() {
         super.onDestroy();
         stopRelaunchMonitoring();
+        if (isUnlocked && unlockTapNs > 0) {
+            LockOverlayManager.UNLOCK_LATENCY.recordMicros((System.nanoTime() - unlockTapNs) / 1000);
+        }
+        if (isUnlocked) {
+            ScreenTimeEvents.send(this, ScreenTimeEvents.TYPE_UNLOCKED, null);
+        }
+    }
+
+    /**
+     * Enforcement was disabled or no rule is violated any more
+     */
+    private void closeWithoutPin() {
+        isUnlocked = true;
+        stopRelaunchMonitoring();
+        finish();
     }
 
     private void startRelaunchMonitoring() {
@@ -339,12 +401,20 @@ public class ScreenTimeLockActivity extends Activity {
             @Override
             public void run() {
                 if (!isUnlocked && !isFinishing()) {
+                    long cpuStartNs = Debug.threadCpuTimeNanos();
+                    // The lock ended by itself while up (bedtime over, ...)
+                    if (!LockOverlayManager.getInstance().isDeviceLockRequired()) {
+                        closeWithoutPin();
+                        return;
+                    }
                     // Check if we're in foreground
                     if (!isInForeground()) {
                         Log.d(TAG, "Lock screen not in foreground - relaunching");
                         relaunchActivity();
                     }
                     relaunchHandler.postDelayed(this, RELAUNCH_CHECK_INTERVAL);
+                    EnforcementStats.INSTANCE.recordWakeup(EnforcementStats.Source.RELAUNCH_POLL,
+                        Debug.threadCpuTimeNanos() - cpuStartNs);
                 }
             }
         };
@@ -366,7 +436,10 @@ public class ScreenTimeLockActivity extends Activity {
             @Override
             public void run() {
                 if (!isUnlocked && !isFinishing()) {
+                    long cpuStartNs = Debug.threadCpuTimeNanos();
                     relaunchActivity();
+                    EnforcementStats.INSTANCE.recordWakeup(EnforcementStats.Source.RELAUNCH_POLL,
+                        Debug.threadCpuTimeNanos() - cpuStartNs);
                 }
             }
         }, IMMEDIATE_RELAUNCH_DELAY);
@@ -377,6 +450,7 @@ public class ScreenTimeLockActivity extends Activity {
             Intent intent = new Intent(this, ScreenTimeLockActivity.class);
             intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
             startActivity(intent);
+            EnforcementStats.INSTANCE.recordBinderCalls(EnforcementStats.Source.RELAUNCH_POLL, 1);
         } catch (Exception e) {
             Log.e(TAG, "Error relaunching activity", e);
         }
@@ -389,6 +463,7 @@ public class ScreenTimeLockActivity extends Activity {
         }
 
         java.util.List<android.app.ActivityManager.RunningTaskInfo> tasks = activityManager.getRunningTasks(1);
+        EnforcementStats.INSTANCE.recordBinderCalls(EnforcementStats.Source.RELAUNCH_POLL, 1);
         if (tasks == null || tasks.isEmpty()) {
             return false;
         }
@@ -400,10 +475,4 @@ public class ScreenTimeLockActivity extends Activity {
 
         return topActivity.getClassName().equals(getClass().getName());
     }
-
-    private String formatSeconds(int seconds) {
-        int hours = seconds / 3600;
-        int minutes = (seconds % 3600) / 60;
-        return hours + "h " + minutes + "m";
-    }
 }
@@ -5,42 +5,135 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Build;
 import android.provider.Settings;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ScreenTimeModule extends ReactContextBaseJavaModule {
+    public static final String NAME = "ScreenTimeModule";
     private static final String TAG = "ScreenTimeModule";
     private static final String PREFS_NAME = "screen_time_prefs";
-    private static final String KEY_LIMIT_SECONDS = "limit_seconds";
+    public static final String KEY_LIMIT_SECONDS = "limit_seconds";
     private static final String KEY_ENFORCING = "enforcing";
+    // Start of the open timing segment; 0 while paused or stopped
     private static final String KEY_TIMER_START_MS = "timer_start_ms";
+    // Usage from closed segments (before the last pause)
+    private static final String KEY_ACCUMULATED_MS = "accumulated_ms";
+    public static final String KEY_BONUS_SECONDS = "bonus_seconds";
+    public static final String KEY_WARNING_MINUTES = "warning_minutes";
+    // Weekly lock windows encoded as "daysMask:start:end;..."
+    public static final String KEY_SCHEDULE_WINDOWS = "schedule_windows";
+    public static final String KEY_MAX_SESSION_MINUTES = "max_session_minutes";
+    public static final String KEY_APP_POLICIES = "app_policies";
+    // Bedtime or session lock lifted with the parent's PIN, as "ruleId:timeMs"
+    public static final String KEY_PIN_OVERRIDE = "pin_override";
+    private static final String DEFAULT_WARNING_MINUTES = "15,5,1";
+
+    // Keys that change the enforcement deadline or the warnings derived from it
+    public static final String[] DEADLINE_KEYS = {
+        KEY_LIMIT_SECONDS, KEY_ENFORCING, KEY_TIMER_START_MS, KEY_ACCUMULATED_MS, KEY_BONUS_SECONDS, KEY_WARNING_MINUTES
+    };
+
+    // Extra time offered by the "+15 min" button on the lock screens
+    public static final int DEFAULT_EXTRA_TIME_SECONDS = 15 * 60;
+
+    // Serializes read-modify-write updates of the time bank and the journal. Writes
+    // come from the enforcer's main thread (EnforcerProvider hands its commands there);
+    // readers on binder threads still take it for the journal's first-use recovery.
+    private static final Object BUDGET_LOCK = new Object();
+
+    // fsync'd copy of every budget change; prefs apply() may not have reached disk
+    // when the process is killed, so the journal wins on restart
+    private static final String JOURNAL_FILE = "enforcement.journal";
+    private static File journalFile;
+    private static StateJournal journal;
+    // Makes the journal's compaction rename durable; java.nio.file needs API 26
+    private static final StateJournal.DirectorySync DIRECTORY_SYNC = new StateJournal.DirectorySync() {
+        @Override
+        public void sync(File directory) throws IOException {
+            try {
+                FileDescriptor fd = Os.open(directory.getPath(), OsConstants.O_RDONLY, 0);
+                try {
+                    Os.fsync(fd);
+                } finally {
+                    Os.close(fd);
+                }
+            } catch (ErrnoException e) {
+                throw new IOException("Cannot sync " + directory, e);
+            }
+        }
+    };
+
+    // Compiled schedule, rebuilt only when the stored windows change
+    private static String cachedScheduleSpec;
+    private static ScheduleIndex cachedSchedule = ScheduleIndex.EMPTY;
+
+    // Wall clock for all budget maths; tests swap in a fake
+    static Clock clock = Clock.SYSTEM;
+
+    // Per-app policy table, rebuilt only when the stored policies change
+    private static String cachedAppPoliciesSpec;
+    private static AppPolicyTable cachedAppPolicies = AppPolicyTable.EMPTY;
 
     private final ReactApplicationContext reactContext;
 
     public ScreenTimeModule(ReactApplicationContext context) {
         super(context);
         this.reactContext = context;
+        ScreenTimeEvents.getInstance().attach(context);
+    }
+
+    @Override
+    public void onCatalystInstanceDestroy() {
+        super.onCatalystInstanceDestroy();
+        ScreenTimeEvents.getInstance().detach();
+    }
+
+    /**
+     * NativeEventEmitter bookkeeping for ScreenTimeEvents.EVENT_NAME; events
+     * are only built while JS has at least one listener
+     */
+    @ReactMethod
+    public void addListener(String eventName) {
+        ScreenTimeEvents.getInstance().addListener();
+    }
+
+    @ReactMethod
+    public void removeListeners(double count) {
+        ScreenTimeEvents.getInstance().removeListeners((int) count);
     }
 
     @NonNull
     @Override
     public String getName() {
-        return "ScreenTimeModule";
+        return NAME;
     }
 
     /**
-     * Get elapsed seconds since timer was started
+     * Get seconds counted by the timer (excluding paused time)
      */
     @ReactMethod
     public void getDailyUsageSeconds(Promise promise) {
         try {
-            int elapsedSeconds = getDailyUsageSecondsStatic(reactContext);
+            int elapsedSeconds = EnforcerClient.getBudget(reactContext).getUsageSeconds(clock.currentTimeMillis());
             promise.resolve(elapsedSeconds);
         } catch (Exception e) {
             Log.e(TAG, "Error getting elapsed time", e);
@@ -49,19 +142,40 @@ public class ScreenTimeModule extends ReactContextBaseJavaModule {
     }
 
     /**
-     * Static version: get elapsed seconds since timer start
+     * Synchronous read of the timer state for UI that refreshes every frame:
+     * { usageSeconds, limitSeconds, enforcing, paused, deadlineMs }.
+     * Never makes IPC on the JS thread: it serves the last budget the enforcer
+     * sent, which EnforcerClient reads again in the background when stale.
+     * Until the first one arrives it reports no enforcement.
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getSnapshotSync() {
+        ScreenTimeBudget budget = null;
+        try {
+            budget = EnforcerClient.getLastBudget(reactContext);
+        } catch (Exception e) {
+            Log.w(TAG, "Error reading the budget snapshot", e);
+        }
+        if (budget == null) {
+            budget = ScreenTimeBudget.NONE;
+        }
+        WritableMap snapshot = Arguments.createMap();
+        snapshot.putInt("usageSeconds", budget.getUsageSeconds(clock.currentTimeMillis()));
+        snapshot.putInt("limitSeconds", budget.getEffectiveLimitSeconds());
+        snapshot.putBoolean("enforcing", budget.enforcing);
+        snapshot.putBoolean("paused", budget.isPaused());
+        snapshot.putDouble("deadlineMs", budget.getDeadlineMs());
+        return snapshot;
+    }
+
+    /**
+     * Static version: accumulated seconds plus the open segment, if any
      */
     public static int getDailyUsageSecondsStatic(Context context) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            long startMs = prefs.getLong(KEY_TIMER_START_MS, 0);
-            if (startMs == 0) {
-                return 0;
-            }
-            long elapsedMs = System.currentTimeMillis() - startMs;
-            int elapsedSeconds = (int) (elapsedMs / 1000);
+            int elapsedSeconds = getBudgetStatic(context).getUsageSeconds(clock.currentTimeMillis());
             Log.d(TAG, "Timer elapsed: " + elapsedSeconds + "s (" + formatSeconds(elapsedSeconds) + ")");
-            return Math.max(0, elapsedSeconds);
+            return elapsedSeconds;
         } catch (Exception e) {
             Log.e(TAG, "Error calculating elapsed time", e);
             return 0;
@@ -74,15 +188,8 @@ public class ScreenTimeModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void startEnforcing(int limitSeconds, Promise promise) {
         try {
-            // Save limit and timer start to SharedPreferences
-            SharedPreferences prefs = reactContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit()
-                .putInt(KEY_LIMIT_SECONDS, limitSeconds)
-                .putBoolean(KEY_ENFORCING, true)
-                .putLong(KEY_TIMER_START_MS, System.currentTimeMillis())
-                .apply();
-
-            Log.d(TAG, "Screen time timer started: limit=" + limitSeconds + "s (" + formatSeconds(limitSeconds) + ")");
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_START_ENFORCING,
+                EnforcerClient.withInt(EnforcerProvider.EXTRA_SECONDS, limitSeconds));
             promise.resolve(true);
         } catch (Exception e) {
             Log.e(TAG, "Error starting enforcement", e);
@@ -96,13 +203,7 @@ public class ScreenTimeModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void stopEnforcing(Promise promise) {
         try {
-            SharedPreferences prefs = reactContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            prefs.edit()
-                .putBoolean(KEY_ENFORCING, false)
-                .putLong(KEY_TIMER_START_MS, 0)
-                .apply();
-
-            Log.d(TAG, "Screen time enforcement stopped");
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_STOP_ENFORCING);
             promise.resolve(true);
         } catch (Exception e) {
             Log.e(TAG, "Error stopping enforcement", e);
@@ -110,15 +211,52 @@ public class ScreenTimeModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Pause the timer, keeping the time already used
+     */
+    @ReactMethod
+    public void pauseTimer(Promise promise) {
+        try {
+            promise.resolve(EnforcerClient.command(reactContext, EnforcerProvider.METHOD_PAUSE_TIMER));
+        } catch (Exception e) {
+            Log.e(TAG, "Error pausing timer", e);
+            promise.reject("ERROR", "Failed to pause timer: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resume a paused timer; the service re-arms the deadline from the remaining budget
+     */
+    @ReactMethod
+    public void resumeTimer(Promise promise) {
+        try {
+            promise.resolve(EnforcerClient.command(reactContext, EnforcerProvider.METHOD_RESUME_TIMER));
+        } catch (Exception e) {
+            Log.e(TAG, "Error resuming timer", e);
+            promise.reject("ERROR", "Failed to resume timer: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check if the timer is paused while enforcement is on
+     */
+    @ReactMethod
+    public void isPaused(Promise promise) {
+        try {
+            promise.resolve(EnforcerClient.getBudget(reactContext).isPaused());
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking pause status", e);
+            promise.resolve(false);
+        }
+    }
+
     /**
      * Check if screen time enforcement is currently active
      */
     @ReactMethod
     public void isEnforcing(Promise promise) {
         try {
-            SharedPreferences prefs = reactContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            boolean enforcing = prefs.getBoolean(KEY_ENFORCING, false);
-            promise.resolve(enforcing);
+            promise.resolve(EnforcerClient.getBudget(reactContext).enforcing);
         } catch (Exception e) {
             Log.e(TAG, "Error checking enforcement status", e);
             promise.resolve(false);
@@ -131,12 +269,205 @@ public class ScreenTimeModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void getLimit(Promise promise) {
         try {
-            SharedPreferences prefs = reactContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            int limit = prefs.getInt(KEY_LIMIT_SECONDS, 7200); // Default 2 hours
-            promise.resolve(limit);
+            promise.resolve(EnforcerClient.getBudget(reactContext).limitSeconds);
         } catch (Exception e) {
             Log.e(TAG, "Error getting limit", e);
-            promise.resolve(7200);
+            promise.resolve(ScreenTimeBudget.DEFAULT_LIMIT_SECONDS);
+        }
+    }
+
+    /**
+     * Grant extra minutes on top of today's budget without restarting the timer
+     */
+    @ReactMethod
+    public void grantExtraTime(int minutes, Promise promise) {
+        try {
+            // The enforcer dismisses the overlay when the time was granted
+            promise.resolve(EnforcerClient.command(reactContext, EnforcerProvider.METHOD_GRANT_EXTRA_TIME,
+                EnforcerClient.withInt(EnforcerProvider.EXTRA_SECONDS, minutes * 60)));
+        } catch (Exception e) {
+            Log.e(TAG, "Error granting extra time", e);
+            promise.reject("ERROR", "Failed to grant extra time: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Set weekly lock windows, e.g. [{ days: [1, 2, 3, 4, 7], startMinute: 1260, endMinute: 420 }]
+     * Days are ISO (1 = Monday ... 7 = Sunday) and name the day the window starts.
+     */
+    @ReactMethod
+    public void setScheduleWindows(ReadableArray windows, Promise promise) {
+        try {
+            StringBuilder spec = new StringBuilder();
+            for (int i = 0; i < windows.size(); i++) {
+                ReadableMap window = windows.getMap(i);
+                ReadableArray days = window.getArray("days");
+                int daysMask = 0;
+                for (int d = 0; d < days.size(); d++) {
+                    int day = days.getInt(d);
+                    if (day >= 1 && day <= 7) {
+                        daysMask |= 1 << (day - 1);
+                    }
+                }
+                ScheduleIndex.Window parsed = new ScheduleIndex.Window(
+                    daysMask,
+                    window.getInt("startMinute"),
+                    window.getInt("endMinute")
+                );
+                if (spec.length() > 0) {
+                    spec.append(';');
+                }
+                spec.append(parsed.encode());
+            }
+
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_PUT_SETTINGS,
+                EnforcerClient.withString(KEY_SCHEDULE_WINDOWS, spec.toString()));
+
+            Log.d(TAG, "Schedule windows set: " + spec);
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting schedule windows", e);
+            promise.reject("ERROR", "Failed to set schedule windows: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Check if the current time falls inside a schedule lock window
+     */
+    @ReactMethod
+    public void isInScheduleWindow(Promise promise) {
+        try {
+            promise.resolve(EnforcerClient.command(reactContext, EnforcerProvider.METHOD_IS_IN_SCHEDULE_WINDOW));
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking schedule window", e);
+            promise.resolve(false);
+        }
+    }
+
+    /**
+     * Set how many minutes before the limit the child is warned (e.g. [15, 5, 1])
+     */
+    @ReactMethod
+    public void setWarningMinutes(ReadableArray minutes, Promise promise) {
+        try {
+            StringBuilder value = new StringBuilder();
+            for (int i = 0; i < minutes.size(); i++) {
+                int m = minutes.getInt(i);
+                if (m <= 0) {
+                    continue;
+                }
+                if (value.length() > 0) {
+                    value.append(',');
+                }
+                value.append(m);
+            }
+
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_PUT_SETTINGS,
+                EnforcerClient.withString(KEY_WARNING_MINUTES, value.toString()));
+
+            Log.d(TAG, "Warning thresholds set: [" + value + "] minutes");
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting warning thresholds", e);
+            promise.reject("ERROR", "Failed to set warning thresholds: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Set per-app policies, e.g. [{ packageName: 'com.example.game', policy: 'block' }]
+     * Policy is 'block' (always) or 'after_limit' (once the daily budget is used up).
+     * Apps not listed are allowed.
+     */
+    @ReactMethod
+    public void setAppPolicies(ReadableArray apps, Promise promise) {
+        try {
+            StringBuilder spec = new StringBuilder();
+            for (int i = 0; i < apps.size(); i++) {
+                ReadableMap app = apps.getMap(i);
+                String policy = app.getString("policy");
+                int value;
+                if ("block".equals(policy)) {
+                    value = AppPolicyTable.BLOCK;
+                } else if ("after_limit".equals(policy)) {
+                    value = AppPolicyTable.BLOCK_AFTER_LIMIT;
+                } else {
+                    continue;
+                }
+                if (spec.length() > 0) {
+                    spec.append(';');
+                }
+                spec.append(AppPolicyTable.encode(app.getString("packageName"), value));
+            }
+
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_PUT_SETTINGS,
+                EnforcerClient.withString(KEY_APP_POLICIES, spec.toString()));
+
+            Log.d(TAG, "App policies set: " + spec);
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting app policies", e);
+            promise.reject("ERROR", "Failed to set app policies: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get detection-to-block latency stats for blocked apps
+     */
+    @ReactMethod
+    public void getAppBlockLatency(Promise promise) {
+        try {
+            promise.resolve(Arguments.fromBundle(
+                EnforcerClient.call(reactContext, EnforcerProvider.METHOD_GET_APP_BLOCK_LATENCY)));
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting app block latency", e);
+            promise.reject("ERROR", "Failed to get app block latency: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get wakeups, callbacks, binder calls and CPU time per enforcement subsystem,
+     * e.g. { service_tick: { wakeups, callbacks, binderCalls, cpuMs }, ... }
+     */
+    @ReactMethod
+    public void getEnforcementStats(Promise promise) {
+        try {
+            promise.resolve(Arguments.fromBundle(
+                EnforcerClient.call(reactContext, EnforcerProvider.METHOD_GET_ENFORCEMENT_STATS)));
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting enforcement stats", e);
+            promise.reject("ERROR", "Failed to get enforcement stats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get latency percentiles in ms for limit -> lock, check -> lock, unlock and PIN verify,
+     * e.g. { limitToLock: { count, p50Ms, p90Ms, p99Ms, maxMs }, ... }
+     */
+    @ReactMethod
+    public void getLatencyStats(Promise promise) {
+        try {
+            promise.resolve(Arguments.fromBundle(
+                EnforcerClient.call(reactContext, EnforcerProvider.METHOD_GET_LATENCY_STATS)));
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting latency stats", e);
+            promise.reject("ERROR", "Failed to get latency stats: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Set the longest continuous session in minutes (0 disables the rule)
+     */
+    @ReactMethod
+    public void setMaxSessionMinutes(int minutes, Promise promise) {
+        try {
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_PUT_SETTINGS,
+                EnforcerClient.withInt(KEY_MAX_SESSION_MINUTES, Math.max(0, minutes)));
+
+            Log.d(TAG, "Max session set: " + minutes + " minutes");
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Error setting max session", e);
+            promise.reject("ERROR", "Failed to set max session: " + e.getMessage());
         }
     }
 
@@ -178,15 +509,48 @@ public class ScreenTimeModule extends ReactContextBaseJavaModule {
         }
     }
 
+    /**
+     * Check if usage access (needed to see which app is in the foreground) is granted
+     */
+    @ReactMethod
+    public void checkUsageAccessPermission(Promise promise) {
+        promise.resolve(ForegroundAppMonitor.hasUsageAccess(reactContext));
+    }
+
+    /**
+     * Request usage access (opens Settings)
+     */
+    @ReactMethod
+    public void requestUsageAccessPermission(Promise promise) {
+        try {
+            Intent intent = new Intent(Settings.ACTION_USAGE_ACCESS_SETTINGS);
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            reactContext.startActivity(intent);
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Error requesting usage access", e);
+            promise.reject("ERROR", "Failed to open usage access settings: " + e.getMessage());
+        }
+    }
+
     // ============ Helper Methods ============
+    // The static helpers below open the preferences directly, so only code in
+    // the ":enforcer" process (service, overlay, lock activity, EnforcerProvider)
+    // may call them; the React methods above go through EnforcerClient.
+
+    /**
+     * Get the budget state from SharedPreferences (static for EnforcementService)
+     */
+    public static ScreenTimeBudget getBudgetStatic(Context context) {
+        return loadBudget(getBudgetPrefs(context));
+    }
 
     /**
      * Get enforcement status from SharedPreferences (static for EnforcementService)
      */
     public static boolean isEnforcingStatic(Context context) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            return prefs.getBoolean(KEY_ENFORCING, false);
+            return getBudgetStatic(context).enforcing;
         } catch (Exception e) {
             Log.e(TAG, "Error checking enforcement status", e);
             return false;
@@ -198,12 +562,336 @@ public class ScreenTimeModule extends ReactContextBaseJavaModule {
      */
     public static int getLimitStatic(Context context) {
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-            return prefs.getInt(KEY_LIMIT_SECONDS, 7200); // Default 2 hours
+            return getBudgetStatic(context).limitSeconds;
         } catch (Exception e) {
             Log.e(TAG, "Error getting limit", e);
-            return 7200;
+            return ScreenTimeBudget.DEFAULT_LIMIT_SECONDS;
+        }
+    }
+
+    /**
+     * Get limit plus any extra time granted today (static for EnforcementService)
+     */
+    public static int getEffectiveLimitStatic(Context context) {
+        try {
+            return getBudgetStatic(context).getEffectiveLimitSeconds();
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting effective limit", e);
+            return ScreenTimeBudget.DEFAULT_LIMIT_SECONDS;
+        }
+    }
+
+    /**
+     * Add extra seconds to the remaining budget without resetting the timer.
+     * If the limit was already reached, the extra time counts from now.
+     * Returns false when screen time is not being enforced.
+     */
+    public static boolean grantExtraTimeStatic(Context context, int extraSeconds) {
+        synchronized (BUDGET_LOCK) {
+            SharedPreferences prefs = getBudgetPrefs(context);
+            ScreenTimeBudget budget = loadBudget(prefs);
+            ScreenTimeBudget granted = budget.grantExtra(extraSeconds, clock.currentTimeMillis());
+            if (granted == budget) {
+                return false;
+            }
+            saveBudget(prefs, granted);
+
+            Log.d(TAG, "Granted " + formatSeconds(extraSeconds) + " extra, budget now "
+                + formatSeconds(granted.getEffectiveLimitSeconds()));
+            return true;
+        }
+    }
+
+    /**
+     * Start a fresh budget with the timer running from now
+     */
+    public static void startEnforcingStatic(Context context, int limitSeconds) {
+        synchronized (BUDGET_LOCK) {
+            saveBudget(getBudgetPrefs(context), ScreenTimeBudget.start(limitSeconds, clock.currentTimeMillis()));
+        }
+        Log.d(TAG, "Screen time timer started: limit=" + limitSeconds + "s (" + formatSeconds(limitSeconds) + ")");
+    }
+
+    /**
+     * Store a new daily limit (clamped to the offered range) without touching
+     * enforcement or today's usage
+     */
+    public static void setLimitStatic(Context context, int limitMinutes) {
+        int limitSeconds = ScreenTimeBudget.clampLimitMinutes(limitMinutes) * 60;
+        synchronized (BUDGET_LOCK) {
+            SharedPreferences prefs = getBudgetPrefs(context);
+            saveBudget(prefs, loadBudget(prefs).withLimit(limitSeconds));
         }
+        Log.d(TAG, "Screen time limit set to " + formatSeconds(limitSeconds));
+    }
+
+    /**
+     * Whether a limit was ever stored, as opposed to the default
+     */
+    public static boolean hasLimitStatic(Context context) {
+        return getBudgetPrefs(context).contains(KEY_LIMIT_SECONDS);
+    }
+
+    /**
+     * Turn enforcement off and clear the timer (used by JS and the native unlock paths)
+     */
+    public static void stopEnforcingStatic(Context context) {
+        synchronized (BUDGET_LOCK) {
+            SharedPreferences prefs = getBudgetPrefs(context);
+            saveBudget(prefs, loadBudget(prefs).stop());
+        }
+        Log.d(TAG, "Screen time enforcement stopped");
+    }
+
+    /**
+     * Record that the parent's PIN lifted a bedtime or session lock; the
+     * enforcement service applies it to its rules (used by the native unlock paths)
+     */
+    public static void overrideRuleStatic(Context context, String ruleId) {
+        getPrefs(context).edit()
+            .putString(KEY_PIN_OVERRIDE, ruleId + ":" + clock.currentTimeMillis())
+            .apply();
+        Log.d(TAG, "PIN override for " + ruleId);
+    }
+
+    /**
+     * The last PIN override as "ruleId:timeMs", or "" (static for EnforcementService)
+     */
+    public static String getPinOverrideStatic(Context context) {
+        return getPrefs(context).getString(KEY_PIN_OVERRIDE, "");
+    }
+
+    /**
+     * Close the open timing segment into the accumulated usage.
+     * Returns false when not enforcing or already paused.
+     */
+    public static boolean pauseTimerStatic(Context context) {
+        synchronized (BUDGET_LOCK) {
+            SharedPreferences prefs = getBudgetPrefs(context);
+            ScreenTimeBudget budget = loadBudget(prefs);
+            ScreenTimeBudget paused = budget.pause(clock.currentTimeMillis());
+            if (paused == budget) {
+                return false;
+            }
+            saveBudget(prefs, paused);
+
+            Log.d(TAG, "Timer paused at " + formatSeconds((int) (paused.accumulatedMs / 1000)));
+            return true;
+        }
+    }
+
+    /**
+     * Open a new timing segment. Returns false when not enforcing or not paused.
+     */
+    public static boolean resumeTimerStatic(Context context) {
+        synchronized (BUDGET_LOCK) {
+            SharedPreferences prefs = getBudgetPrefs(context);
+            ScreenTimeBudget budget = loadBudget(prefs);
+            ScreenTimeBudget resumed = budget.resume(clock.currentTimeMillis());
+            if (resumed == budget) {
+                return false;
+            }
+            saveBudget(prefs, resumed);
+
+            Log.d(TAG, "Timer resumed");
+            return true;
+        }
+    }
+
+    /**
+     * Paused means enforcing with no open timing segment (static for EnforcementService)
+     */
+    public static boolean isPausedStatic(Context context) {
+        try {
+            return getBudgetStatic(context).isPaused();
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking pause status", e);
+            return false;
+        }
+    }
+
+    /**
+     * Get the compiled schedule index (static for EnforcementService)
+     */
+    public static ScheduleIndex getScheduleIndexStatic(Context context) {
+        try {
+            String spec = getPrefs(context).getString(KEY_SCHEDULE_WINDOWS, "");
+            synchronized (ScreenTimeModule.class) {
+                if (!spec.equals(cachedScheduleSpec)) {
+                    List<ScheduleIndex.Window> windows = new ArrayList<>();
+                    for (String part : spec.split(";")) {
+                        if (!part.isEmpty()) {
+                            windows.add(ScheduleIndex.Window.decode(part));
+                        }
+                    }
+                    cachedSchedule = ScheduleIndex.compile(windows);
+                    cachedScheduleSpec = spec;
+                }
+                return cachedSchedule;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading schedule windows", e);
+            return ScheduleIndex.EMPTY;
+        }
+    }
+
+    /**
+     * Get the per-app policy table (static for EnforcementService)
+     */
+    public static AppPolicyTable getAppPolicyTableStatic(Context context) {
+        try {
+            String spec = getPrefs(context).getString(KEY_APP_POLICIES, "");
+            synchronized (ScreenTimeModule.class) {
+                if (!spec.equals(cachedAppPoliciesSpec)) {
+                    cachedAppPolicies = AppPolicyTable.parse(spec);
+                    cachedAppPoliciesSpec = spec;
+                }
+                return cachedAppPolicies;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading app policies", e);
+            return AppPolicyTable.EMPTY;
+        }
+    }
+
+    /**
+     * Get the continuous session limit in minutes, 0 when off (static for EnforcementService)
+     */
+    public static int getMaxSessionMinutesStatic(Context context) {
+        try {
+            return getPrefs(context).getInt(KEY_MAX_SESSION_MINUTES, 0);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting max session", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Get warning thresholds in minutes from SharedPreferences (static for EnforcementService)
+     */
+    public static int[] getWarningMinutesStatic(Context context) {
+        try {
+            String value = getPrefs(context).getString(KEY_WARNING_MINUTES, DEFAULT_WARNING_MINUTES);
+            if (value == null || value.isEmpty()) {
+                return new int[0];
+            }
+            String[] parts = value.split(",");
+            int[] minutes = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                minutes[i] = Integer.parseInt(parts[i].trim());
+            }
+            return minutes;
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting warning thresholds", e);
+            return new int[0];
+        }
+    }
+
+    /**
+     * Get the wall-clock time at which the limit is reached, or 0 when not enforcing
+     */
+    public static long getDeadlineMsStatic(Context context) {
+        try {
+            return getBudgetStatic(context).getDeadlineMs();
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting deadline", e);
+            return 0;
+        }
+    }
+
+    private static ScreenTimeBudget loadBudget(SharedPreferences prefs) {
+        return new ScreenTimeBudget(
+            prefs.getInt(KEY_LIMIT_SECONDS, ScreenTimeBudget.DEFAULT_LIMIT_SECONDS),
+            prefs.getBoolean(KEY_ENFORCING, false),
+            prefs.getLong(KEY_TIMER_START_MS, 0),
+            prefs.getLong(KEY_ACCUMULATED_MS, 0),
+            prefs.getInt(KEY_BONUS_SECONDS, 0)
+        );
+    }
+
+    private static void saveBudget(SharedPreferences prefs, ScreenTimeBudget budget) {
+        if (journal != null) {
+            try {
+                journal.append(budget);
+            } catch (IOException e) {
+                // A stale journal would override this change on restart, so drop it
+                Log.e(TAG, "Error journaling budget, starting over from prefs", e);
+                journal.close();
+                journal = null;
+                journalFile.delete();
+            }
+        }
+        writeBudget(prefs, budget).apply();
+    }
+
+    private static SharedPreferences.Editor writeBudget(SharedPreferences prefs, ScreenTimeBudget budget) {
+        return prefs.edit()
+            .putInt(KEY_LIMIT_SECONDS, budget.limitSeconds)
+            .putBoolean(KEY_ENFORCING, budget.enforcing)
+            .putLong(KEY_TIMER_START_MS, budget.timerStartMs)
+            .putLong(KEY_ACCUMULATED_MS, budget.accumulatedMs)
+            .putInt(KEY_BONUS_SECONDS, budget.bonusSeconds);
+    }
+
+    public static SharedPreferences getPrefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Prefs for budget reads and writes. The first call in a process replays
+     * the journal and puts its last state back into prefs if they disagree.
+     */
+    private static SharedPreferences getBudgetPrefs(Context context) {
+        SharedPreferences prefs = getPrefs(context);
+        synchronized (BUDGET_LOCK) {
+            if (journal == null) {
+                journalFile = new File(context.getFilesDir(), JOURNAL_FILE);
+                journal = new StateJournal(journalFile, DIRECTORY_SYNC);
+                try {
+                    ScreenTimeBudget journaled = journal.recover();
+                    ScreenTimeBudget stored = loadBudget(prefs);
+                    if (journaled == null) {
+                        journal.append(stored);
+                    } else if (!sameBudget(journaled, stored)) {
+                        Log.w(TAG, "Prefs lost the last budget change, restoring it from the journal");
+                        writeBudget(prefs, journaled).commit();
+                    }
+                } catch (IOException e) {
+                    // Try again on the next call; until then prefs are all there is
+                    Log.e(TAG, "Error recovering budget journal, using prefs", e);
+                    journal.close();
+                    journal = null;
+                }
+            }
+        }
+        return prefs;
+    }
+
+    /**
+     * Replay the journal now, at process start (EnforcerProvider and EnforcementService)
+     */
+    public static void recoverBudgetStatic(Context context) {
+        getBudgetPrefs(context);
+    }
+
+    /**
+     * Forget the open journal, as when the process dies (simulation tests)
+     */
+    static void resetJournal() {
+        synchronized (BUDGET_LOCK) {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    private static boolean sameBudget(ScreenTimeBudget a, ScreenTimeBudget b) {
+        return a.limitSeconds == b.limitSeconds
+            && a.enforcing == b.enforcing
+            && a.timerStartMs == b.timerStartMs
+            && a.accumulatedMs == b.accumulatedMs
+            && a.bonusSeconds == b.bonusSeconds;
     }
 
     private static String formatSeconds(int seconds) {
@@ -0,0 +1,152 @@
+package com.kidsguard;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+
+/**
+ * Schedules the pre-limit warnings ("5 minutes left") for the screen time limit.
+ * All warning times are computed once from the enforcement deadline and posted
+ * as one-shot callbacks, so nothing wakes up between warnings.
+ *
+ * Handler delays stop while the device sleeps, so a callback may run late.
+ * One that runs after its threshold has passed is dropped rather than
+ * showing a wrong time left, possibly after the lock; EnforcementService
+ * schedules afresh from the wall clock on screen on and clock changes.
+ */
+public class ScreenTimeWarningScheduler {
+    private static final String TAG = "ScreenTimeWarnings";
+    private static final String CHANNEL_ID = "kids_guard_warnings";
+    private static final int NOTIFICATION_ID = 1002;
+    private static final long NOTIFICATION_TIMEOUT_MS = 60000; // Hide once the next minute starts
+    // How late a warning may still be shown
+    private static final long LATE_TOLERANCE_MS = 30000;
+
+    private final Context context;
+    private final Handler handler;
+    // Token used to cancel every pending warning with a single call
+    private final Object warningToken = new Object();
+
+    public ScreenTimeWarningScheduler(Context context, Handler handler) {
+        this.context = context.getApplicationContext();
+        this.handler = handler;
+        createNotificationChannel();
+    }
+
+    /**
+     * Replace any pending warnings with a fresh schedule for the given deadline.
+     * Thresholds that are already in the past are skipped.
+     */
+    public void schedule(long deadlineMs, int[] warningMinutes) {
+        cancel();
+        if (deadlineMs <= 0 || warningMinutes == null) {
+            return;
+        }
+
+        long nowMs = ScreenTimeModule.clock.currentTimeMillis();
+        long nowUptimeMs = SystemClock.uptimeMillis();
+        int scheduled = 0;
+
+        for (int minutes : warningMinutes) {
+            long fireAtMs = deadlineMs - minutes * 60000L;
+            if (minutes <= 0 || fireAtMs <= nowMs) {
+                continue;
+            }
+            handler.postAtTime(createWarningRunnable(minutes, fireAtMs), warningToken, nowUptimeMs + (fireAtMs - nowMs));
+            scheduled++;
+        }
+
+        Log.d(TAG, "Scheduled " + scheduled + " warning(s) before deadline " + deadlineMs);
+    }
+
+    /**
+     * Cancel all pending warnings and hide any warning currently shown
+     */
+    public void cancel() {
+        handler.removeCallbacksAndMessages(warningToken);
+        try {
+            NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            if (manager != null) {
+                manager.cancel(NOTIFICATION_ID);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Error cancelling warning notification", e);
+        }
+    }
+
+    private Runnable createWarningRunnable(final int minutes, final long fireAtMs) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                long lateMs = ScreenTimeModule.clock.currentTimeMillis() - fireAtMs;
+                if (lateMs > LATE_TOLERANCE_MS) {
+                    Log.d(TAG, "Dropped the " + minutes + " minute warning, " + lateMs + "ms late");
+                    return;
+                }
+                long cpuStartNs = Debug.threadCpuTimeNanos();
+                showWarning(minutes);
+                EnforcementStats.INSTANCE.recordWakeup(EnforcementStats.Source.WARNING,
+                    Debug.threadCpuTimeNanos() - cpuStartNs);
+            }
+        };
+    }
+
+    private void showWarning(int minutes) {
+        try {
+            Intent notificationIntent = new Intent(context, MainActivity.class);
+            PendingIntent pendingIntent = PendingIntent.getActivity(
+                context,
+                0,
+                notificationIntent,
+                PendingIntent.FLAG_IMMUTABLE
+            );
+
+            NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            if (manager == null) {
+                return;
+            }
+
+            manager.notify(NOTIFICATION_ID, new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setContentTitle(context.getString(R.string.screen_time_warning_title))
+                .setContentText(context.getString(R.string.screen_time_warning_text, minutes))
+                .setSmallIcon(android.R.drawable.ic_lock_lock)
+                .setContentIntent(pendingIntent)
+                .setAutoCancel(true)
+                .setTimeoutAfter(NOTIFICATION_TIMEOUT_MS)
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+                .setCategory(NotificationCompat.CATEGORY_REMINDER)
+                .build());
+            EnforcementStats.INSTANCE.recordBinderCalls(EnforcementStats.Source.WARNING, 1);
+
+            Log.d(TAG, "Warning shown: " + minutes + " minute(s) left");
+        } catch (Exception e) {
+            Log.e(TAG, "Error showing screen time warning", e);
+        }
+    }
+
+    private void createNotificationChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID,
+                "Screen Time Warnings",
+                NotificationManager.IMPORTANCE_DEFAULT
+            );
+            channel.setDescription("Warns before the screen time limit is reached");
+            channel.setShowBadge(false);
+
+            NotificationManager manager = context.getSystemService(NotificationManager.class);
+            if (manager != null) {
+                manager.createNotificationChannel(channel);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.kidsguard;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+
+/**
+ * The parent's volume and screen time settings, read from and written to
+ * the ":enforcer" process, which keeps the only copy. getAllSettings() is
+ * one binder call for everything the settings screens show.
+ */
+public class SettingsModule extends ReactContextBaseJavaModule {
+    public static final String NAME = "SettingsModule";
+    private static final String TAG = "SettingsModule";
+    private final ReactApplicationContext reactContext;
+
+    public SettingsModule(ReactApplicationContext context) {
+        super(context);
+        this.reactContext = context;
+    }
+
+    @NonNull
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * { volume: { volume, locked, isDefault }, screenTime: { limitMinutes, locked, isDefault } }
+     */
+    @ReactMethod
+    public void getAllSettings(Promise promise) {
+        try {
+            promise.resolve(Arguments.fromBundle(EnforcerClient.call(reactContext, EnforcerProvider.METHOD_GET_SETTINGS)));
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting settings", e);
+            promise.reject("ERROR", "Failed to get settings: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void saveVolumeSettings(int volume, Promise promise) {
+        try {
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_SAVE_VOLUME_SETTINGS,
+                EnforcerClient.withInt(EnforcerProvider.EXTRA_PERCENT, volume));
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Error saving volume settings", e);
+            promise.reject("ERROR", "Failed to save volume settings: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void saveScreenTimeSettings(int limitMinutes, Promise promise) {
+        try {
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_SAVE_SCREEN_TIME_SETTINGS,
+                EnforcerClient.withInt(EnforcerProvider.EXTRA_MINUTES, limitMinutes));
+            promise.resolve(true);
+        } catch (Exception e) {
+            Log.e(TAG, "Error saving screen time settings", e);
+            promise.reject("ERROR", "Failed to save screen time settings: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.kidsguard;
+
+import android.os.Build;
+import android.os.Debug;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.io.PrintWriter;
+
+/**
+ * Cold start markers. Shows up in Perfetto/systrace as the async
+ * "KidsGuard:coldStart" section (process start to first frame) with one
+ * "KidsGuard:createModule" slice per native module, and in logcat as a
+ * summary of the modules that were built before the first frame.
+ *
+ * Also records how a process started: React Native is only initialized
+ * when something asks for the ReactNativeHost (an Activity), so a restart
+ * of the sticky service alone stays lean. The time from process start to
+ * enforcement and the PSS at that point are logged and dumped for both.
+ *
+ * UI process cold starts report their first content frame and ad SDK
+ * release here (recordUiStart), so the enforcer's dump keeps their
+ * distribution across launches.
+ */
+public final class StartupTrace {
+    private static final String TAG = "StartupTrace";
+    private static final String COLD_START_SECTION = "KidsGuard:coldStart";
+    private static final int COLD_START_COOKIE = 1;
+
+    private static long appStartUptimeMs = 0;
+    private static boolean firstFrameDrawn = false;
+    private static int modulesBeforeFirstFrame = 0;
+    private static long moduleNanosBeforeFirstFrame = 0;
+
+    private static boolean reactStarted = false;
+    private static boolean reactStartedBeforeEnforcement = false;
+    private static long enforcementReadyMs = -1;
+    private static long enforcementPssKb = -1;
+
+    // UI process cold starts, in time from process start
+    public static final LatencyHistogram UI_FIRST_CONTENT_FRAME = new LatencyHistogram();
+    public static final LatencyHistogram UI_AD_RELEASE = new LatencyHistogram();
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Called first thing in Application.onCreate
+     */
+    public static void markAppStart() {
+        appStartUptimeMs = SystemClock.uptimeMillis();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(COLD_START_SECTION, COLD_START_COOKIE);
+        }
+    }
+
+    /**
+     * Called by MainApplication right before SoLoader and React Native init
+     */
+    public static void markReactStart() {
+        reactStarted = true;
+        Log.i(TAG, "React Native init " + (SystemClock.uptimeMillis() - processStartUptimeMs()) + "ms after process start");
+    }
+
+    /**
+     * Called once the service has restored state and armed its timers. Only
+     * the first call per process counts.
+     */
+    public static void onEnforcementReady() {
+        if (enforcementReadyMs >= 0) {
+            return;
+        }
+        enforcementReadyMs = SystemClock.uptimeMillis() - processStartUptimeMs();
+        reactStartedBeforeEnforcement = reactStarted;
+        enforcementPssKb = Debug.getPss();
+        Log.i(TAG, (reactStarted ? "UI" : "Service-only") + " start: enforcing " + enforcementReadyMs
+            + "ms after process start, PSS " + enforcementPssKb + "KB");
+        if (!reactStarted) {
+            // No frame follows a service-only start, and a later UI launch is not a cold start
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                Trace.endAsyncSection(COLD_START_SECTION, COLD_START_COOKIE);
+            }
+            firstFrameDrawn = true;
+        }
+    }
+
+    /**
+     * Called in the enforcer process with one UI cold start's times, in ms
+     * from that process's start
+     */
+    public static void recordUiStart(long firstContentFrameMs, long adReleaseMs) {
+        UI_FIRST_CONTENT_FRAME.recordMicros(firstContentFrameMs * 1000);
+        UI_AD_RELEASE.recordMicros(adReleaseMs * 1000);
+    }
+
+    public static void dump(PrintWriter writer, String prefix) {
+        if (enforcementReadyMs < 0) {
+            writer.println(prefix + "enforcement not started");
+        } else {
+            writer.println(prefix + "mode=" + (reactStartedBeforeEnforcement ? "ui" : "service-only")
+                + " enforcing_after=" + enforcementReadyMs + "ms"
+                + " pss_at_enforcing=" + enforcementPssKb + "KB"
+                + " react_started=" + reactStarted);
+        }
+        writer.println(prefix + "ui_first_content_frame: " + UI_FIRST_CONTENT_FRAME.summary());
+        writer.println(prefix + "ui_ad_release: " + UI_AD_RELEASE.summary());
+    }
+
+    static long processStartUptimeMs() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            return Process.getStartUptimeMillis();
+        }
+        return appStartUptimeMs;
+    }
+
+    public static void onModuleCreated(String name, long durationNs) {
+        if (!firstFrameDrawn) {
+            modulesBeforeFirstFrame++;
+            moduleNanosBeforeFirstFrame += durationNs;
+        }
+        Log.d(TAG, "Native module " + name + " created in " + (durationNs / 1000) + "us"
+            + (firstFrameDrawn ? " (after first frame)" : ""));
+    }
+
+    /**
+     * End the cold start section on the next draw of the activity's window
+     */
+    public static void watchFirstFrame(final View decorView) {
+        if (firstFrameDrawn || appStartUptimeMs == 0) {
+            return;
+        }
+        decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                if (!firstFrameDrawn) {
+                    firstFrameDrawn = true;
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                        Trace.endAsyncSection(COLD_START_SECTION, COLD_START_COOKIE);
+                    }
+                    Log.i(TAG, "First frame " + (SystemClock.uptimeMillis() - appStartUptimeMs) + "ms after start, "
+                        + modulesBeforeFirstFrame + " native module(s) built before it in "
+                        + (moduleNanosBeforeFirstFrame / 1000) + "us");
+                }
+                return true;
+            }
+        });
+    }
+}
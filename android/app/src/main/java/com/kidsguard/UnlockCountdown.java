@@ -0,0 +1,94 @@
+package com.kidsguard;
+
+import android.content.Context;
+import android.text.format.DateUtils;
+import android.view.View;
+import android.widget.TextView;
+
+/**
+ * The lock screens' "Unlocks at 07:00, in 1:23:45" line. While started it
+ * ticks once a second; owners stop it when the screen goes off or the lock
+ * goes away, so a dark screen is never woken for it. Each tick rewrites only
+ * the digits in a reused char buffer and passes that to TextView, so a lock
+ * left up for hours allocates nothing per tick.
+ */
+final class UnlockCountdown implements Runnable {
+    private static final long TICK_MS = 1000;
+    private static final long DAY_MS = 24 * 3600 * 1000L;
+
+    private final TextView view;
+    private char[] buffer = new char[0];
+    private int prefixLength = 0;
+    private long unlockTimeMs = 0;
+    private boolean running = false;
+
+    UnlockCountdown(TextView view) {
+        this.view = view;
+        view.setVisibility(View.GONE);
+    }
+
+    /**
+     * When the lock ends by itself, or 0 to hide the line (only the PIN ends it)
+     */
+    void setUnlockTimeMs(long unlockTimeMs) {
+        if (unlockTimeMs == this.unlockTimeMs) {
+            return;
+        }
+        this.unlockTimeMs = unlockTimeMs;
+        view.removeCallbacks(this);
+        if (unlockTimeMs <= 0) {
+            view.setVisibility(View.GONE);
+            return;
+        }
+
+        // The fixed part is built once per unlock time; ticks only write after it
+        Context context = view.getContext();
+        long remainingMs = unlockTimeMs - ScreenTimeModule.clock.currentTimeMillis();
+        int flags = DateUtils.FORMAT_SHOW_TIME | (remainingMs >= DAY_MS ? DateUtils.FORMAT_SHOW_WEEKDAY : 0);
+        String prefix = context.getString(R.string.screen_time_unlocks_at,
+            DateUtils.formatDateTime(context, unlockTimeMs, flags)) + ' ';
+        prefixLength = prefix.length();
+        if (buffer.length < prefixLength + CountdownChars.MAX_LENGTH) {
+            buffer = new char[prefixLength + CountdownChars.MAX_LENGTH];
+        }
+        prefix.getChars(0, prefixLength, buffer, 0);
+        view.setVisibility(View.VISIBLE);
+        if (running) {
+            run();
+        } else {
+            render();
+        }
+    }
+
+    void start() {
+        if (!running) {
+            running = true;
+            run();
+        }
+    }
+
+    void stop() {
+        running = false;
+        view.removeCallbacks(this);
+    }
+
+    @Override
+    public void run() {
+        if (!running || unlockTimeMs <= 0) {
+            return;
+        }
+        long remainingMs = render();
+        if (remainingMs > 0) {
+            // Next tick when the shown (rounded up) second changes
+            long delayMs = remainingMs % TICK_MS;
+            view.postDelayed(this, delayMs == 0 ? TICK_MS : delayMs);
+        }
+    }
+
+    private long render() {
+        long remainingMs = unlockTimeMs - ScreenTimeModule.clock.currentTimeMillis();
+        int end = CountdownChars.write(buffer, prefixLength, remainingMs);
+        view.setText(buffer, 0, end);
+        return remainingMs;
+    }
+}
@@ -1,9 +1,10 @@
 package com.kidsguard;
 
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.media.AudioManager;
-import android.database.ContentObserver;
-import android.os.Handler;
 import android.util.Log;
 
 import com.facebook.react.bridge.ReactApplicationContext;
@@ -15,32 +16,48 @@ import com.facebook.react.bridge.Arguments;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 
+/**
+ * Volume reads and one-off sets happen here; holding the volume is done by
+ * VolumePolicy in the ":enforcer" process, whose corrections come back as
+ * broadcasts and are forwarded to JS as "onVolumeEnforced".
+ */
 public class VolumeControlModule extends ReactContextBaseJavaModule {
+    public static final String NAME = "VolumeControl";
     private static final String TAG = "VolumeControlModule";
     private final ReactApplicationContext reactContext;
     private AudioManager audioManager;
-    private ContentObserver volumeObserver;
-    private int enforcedVolume = -1;
-    private boolean isEnforcing = false;
+
+    private final BroadcastReceiver volumeEnforcedReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            sendVolumeEnforcedEvent(
+                intent.getIntExtra(VolumePolicy.EXTRA_FROM, -1),
+                intent.getIntExtra(VolumePolicy.EXTRA_TO, -1)
+            );
+        }
+    };
 
     public VolumeControlModule(ReactApplicationContext context) {
         super(context);
         this.reactContext = context;
         this.audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+        ContextCompat.registerReceiver(context, volumeEnforcedReceiver,
+            new IntentFilter(VolumePolicy.ACTION_VOLUME_ENFORCED), ContextCompat.RECEIVER_NOT_EXPORTED);
     }
 
     @NonNull
     @Override
     public String getName() {
-        return "VolumeControl";
+        return NAME;
     }
 
     @ReactMethod
     public void setVolume(int volumeLevel, Promise promise) {
         try {
             int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
-            int targetVolume = (int) ((volumeLevel / 100.0) * maxVolume);
+            int targetVolume = VolumeMath.toStreamVolume(volumeLevel, maxVolume);
 
             audioManager.setStreamVolume(
                 AudioManager.STREAM_MUSIC,
@@ -61,7 +78,7 @@ public class VolumeControlModule extends ReactContextBaseJavaModule {
         try {
             int currentVolume = audioManager.getStreamVolume(AudioManager.STREAM_MUSIC);
             int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
-            int volumePercent = (int) ((currentVolume * 100.0) / maxVolume);
+            int volumePercent = VolumeMath.toPercent(currentVolume, maxVolume);
 
             Log.d(TAG, "Current volume: " + volumePercent + "% (raw: " + currentVolume + "/" + maxVolume + ")");
             promise.resolve(volumePercent);
@@ -74,38 +91,8 @@ public class VolumeControlModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void startEnforcing(int targetVolume, Promise promise) {
         try {
-            enforcedVolume = targetVolume;
-            isEnforcing = true;
-
-            // Set initial volume
-            setVolume(targetVolume, new Promise() {
-                @Override
-                public void resolve(Object value) {}
-                @Override
-                public void reject(String code, String message) {}
-                @Override
-                public void reject(String code, Throwable throwable) {}
-                @Override
-                public void reject(String code, String message, Throwable throwable) {}
-                @Override
-                public void reject(Throwable throwable) {}
-                @Override
-                public void reject(Throwable throwable, WritableMap userInfo) {}
-                @Override
-                public void reject(String code, WritableMap userInfo) {}
-                @Override
-                public void reject(String code, Throwable throwable, WritableMap userInfo) {}
-                @Override
-                public void reject(String code, String message, WritableMap userInfo) {}
-                @Override
-                public void reject(String code, String message, Throwable throwable, WritableMap userInfo) {}
-                @Override
-                public void reject(String message) {}
-            });
-
-            // Start monitoring for changes
-            startVolumeMonitoring();
-
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_START_VOLUME,
+                EnforcerClient.withInt(EnforcerProvider.EXTRA_PERCENT, targetVolume));
             Log.d(TAG, "Started enforcing volume at " + targetVolume + "%");
             promise.resolve(true);
         } catch (Exception e) {
@@ -117,10 +104,7 @@ public class VolumeControlModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void stopEnforcing(Promise promise) {
         try {
-            isEnforcing = false;
-            enforcedVolume = -1;
-            stopVolumeMonitoring();
-
+            EnforcerClient.command(reactContext, EnforcerProvider.METHOD_STOP_VOLUME);
             Log.d(TAG, "Stopped enforcing volume");
             promise.resolve(true);
         } catch (Exception e) {
@@ -131,66 +115,18 @@ public class VolumeControlModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void isEnforcingVolume(Promise promise) {
-        promise.resolve(isEnforcing);
-    }
-
-    private void startVolumeMonitoring() {
-        if (volumeObserver != null) {
-            return; // Already monitoring
-        }
-
-        volumeObserver = new ContentObserver(new Handler()) {
-            @Override
-            public void onChange(boolean selfChange) {
-                super.onChange(selfChange);
-                if (isEnforcing) {
-                    enforceVolume();
-                }
-            }
-        };
-
-        reactContext.getContentResolver().registerContentObserver(
-            android.provider.Settings.System.CONTENT_URI,
-            true,
-            volumeObserver
-        );
-
-        Log.d(TAG, "Volume monitoring started");
-    }
-
-    private void stopVolumeMonitoring() {
-        if (volumeObserver != null) {
-            reactContext.getContentResolver().unregisterContentObserver(volumeObserver);
-            volumeObserver = null;
-            Log.d(TAG, "Volume monitoring stopped");
-        }
-    }
-
-    private void enforceVolume() {
-        if (!isEnforcing || enforcedVolume == -1) {
-            return;
-        }
-
         try {
-            int currentVolume = audioManager.getStreamVolume(AudioManager.STREAM_MUSIC);
-            int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
-            int currentPercent = (int) ((currentVolume * 100.0) / maxVolume);
-
-            if (Math.abs(currentPercent - enforcedVolume) > 2) {
-                int targetVolume = (int) ((enforcedVolume / 100.0) * maxVolume);
-                audioManager.setStreamVolume(AudioManager.STREAM_MUSIC, targetVolume, 0);
-
-                Log.d(TAG, "Volume enforced: " + currentPercent + "% -> " + enforcedVolume + "%");
-
-                // Send event to JavaScript
-                sendVolumeEnforcedEvent(currentPercent, enforcedVolume);
-            }
+            promise.resolve(EnforcerClient.command(reactContext, EnforcerProvider.METHOD_IS_VOLUME_ENFORCING));
         } catch (Exception e) {
-            Log.e(TAG, "Error enforcing volume", e);
+            Log.e(TAG, "Error checking volume enforcement", e);
+            promise.resolve(false);
         }
     }
 
     private void sendVolumeEnforcedEvent(int from, int to) {
+        if (!reactContext.hasActiveReactInstance()) {
+            return;
+        }
         WritableMap params = Arguments.createMap();
         params.putInt("from", from);
         params.putInt("to", to);
@@ -203,6 +139,6 @@ public class VolumeControlModule extends ReactContextBaseJavaModule {
     @Override
     public void onCatalystInstanceDestroy() {
         super.onCatalystInstanceDestroy();
-        stopVolumeMonitoring();
+        reactContext.unregisterReceiver(volumeEnforcedReceiver);
     }
 }
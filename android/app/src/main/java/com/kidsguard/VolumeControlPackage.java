@@ -1,15 +1,25 @@
 package com.kidsguard;
 
-import com.facebook.react.ReactPackage;
+import android.os.Trace;
+
+import com.facebook.react.TurboReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 import com.facebook.react.uimanager.ViewManager;
 
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-public class VolumeControlPackage implements ReactPackage {
+/**
+ * Registers the app's native modules lazily: React only sees their names up
+ * front, and each module is constructed the first time JS uses it. Most
+ * launches only show the PIN screen, so the rest stay unbuilt.
+ */
+public class VolumeControlPackage extends TurboReactPackage {
 
     @Override
     public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
@@ -17,16 +27,61 @@ public class VolumeControlPackage implements ReactPackage {
     }
 
     @Override
-    public List<NativeModule> createNativeModules(
-            ReactApplicationContext reactContext) {
-        List<NativeModule> modules = new ArrayList<>();
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        long startNs = System.nanoTime();
+        Trace.beginSection("KidsGuard:createModule");
+        try {
+            switch (name) {
+                case VolumeControlModule.NAME:
+                    return new VolumeControlModule(reactContext);
+                case ScreenTimeModule.NAME:
+                    return new ScreenTimeModule(reactContext);
+                case EnforcementServiceModule.NAME:
+                    return new EnforcementServiceModule(reactContext);
+                case PermissionsModule.NAME:
+                    return new PermissionsModule(reactContext);
+                case PINStorageModule.NAME:
+                    return new PINStorageModule(reactContext);
+                case SettingsModule.NAME:
+                    return new SettingsModule(reactContext);
+                case AdInitModule.NAME:
+                    return new AdInitModule(reactContext);
+                default:
+                    return null;
+            }
+        } finally {
+            Trace.endSection();
+            StartupTrace.onModuleCreated(name, System.nanoTime() - startNs);
+        }
+    }
 
-        modules.add(new VolumeControlModule(reactContext));
-        modules.add(new ScreenTimeModule(reactContext));
-        modules.add(new EnforcementServiceModule(reactContext));
-        modules.add(new PermissionsModule(reactContext));
-        modules.add(new PINStorageModule(reactContext));
+    @Override
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return new ReactModuleInfoProvider() {
+            @Override
+            public Map<String, ReactModuleInfo> getReactModuleInfos() {
+                Map<String, ReactModuleInfo> infos = new HashMap<>();
+                addInfo(infos, VolumeControlModule.NAME, VolumeControlModule.class);
+                addInfo(infos, ScreenTimeModule.NAME, ScreenTimeModule.class);
+                addInfo(infos, EnforcementServiceModule.NAME, EnforcementServiceModule.class);
+                addInfo(infos, PermissionsModule.NAME, PermissionsModule.class);
+                addInfo(infos, PINStorageModule.NAME, PINStorageModule.class);
+                addInfo(infos, SettingsModule.NAME, SettingsModule.class);
+                addInfo(infos, AdInitModule.NAME, AdInitModule.class);
+                return infos;
+            }
+        };
+    }
 
-        return modules;
+    private static void addInfo(Map<String, ReactModuleInfo> infos, String name, Class<?> moduleClass) {
+        infos.put(name, new ReactModuleInfo(
+            name,
+            moduleClass.getName(),
+            false, // canOverrideExistingModule
+            false, // needsEagerInit: built on first use
+            false, // hasConstants
+            false, // isCxxModule
+            false  // isTurboModule: still a bridge module, only created lazily
+        ));
     }
 }
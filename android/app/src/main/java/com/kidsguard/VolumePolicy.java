@@ -0,0 +1,171 @@
+package com.kidsguard;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.database.ContentObserver;
+import android.media.AudioManager;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Holds the media volume at the parent's level. Lives in the ":enforcer"
+ * process and owns the stored volume settings: the parent's level (kept while
+ * unlocked) and whether it is locked, so a restarted service puts it back.
+ * Corrections are broadcast (ACTION_VOLUME_ENFORCED) for VolumeControlModule
+ * to forward to JS.
+ */
+public final class VolumePolicy {
+    private static final String TAG = "VolumePolicy";
+    private static final String PREFS_NAME = "kids_guard_volume";
+    private static final String KEY_VOLUME_PERCENT = "volume_percent";
+    private static final String KEY_LOCKED = "locked";
+
+    public static final String ACTION_VOLUME_ENFORCED = "com.kidsguard.VOLUME_ENFORCED";
+    public static final String EXTRA_FROM = "from";
+    public static final String EXTRA_TO = "to";
+
+    private static final VolumePolicy INSTANCE = new VolumePolicy();
+
+    private Context context;
+    private AudioManager audioManager;
+    private ContentObserver volumeObserver;
+    private int enforcedVolume = -1;
+
+    public static VolumePolicy getInstance() {
+        return INSTANCE;
+    }
+
+    private VolumePolicy() {
+    }
+
+    public synchronized void start(Context ctx, int targetVolume) {
+        init(ctx);
+        enforcedVolume = targetVolume;
+        getPrefs(context).edit().putInt(KEY_VOLUME_PERCENT, targetVolume).putBoolean(KEY_LOCKED, true).apply();
+
+        int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
+        audioManager.setStreamVolume(AudioManager.STREAM_MUSIC, VolumeMath.toStreamVolume(targetVolume, maxVolume), 0);
+        startVolumeMonitoring();
+        Log.d(TAG, "Started enforcing volume at " + targetVolume + "%");
+    }
+
+    public synchronized void stop(Context ctx) {
+        init(ctx);
+        enforcedVolume = -1;
+        getPrefs(context).edit().putBoolean(KEY_LOCKED, false).apply();
+        stopVolumeMonitoring();
+        Log.d(TAG, "Stopped enforcing volume");
+    }
+
+    /**
+     * Resume a stored target after the process was restarted
+     */
+    public synchronized void restore(Context ctx) {
+        SharedPreferences prefs = getPrefs(ctx);
+        if (prefs.getBoolean(KEY_LOCKED, false) && enforcedVolume == -1) {
+            start(ctx, prefs.getInt(KEY_VOLUME_PERCENT, VolumeMath.DEFAULT_PERCENT));
+        }
+    }
+
+    /**
+     * Store the parent's level; when locked, the new level is enforced at once
+     */
+    public synchronized void setStoredPercent(Context ctx, int percent) {
+        if (enforcedVolume != -1) {
+            start(ctx, percent);
+        } else {
+            getPrefs(ctx).edit().putInt(KEY_VOLUME_PERCENT, percent).apply();
+        }
+    }
+
+    /**
+     * Stored level, or -1 if the parent never set one
+     */
+    public static int getStoredPercent(Context ctx) {
+        return getPrefs(ctx).getInt(KEY_VOLUME_PERCENT, -1);
+    }
+
+    public static boolean isLockedStored(Context ctx) {
+        return getPrefs(ctx).getBoolean(KEY_LOCKED, false);
+    }
+
+    public synchronized boolean isEnforcing() {
+        return enforcedVolume != -1;
+    }
+
+    private void init(Context ctx) {
+        if (context == null) {
+            context = ctx.getApplicationContext();
+            audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+        }
+    }
+
+    private void startVolumeMonitoring() {
+        if (volumeObserver != null) {
+            return; // Already monitoring
+        }
+
+        volumeObserver = new ContentObserver(new Handler(Looper.getMainLooper())) {
+            @Override
+            public void onChange(boolean selfChange) {
+                super.onChange(selfChange);
+                long cpuStartNs = Debug.threadCpuTimeNanos();
+                enforceVolume();
+                EnforcementStats.INSTANCE.recordCallback(EnforcementStats.Source.VOLUME_OBSERVER,
+                    Debug.threadCpuTimeNanos() - cpuStartNs);
+            }
+        };
+
+        context.getContentResolver().registerContentObserver(
+            android.provider.Settings.System.CONTENT_URI,
+            true,
+            volumeObserver
+        );
+
+        Log.d(TAG, "Volume monitoring started");
+    }
+
+    private void stopVolumeMonitoring() {
+        if (volumeObserver != null) {
+            context.getContentResolver().unregisterContentObserver(volumeObserver);
+            volumeObserver = null;
+            Log.d(TAG, "Volume monitoring stopped");
+        }
+    }
+
+    private synchronized void enforceVolume() {
+        if (enforcedVolume == -1) {
+            return;
+        }
+
+        try {
+            int currentVolume = audioManager.getStreamVolume(AudioManager.STREAM_MUSIC);
+            int maxVolume = audioManager.getStreamMaxVolume(AudioManager.STREAM_MUSIC);
+            int currentPercent = VolumeMath.toPercent(currentVolume, maxVolume);
+            EnforcementStats.INSTANCE.recordBinderCalls(EnforcementStats.Source.VOLUME_OBSERVER, 2);
+
+            if (VolumeMath.needsCorrection(currentPercent, enforcedVolume)) {
+                int targetVolume = VolumeMath.toStreamVolume(enforcedVolume, maxVolume);
+                audioManager.setStreamVolume(AudioManager.STREAM_MUSIC, targetVolume, 0);
+                EnforcementStats.INSTANCE.recordBinderCalls(EnforcementStats.Source.VOLUME_OBSERVER, 1);
+
+                Log.d(TAG, "Volume enforced: " + currentPercent + "% -> " + enforcedVolume + "%");
+
+                Intent intent = new Intent(ACTION_VOLUME_ENFORCED);
+                intent.setPackage(context.getPackageName());
+                intent.putExtra(EXTRA_FROM, currentPercent);
+                intent.putExtra(EXTRA_TO, enforcedVolume);
+                context.sendBroadcast(intent);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error enforcing volume", e);
+        }
+    }
+
+    private static SharedPreferences getPrefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
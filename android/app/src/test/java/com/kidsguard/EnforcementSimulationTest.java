@@ -0,0 +1,253 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.Intent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.shadows.ShadowSettings;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Weeks of scripted use replayed against the real service on a fake clock.
+ * The weeks cross the spring DST change in Europe/Madrid (31 March 2024).
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class EnforcementSimulationTest {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Madrid");
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 3, 18); // Monday
+    private static final int DAYS = 21;
+    private static final int LIMIT_SECONDS = 2 * 3600;
+    private static final long MAX_LOCK_ERROR_MS = 1000;
+    // Per school day: the backstop tick once a minute while the limit is on (10.5h),
+    // the bedtime countdown once a second for the 10 lit minutes after 21:00 (each
+    // tick may also run a frame), and a few deadlines and warnings
+    private static final int MAX_WAKEUPS_PER_DAY = 630 + 2 * 600 + 70;
+
+    // Bedtime every night from 21:00 until 07:00
+    private static final ScheduleIndex.Window BEDTIME = new ScheduleIndex.Window(0x7F, 21 * 60, 7 * 60);
+
+    private TimeZone savedTimeZone;
+    private EnforcementSimulator sim;
+
+    @Before
+    public void setUp() {
+        savedTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone(ZONE));
+        sim = new EnforcementSimulator(at(FIRST_DAY, 0, 0));
+    }
+
+    @After
+    public void tearDown() {
+        sim.close();
+        TimeZone.setDefault(savedTimeZone);
+    }
+
+    @Test
+    public void threeWeeksOfLimitsAndBedtimeLockOnTime() {
+        List<EnforcementSimulator.LockChange> expected = new ArrayList<>();
+        sim.setScheduleWindows(BEDTIME);
+        sim.startService();
+        sim.screenOff(); // Asleep; see runSchoolDay
+        expect(expected, at(FIRST_DAY, 0, 0), true);
+
+        for (int i = 0; i < DAYS; i++) {
+            LocalDate day = FIRST_DAY.plusDays(i);
+            runSchoolDay(day, expected);
+        }
+
+        long simulatedMs = sim.now() - at(FIRST_DAY, 0, 0);
+        long errorMs = sim.maxLockErrorMs(expected);
+        assertTrue("Lock changes differ: " + sim.report(expected, simulatedMs), errorMs >= 0);
+        assertTrue("Lock error " + errorMs + "ms", errorMs <= MAX_LOCK_ERROR_MS);
+        assertTrue(sim.report(expected, simulatedMs), sim.getWakeups() <= DAYS * MAX_WAKEUPS_PER_DAY);
+    }
+
+    @Test
+    public void processDeathKeepsUsageAndLock() {
+        List<EnforcementSimulator.LockChange> expected = new ArrayList<>();
+        sim.startService();
+        sim.advanceTo(at(FIRST_DAY, 7, 30));
+        sim.startEnforcing(LIMIT_SECONDS);
+
+        // Killed before the limit: the timer keeps counting while the process is gone
+        sim.advanceTo(at(FIRST_DAY, 9, 0));
+        int usageBeforeDeath = ScreenTimeModule.getDailyUsageSecondsStatic(sim.getContext());
+        sim.killProcess(10 * 60000L);
+        assertEquals(usageBeforeDeath + 10 * 60, ScreenTimeModule.getDailyUsageSecondsStatic(sim.getContext()));
+        assertTrue(ScreenTimeModule.isEnforcingStatic(sim.getContext()));
+        assertFalse(sim.isLocked());
+
+        sim.advanceTo(at(FIRST_DAY, 9, 45));
+        expect(expected, at(FIRST_DAY, 9, 30), true);
+
+        // Killed while locked: the lock is gone until the service is back, then shown at once
+        sim.killProcess(5 * 60000L);
+        expect(expected, at(FIRST_DAY, 9, 45), false);
+        expect(expected, at(FIRST_DAY, 9, 50), true);
+        assertTrue(sim.isLocked());
+
+        sim.advanceTo(at(FIRST_DAY, 12, 0));
+        long simulatedMs = sim.now() - at(FIRST_DAY, 0, 0);
+        long errorMs = sim.maxLockErrorMs(expected);
+        assertTrue("Lock changes differ: " + sim.report(expected, simulatedMs), errorMs >= 0);
+        assertTrue("Lock error " + errorMs + "ms", errorMs <= MAX_LOCK_ERROR_MS);
+    }
+
+    @Test
+    public void bedtimeAloneWakesOnlyAtItsEdges() {
+        sim.setScheduleWindows(BEDTIME);
+        sim.startService();
+        // Screen off all week: the bedtime countdown must not tick in the dark
+        sim.screenOff();
+        sim.advanceTo(at(FIRST_DAY.plusDays(7), 0, 0));
+
+        // One wakeup to unlock and one to lock each day
+        assertEquals(14, sim.getLockChanges().size() - 1);
+        assertTrue("Wakeups: " + sim.getWakeups(), sim.getWakeups() <= 14 + 1);
+    }
+
+    @Test
+    public void bedtimeCountdownTicksOnlyWhileTheScreenIsOn() {
+        sim.setScheduleWindows(BEDTIME);
+        sim.startService();
+        assertTrue(sim.isLocked());
+        assertEquals(at(FIRST_DAY, 7, 0), LockOverlayManager.getInstance().getUnlockTimeMs());
+
+        // Once a second while the lock can be seen (each tick may also run a frame)
+        int wakeups = sim.getWakeups();
+        sim.advanceBy(60000);
+        int ticks = sim.getWakeups() - wakeups;
+        assertTrue("Ticks: " + ticks, ticks >= 59 && ticks <= 2 * 61);
+
+        sim.screenOff();
+        wakeups = sim.getWakeups();
+        sim.advanceTo(at(FIRST_DAY, 6, 59));
+        assertEquals(0, sim.getWakeups() - wakeups);
+
+        // Resumes with the screen and stops with the lock
+        sim.screenOn();
+        sim.advanceTo(at(FIRST_DAY, 7, 1));
+        assertFalse(sim.isLocked());
+        wakeups = sim.getWakeups();
+        sim.advanceTo(at(FIRST_DAY, 8, 0));
+        assertEquals(0, sim.getWakeups() - wakeups);
+    }
+
+    @Test
+    public void bedtimeFallsBackToTheLockActivityWithItsCountdown() {
+        // No overlay permission: every device lock is the lock activity
+        ShadowSettings.setCanDrawOverlays(false);
+        sim.setScheduleWindows(BEDTIME);
+        sim.startService();
+        assertFalse(sim.isLocked());
+
+        Intent started = shadowOf((Application) sim.getContext()).getNextStartedActivity();
+        assertNotNull("lock activity not started", started);
+        assertEquals(ScreenTimeLockActivity.class.getName(), started.getComponent().getClassName());
+        ActivityController<ScreenTimeLockActivity> controller =
+            Robolectric.buildActivity(ScreenTimeLockActivity.class, started).setup();
+        ScreenTimeLockActivity activity = controller.get();
+        View content = activity.findViewById(android.R.id.content);
+
+        // The daily budget is not in use, yet bedtime keeps the activity up
+        assertFalse(activity.isFinishing());
+        assertNotNull(findTextEndingWith(content, activity.getString(R.string.screen_time_bedtime_title)));
+        TextView extraTime = findTextEndingWith(content, " MIN");
+        assertNotNull(extraTime);
+        assertEquals(View.GONE, extraTime.getVisibility());
+
+        // Counts down to 07:00 and closes when bedtime ends
+        assertNotNull(findTextEndingWith(content, " 7:00:00"));
+        sim.advanceBy(1000);
+        assertNotNull(findTextEndingWith(content, " 6:59:59"));
+        sim.advanceTo(at(FIRST_DAY, 7, 0) + 1000);
+        assertTrue(activity.isFinishing());
+        controller.destroy();
+    }
+
+    /**
+     * 07:00 bedtime ends, 07:15 screen on, 07:30 parent starts a 2h limit,
+     * half an hour paused at 08:00, limit reached at 10:00, 30 min extra at
+     * 10:15, limit off at 18:00, bedtime from 21:00, screen off at 21:10
+     */
+    private void runSchoolDay(LocalDate day, List<EnforcementSimulator.LockChange> expected) {
+        expect(expected, at(day, 7, 0), false);
+        sim.advanceTo(at(day, 7, 15));
+        sim.screenOn();
+        sim.advanceTo(at(day, 7, 30));
+        sim.startEnforcing(LIMIT_SECONDS);
+
+        sim.advanceTo(at(day, 8, 0));
+        sim.pause();
+        sim.advanceTo(at(day, 8, 30));
+        sim.resume();
+
+        expect(expected, at(day, 10, 0), true);
+        sim.advanceTo(at(day, 10, 15));
+        sim.grantExtra(30 * 60);
+        expect(expected, at(day, 10, 15), false);
+
+        expect(expected, at(day, 10, 45), true);
+        sim.advanceTo(at(day, 18, 0));
+        sim.stopEnforcing();
+        expect(expected, at(day, 18, 0), false);
+
+        expect(expected, at(day, 21, 0), true);
+        sim.advanceTo(at(day, 21, 10));
+        sim.screenOff(); // Asleep until 07:15
+        sim.advanceTo(at(day.plusDays(1), 0, 0));
+    }
+
+    private static TextView findTextEndingWith(View view, String suffix) {
+        if (view instanceof TextView) {
+            CharSequence text = ((TextView) view).getText();
+            if (text != null && text.toString().endsWith(suffix)) {
+                return (TextView) view;
+            }
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                TextView found = findTextEndingWith(group.getChildAt(i), suffix);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void expect(List<EnforcementSimulator.LockChange> expected, long timeMs, boolean locked) {
+        expected.add(new EnforcementSimulator.LockChange(timeMs, locked));
+    }
+
+    private static long at(LocalDate day, int hour, int minute) {
+        return ZonedDateTime.of(day, LocalTime.of(hour, minute), ZONE).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,253 @@
+package com.kidsguard;
+
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.robolectric.Robolectric;
+import org.robolectric.android.controller.ServiceController;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowSettings;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives EnforcementService, ScreenTimeModule and LockOverlayManager through
+ * scripted days on Robolectric's paused main looper.
+ *
+ * The wall clock seen by the enforcement code is tied to the looper's uptime,
+ * so advancing time runs every posted callback at its due time and nothing
+ * else. Each distinct time the looper runs something counts as one wakeup.
+ * Lock changes are recorded with the time they happened.
+ */
+final class EnforcementSimulator {
+    /** Lock shown or removed at timeMs */
+    static final class LockChange {
+        final long timeMs;
+        final boolean locked;
+
+        LockChange(long timeMs, boolean locked) {
+            this.timeMs = timeMs;
+            this.locked = locked;
+        }
+    }
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+    private final ShadowLooper looper = shadowOf(Looper.getMainLooper());
+    private final long uptimeOffsetMs;
+    private final List<LockChange> lockChanges = new ArrayList<>();
+
+    private ServiceController<EnforcementService> service;
+    private int startId = 0;
+    private int wakeups = 0;
+    private int processDeaths = 0;
+    private boolean locked = false;
+
+    EnforcementSimulator(long startMs) {
+        uptimeOffsetMs = startMs - SystemClock.uptimeMillis();
+        ScreenTimeModule.clock = new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return uptimeOffsetMs + SystemClock.uptimeMillis();
+            }
+        };
+        ShadowSettings.setCanDrawOverlays(true);
+        LockOverlayManager.resetInstance();
+    }
+
+    /** Put the real clock back and drop the overlay */
+    void close() {
+        if (service != null) {
+            service.destroy();
+            service = null;
+        }
+        LockOverlayManager.resetInstance();
+        ScreenTimeModule.clock = Clock.SYSTEM;
+    }
+
+    long now() {
+        return ScreenTimeModule.clock.currentTimeMillis();
+    }
+
+    Context getContext() {
+        return context;
+    }
+
+    // ============ Script Actions ============
+
+    void startService() {
+        service = Robolectric.buildService(EnforcementService.class).create();
+        sendCommand(new Intent(context, EnforcementService.class).setAction(EnforcementService.ACTION_START));
+    }
+
+    /**
+     * Kill the process without warning and let START_STICKY bring the service
+     * back after restartDelayMs with a null intent. The overlay window dies
+     * with the process; only SharedPreferences survive.
+     */
+    void killProcess(long restartDelayMs) {
+        // onDestroy keeps the stored state, so it stands in for the kill and
+        // drops the old instance's callbacks and receivers
+        service.destroy();
+        service = null;
+        LockOverlayManager.resetInstance();
+        ScreenTimeModule.resetJournal();
+        processDeaths++;
+        observe();
+
+        advanceBy(restartDelayMs);
+        service = Robolectric.buildService(EnforcementService.class).create();
+        service.get().onStartCommand(null, 0, ++startId);
+        looper.idle();
+        observe();
+    }
+
+    /** Same calls as screenTimeControl.updateScreenTimeSettings(limit, true) */
+    void startEnforcing(int limitSeconds) {
+        ScreenTimeModule.startEnforcingStatic(context, limitSeconds);
+        sendCommand(new Intent(context, EnforcementService.class)
+            .setAction(EnforcementService.ACTION_UPDATE_SCREEN_TIME)
+            .putExtra(EnforcementService.EXTRA_SCREEN_TIME_ENFORCING, true));
+    }
+
+    /** Same calls as screenTimeControl.updateScreenTimeSettings(limit, false) */
+    void stopEnforcing() {
+        ScreenTimeModule.stopEnforcingStatic(context);
+        sendCommand(new Intent(context, EnforcementService.class)
+            .setAction(EnforcementService.ACTION_STOP_SCREEN_TIME));
+    }
+
+    void pause() {
+        ScreenTimeModule.pauseTimerStatic(context);
+        settle();
+    }
+
+    void resume() {
+        ScreenTimeModule.resumeTimerStatic(context);
+        settle();
+    }
+
+    void grantExtra(int seconds) {
+        ScreenTimeModule.grantExtraTimeStatic(context, seconds);
+        settle();
+    }
+
+    void setScheduleWindows(ScheduleIndex.Window... windows) {
+        StringBuilder spec = new StringBuilder();
+        for (ScheduleIndex.Window window : windows) {
+            if (spec.length() > 0) {
+                spec.append(';');
+            }
+            spec.append(window.encode());
+        }
+        ScreenTimeModule.getPrefs(context).edit()
+            .putString(ScreenTimeModule.KEY_SCHEDULE_WINDOWS, spec.toString())
+            .apply();
+        settle();
+    }
+
+    void screenOff() {
+        shadowOf(context.getSystemService(PowerManager.class)).setIsInteractive(false);
+        context.sendBroadcast(new Intent(Intent.ACTION_SCREEN_OFF));
+        settle();
+    }
+
+    void screenOn() {
+        shadowOf(context.getSystemService(PowerManager.class)).setIsInteractive(true);
+        context.sendBroadcast(new Intent(Intent.ACTION_SCREEN_ON));
+        settle();
+    }
+
+    // ============ Time ============
+
+    /**
+     * Run the looper up to targetMs, one due time at a time
+     */
+    void advanceTo(long targetMs) {
+        long targetUptimeMs = targetMs - uptimeOffsetMs;
+        while (true) {
+            Duration next = looper.getNextScheduledTaskTime();
+            long nowUptimeMs = SystemClock.uptimeMillis();
+            if (next.isZero() || next.toMillis() > targetUptimeMs) {
+                if (targetUptimeMs > nowUptimeMs) {
+                    looper.idleFor(Duration.ofMillis(targetUptimeMs - nowUptimeMs));
+                }
+                return;
+            }
+            looper.idleFor(Duration.ofMillis(Math.max(0, next.toMillis() - nowUptimeMs)));
+            wakeups++;
+            observe();
+        }
+    }
+
+    void advanceBy(long durationMs) {
+        advanceTo(now() + durationMs);
+    }
+
+    // ============ Results ============
+
+    boolean isLocked() {
+        return LockOverlayManager.getInstance().isShowing();
+    }
+
+    List<LockChange> getLockChanges() {
+        return lockChanges;
+    }
+
+    int getWakeups() {
+        return wakeups;
+    }
+
+    /**
+     * Largest distance between the recorded lock changes and the expected ones,
+     * or -1 if the sequence of changes differs
+     */
+    long maxLockErrorMs(List<LockChange> expected) {
+        if (expected.size() != lockChanges.size()) {
+            return -1;
+        }
+        long maxErrorMs = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i).locked != lockChanges.get(i).locked) {
+                return -1;
+            }
+            maxErrorMs = Math.max(maxErrorMs, Math.abs(expected.get(i).timeMs - lockChanges.get(i).timeMs));
+        }
+        return maxErrorMs;
+    }
+
+    String report(List<LockChange> expected, long simulatedMs) {
+        return "Simulated " + (simulatedMs / 3600000) + "h: "
+            + lockChanges.size() + " lock changes (expected " + expected.size() + "), "
+            + "max error " + maxLockErrorMs(expected) + "ms, "
+            + wakeups + " wakeups, "
+            + processDeaths + " process deaths";
+    }
+
+    private void sendCommand(Intent intent) {
+        service.get().onStartCommand(intent, 0, ++startId);
+        settle();
+    }
+
+    /** Run what the last action posted for now, then record any lock change */
+    private void settle() {
+        looper.idle();
+        observe();
+    }
+
+    private void observe() {
+        boolean nowLocked = isLocked();
+        if (nowLocked != locked) {
+            locked = nowLocked;
+            lockChanges.add(new LockChange(now(), nowLocked));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+import android.content.Context;
+import android.graphics.PixelFormat;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+import android.widget.ScrollView;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+import org.robolectric.shadows.ShadowSettings;
+
+/**
+ * Overdraw guard for the lock screens, which can stay up for hours. Every
+ * pixel should be painted by one opaque full-screen background plus at most
+ * one card or button over it (GPU overdraw's "1x"), and no container should
+ * exist just to hold a single child.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class LockOverlayRenderingTest {
+    private static final int MAX_BACKGROUND_LAYERS = 2;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        ShadowSettings.setCanDrawOverlays(true);
+        LockOverlayManager.resetInstance();
+    }
+
+    @After
+    public void tearDown() {
+        LockOverlayManager.resetInstance();
+    }
+
+    @Test
+    public void deviceLockOverlayIsOpaqueAndFlat() {
+        LockOverlayManager.getInstance().showLockScreen(context);
+        assertOverlayRendersCheaply(LockOverlayManager.getInstance().getOverlayView());
+    }
+
+    @Test
+    public void appBlockOverlayIsOpaqueAndFlat() {
+        assertTrue(LockOverlayManager.getInstance().showAppBlockScreen(context, "com.example.game"));
+        assertOverlayRendersCheaply(LockOverlayManager.getInstance().getOverlayView());
+    }
+
+    @Test
+    public void lockActivityIsFlat() {
+        ScreenTimeLockActivity activity = Robolectric.buildActivity(ScreenTimeLockActivity.class).create().get();
+        assertEquals(PixelFormat.OPAQUE, activity.getWindow().getDecorView().getBackground().getOpacity());
+
+        // The window background is the first layer
+        ViewGroup content = activity.findViewById(android.R.id.content);
+        assertEquals(1, content.getChildCount());
+        assertFlat(content.getChildAt(0), 1);
+    }
+
+    private static void assertOverlayRendersCheaply(View root) {
+        assertNotNull("overlay not shown", root);
+        WindowManager.LayoutParams params = (WindowManager.LayoutParams) root.getLayoutParams();
+        assertEquals(PixelFormat.OPAQUE, params.format);
+        assertNotNull("root must fill the window", root.getBackground());
+        assertEquals(PixelFormat.OPAQUE, root.getBackground().getOpacity());
+        assertFlat(root, 0);
+    }
+
+    /**
+     * Backgrounds stacked under each view stay within MAX_BACKGROUND_LAYERS,
+     * and only a ScrollView (which takes exactly one child) may wrap a single view
+     */
+    private static void assertFlat(View view, int layersBelow) {
+        int layers = layersBelow + (view.getBackground() != null ? 1 : 0);
+        assertTrue(view + " is drawn over " + layersBelow + " backgrounds", layers <= MAX_BACKGROUND_LAYERS);
+        if (!(view instanceof ViewGroup)) {
+            return;
+        }
+        ViewGroup group = (ViewGroup) view;
+        if (!(group instanceof ScrollView)) {
+            assertTrue(group + " is a redundant parent", group.getChildCount() > 1);
+        }
+        for (int i = 0; i < group.getChildCount(); i++) {
+            assertFlat(group.getChildAt(i), layers);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.kidsguard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Usage and limit checks, as run by getDailyUsageSecondsStatic, the budget
+ * rule and the 60s poll.
+ */
+@State(Scope.Thread)
+public class BudgetBenchmark {
+    private static final long T0 = 1704700800000L;
+
+    private ScreenTimeBudget running;
+    private ScreenTimeBudget paused;
+    // Stands in for the SharedPreferences map the adapter reads on every call
+    private final Map<String, Object> prefs = new HashMap<>();
+    private long nowMs;
+
+    @Setup
+    public void setUp() {
+        running = ScreenTimeBudget.start(7200, T0).grantExtra(900, T0 + 1000);
+        paused = running.pause(T0 + 45 * 60000L);
+        nowMs = T0 + 90 * 60000L;
+
+        prefs.put("limit_seconds", running.limitSeconds);
+        prefs.put("enforcing", running.enforcing);
+        prefs.put("timer_start_ms", running.timerStartMs);
+        prefs.put("accumulated_ms", running.accumulatedMs);
+        prefs.put("bonus_seconds", running.bonusSeconds);
+    }
+
+    @Benchmark
+    public int usageSecondsRunning() {
+        return running.getUsageSeconds(nowMs);
+    }
+
+    @Benchmark
+    public int usageSecondsPaused() {
+        return paused.getUsageSeconds(nowMs);
+    }
+
+    @Benchmark
+    public boolean isExceeded() {
+        return running.isExceeded(nowMs);
+    }
+
+    @Benchmark
+    public long deadlineMs() {
+        return running.getDeadlineMs();
+    }
+
+    /**
+     * The adapter path: load the stored fields into a budget, then check it
+     */
+    @Benchmark
+    public boolean loadAndCheck() {
+        ScreenTimeBudget budget = new ScreenTimeBudget(
+            (Integer) prefs.get("limit_seconds"),
+            (Boolean) prefs.get("enforcing"),
+            (Long) prefs.get("timer_start_ms"),
+            (Long) prefs.get("accumulated_ms"),
+            (Integer) prefs.get("bonus_seconds")
+        );
+        return budget.isExceeded(nowMs);
+    }
+
+    @Benchmark
+    public ScreenTimeBudget grantExtra() {
+        return running.grantExtra(900, nowMs);
+    }
+}
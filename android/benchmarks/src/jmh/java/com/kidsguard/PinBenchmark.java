@@ -0,0 +1,32 @@
+package com.kidsguard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * PIN comparison as in PINStorageHelper.verifyPIN. Right and wrong PINs
+ * should take the same time.
+ */
+@State(Scope.Thread)
+public class PinBenchmark {
+    private String storedPin = "482916";
+    private String correctPin = new String("482916");
+    private String wrongFirstDigit = "582916";
+    private String wrongLastDigit = "482917";
+
+    @Benchmark
+    public boolean correct() {
+        return PinCheck.matches(storedPin, correctPin);
+    }
+
+    @Benchmark
+    public boolean wrongFirstDigit() {
+        return PinCheck.matches(storedPin, wrongFirstDigit);
+    }
+
+    @Benchmark
+    public boolean wrongLastDigit() {
+        return PinCheck.matches(storedPin, wrongLastDigit);
+    }
+}
@@ -0,0 +1,112 @@
+package com.kidsguard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rule evaluation, bedtime lookups and per-app policy lookups. The rule count
+ * is a parameter: re-evaluating one rule should cost the same at 10 or 1000.
+ */
+@State(Scope.Thread)
+public class PolicyBenchmark {
+    private static final long T0 = 1704700800000L;
+
+    @Param({"10", "100", "1000"})
+    public int ruleCount;
+
+    private PolicyEvaluator evaluator;
+    private ScheduleIndex schedule;
+    private ZoneId zone;
+    private AppPolicyTable apps;
+    private String blockedPackage;
+    private String allowedPackage;
+    private long nowMs;
+
+    /** Deadline moves forward on every evaluation, like a running budget */
+    private static final class MovingRule implements PolicyEvaluator.Rule {
+        private final String id;
+        private long deadlineMs;
+
+        MovingRule(String id, long deadlineMs) {
+            this.id = id;
+            this.deadlineMs = deadlineMs;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public boolean isViolated(long nowMs) {
+            return nowMs >= deadlineMs;
+        }
+
+        @Override
+        public long nextDeadlineMs(long nowMs) {
+            deadlineMs++;
+            return deadlineMs;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        nowMs = T0;
+        evaluator = new PolicyEvaluator(null);
+        for (int i = 0; i < ruleCount; i++) {
+            evaluator.putRule(new MovingRule("rule-" + i, T0 + (i + 1) * 60000L), nowMs);
+        }
+
+        schedule = ScheduleIndex.compile(Arrays.asList(
+            new ScheduleIndex.Window(0x4F, 21 * 60, 7 * 60),
+            new ScheduleIndex.Window(0x1F, 8 * 60 + 30, 15 * 60)
+        ));
+        zone = ZoneId.of("Europe/Madrid");
+
+        StringBuilder spec = new StringBuilder();
+        List<String> packages = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            String packageName = "com.example.app" + i;
+            packages.add(packageName);
+            spec.append(AppPolicyTable.encode(packageName, i % 2 == 0 ? AppPolicyTable.BLOCK : AppPolicyTable.BLOCK_AFTER_LIMIT)).append(';');
+        }
+        apps = AppPolicyTable.parse(spec.toString());
+        // Fresh instances interned, as ForegroundAppMonitor hands them over
+        blockedPackage = new String(packages.get(packages.size() / 2)).intern();
+        allowedPackage = "com.android.launcher3";
+    }
+
+    @Benchmark
+    public long reevaluateOneRule() {
+        evaluator.reevaluate("rule-0", nowMs);
+        return evaluator.nextDeadlineMs();
+    }
+
+    @Benchmark
+    public boolean scheduleIsLocked() {
+        return schedule.isLockedAt(nowMs, zone);
+    }
+
+    @Benchmark
+    public long scheduleNextTransition() {
+        return schedule.nextTransitionMs(nowMs, zone);
+    }
+
+    @Benchmark
+    public int appLookupBlocked() {
+        return apps.lookup(blockedPackage);
+    }
+
+    @Benchmark
+    public int appLookupAllowed() {
+        return apps.lookup(allowedPackage);
+    }
+}
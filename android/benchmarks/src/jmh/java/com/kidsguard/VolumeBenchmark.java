@@ -0,0 +1,25 @@
+package com.kidsguard;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Volume maths as in VolumeControlModule.enforceVolume, which runs on every
+ * settings change while a volume is enforced.
+ */
+@State(Scope.Thread)
+public class VolumeBenchmark {
+    private int maxVolume = 15;
+    private int currentVolume = 11;
+    private int enforcedPercent = 40;
+
+    @Benchmark
+    public int enforceCheck() {
+        int currentPercent = VolumeMath.toPercent(currentVolume, maxVolume);
+        if (VolumeMath.needsCorrection(currentPercent, enforcedPercent)) {
+            return VolumeMath.toStreamVolume(enforcedPercent, maxVolume);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,83 @@
+package com.kidsguard;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-app policies ("block always" or "block once the daily budget is used up"),
+ * built once per configuration change into a pre-sized hash table.
+ *
+ * Keys are interned so every table and the monitor share one instance per
+ * package name, and a lookup costs one cached hashCode plus an identity or
+ * short equals check. Lookups run on every foreground change.
+ */
+public final class AppPolicyTable {
+    public static final int ALLOW = 0;
+    public static final int BLOCK = 1;
+    public static final int BLOCK_AFTER_LIMIT = 2;
+
+    public static final AppPolicyTable EMPTY = new AppPolicyTable(new HashMap<String, Integer>(), false);
+
+    private final Map<String, Integer> policies;
+    private final boolean hasLimitedApps;
+
+    private AppPolicyTable(Map<String, Integer> policies, boolean hasLimitedApps) {
+        this.policies = policies;
+        this.hasLimitedApps = hasLimitedApps;
+    }
+
+    /**
+     * Parse the stored "package=policy;package=policy" form
+     */
+    public static AppPolicyTable parse(String spec) {
+        if (spec == null || spec.isEmpty()) {
+            return EMPTY;
+        }
+
+        String[] parts = spec.split(";");
+        // Sized so the table never rehashes at the default load factor
+        Map<String, Integer> policies = new HashMap<>(parts.length * 4 / 3 + 1);
+        boolean hasLimitedApps = false;
+        for (String part : parts) {
+            int separator = part.lastIndexOf('=');
+            if (separator <= 0) {
+                continue;
+            }
+            int policy = Integer.parseInt(part.substring(separator + 1).trim());
+            if (policy != BLOCK && policy != BLOCK_AFTER_LIMIT) {
+                continue;
+            }
+            policies.put(part.substring(0, separator).trim().intern(), policy);
+            hasLimitedApps |= policy == BLOCK_AFTER_LIMIT;
+        }
+        return policies.isEmpty() ? EMPTY : new AppPolicyTable(policies, hasLimitedApps);
+    }
+
+    public static String encode(String packageName, int policy) {
+        return packageName + "=" + policy;
+    }
+
+    public int lookup(String packageName) {
+        if (packageName == null) {
+            return ALLOW;
+        }
+        Integer policy = policies.get(packageName);
+        return policy == null ? ALLOW : policy;
+    }
+
+    public boolean isEmpty() {
+        return policies.isEmpty();
+    }
+
+    /**
+     * Whether some apps are only blocked after the budget. In that case the budget
+     * blocks those apps instead of locking the whole device.
+     */
+    public boolean hasLimitedApps() {
+        return hasLimitedApps;
+    }
+
+    public int size() {
+        return policies.size();
+    }
+}
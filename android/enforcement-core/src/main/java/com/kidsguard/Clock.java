@@ -0,0 +1,10 @@
+package com.kidsguard;
+
+/**
+ * Wall-clock source for the enforcement logic, so it can run against a fake clock
+ */
+public interface Clock {
+    Clock SYSTEM = System::currentTimeMillis;
+
+    long currentTimeMillis();
+}
@@ -0,0 +1,48 @@
+package com.kidsguard;
+
+/**
+ * Writes a remaining time as h:mm:ss straight into a char buffer, so a
+ * countdown that ticks every second for hours allocates nothing per tick.
+ */
+public final class CountdownChars {
+    // Longest output: 13 hour digits for Long.MAX_VALUE ms, then :mm:ss
+    public static final int MAX_LENGTH = 20;
+
+    private CountdownChars() {
+    }
+
+    /**
+     * Whole seconds left, rounded up so 0:00:00 shows only once the time is up
+     */
+    public static long remainingSeconds(long remainingMs) {
+        return remainingMs <= 0 ? 0 : (remainingMs + 999) / 1000;
+    }
+
+    /**
+     * Write remainingMs as h:mm:ss at offset; returns the index after the last char
+     */
+    public static int write(char[] buffer, int offset, long remainingMs) {
+        long seconds = remainingSeconds(remainingMs);
+        long hours = seconds / 3600;
+        int minutes = (int) (seconds % 3600 / 60);
+        int secs = (int) (seconds % 60);
+
+        // Hours digits, most significant first
+        int digits = 1;
+        for (long rest = hours / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = offset + digits;
+        for (int i = end - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + hours % 10);
+            hours /= 10;
+        }
+        buffer[end++] = ':';
+        buffer[end++] = (char) ('0' + minutes / 10);
+        buffer[end++] = (char) ('0' + minutes % 10);
+        buffer[end++] = ':';
+        buffer[end++] = (char) ('0' + secs / 10);
+        buffer[end++] = (char) ('0' + secs % 10);
+        return end;
+    }
+}
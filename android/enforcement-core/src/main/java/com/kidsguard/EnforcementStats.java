@@ -0,0 +1,105 @@
+package com.kidsguard;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Wakeups, callbacks, binder calls and CPU time per enforcement subsystem,
+ * so field reports can say what the app costs in battery.
+ *
+ * A wakeup is a timer callback (the device had to run us at that time); a
+ * callback is any run, timer or event. Counters are lock-free and recording
+ * does not allocate, so the hot paths can record on every run.
+ */
+public final class EnforcementStats {
+    public enum Source {
+        SERVICE_TICK("service_tick"),
+        POLICY_TIMER("policy_timer"),
+        RELAUNCH_POLL("relaunch_poll"),
+        APP_MONITOR_POLL("app_monitor_poll"),
+        VOLUME_OBSERVER("volume_observer"),
+        NOTIFICATION_REBUILD("notification_rebuild"),
+        WARNING("warning");
+
+        public final String key;
+
+        Source(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final Source[] SOURCES = Source.values();
+    private static final int WAKEUPS = 0;
+    private static final int CALLBACKS = 1;
+    private static final int BINDER_CALLS = 2;
+    private static final int CPU_NANOS = 3;
+    private static final int FIELDS = 4;
+
+    public static final EnforcementStats INSTANCE = new EnforcementStats();
+
+    private final AtomicLongArray counters = new AtomicLongArray(SOURCES.length * FIELDS);
+
+    /**
+     * A timer callback ran and used cpuNanos of thread CPU time
+     */
+    public void recordWakeup(Source source, long cpuNanos) {
+        counters.incrementAndGet(source.ordinal() * FIELDS + WAKEUPS);
+        recordCallback(source, cpuNanos);
+    }
+
+    /**
+     * An event callback ran and used cpuNanos of thread CPU time.
+     * Negative times (no CPU clock on this device) only count the call.
+     */
+    public void recordCallback(Source source, long cpuNanos) {
+        int base = source.ordinal() * FIELDS;
+        counters.incrementAndGet(base + CALLBACKS);
+        if (cpuNanos > 0) {
+            counters.addAndGet(base + CPU_NANOS, cpuNanos);
+        }
+    }
+
+    public void recordBinderCalls(Source source, int calls) {
+        counters.addAndGet(source.ordinal() * FIELDS + BINDER_CALLS, calls);
+    }
+
+    public long getWakeups(Source source) {
+        return counters.get(source.ordinal() * FIELDS + WAKEUPS);
+    }
+
+    public long getCallbacks(Source source) {
+        return counters.get(source.ordinal() * FIELDS + CALLBACKS);
+    }
+
+    public long getBinderCalls(Source source) {
+        return counters.get(source.ordinal() * FIELDS + BINDER_CALLS);
+    }
+
+    public long getCpuNanos(Source source) {
+        return counters.get(source.ordinal() * FIELDS + CPU_NANOS);
+    }
+
+    public void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /**
+     * One line per subsystem, for the service's dump()
+     */
+    public void dump(PrintWriter writer, String prefix) {
+        long totalWakeups = 0;
+        long totalCpuNanos = 0;
+        for (Source source : SOURCES) {
+            writer.println(prefix + source.key
+                + ": wakeups=" + getWakeups(source)
+                + " callbacks=" + getCallbacks(source)
+                + " binder=" + getBinderCalls(source)
+                + " cpu=" + (getCpuNanos(source) / 1000000) + "ms");
+            totalWakeups += getWakeups(source);
+            totalCpuNanos += getCpuNanos(source);
+        }
+        writer.println(prefix + "total: wakeups=" + totalWakeups + " cpu=" + (totalCpuNanos / 1000000) + "ms");
+    }
+}
@@ -0,0 +1,105 @@
+package com.kidsguard;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket latency histogram in microseconds, in the style of HdrHistogram.
+ *
+ * Values below 8us get a bucket each; above that every power of two is split
+ * into 8 buckets, so a percentile is within 12.5% of the true value. Buckets
+ * are preallocated and lock-free, so recording never allocates.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40; // ~12 days in microseconds
+    private static final int BUCKETS = SUB_BUCKETS * (MAX_EXPONENT - SUB_BUCKET_BITS + 2);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(bucketOf(value));
+        total.incrementAndGet();
+        long seen = max.get();
+        while (value > seen && !max.compareAndSet(seen, value)) {
+            seen = max.get();
+        }
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100), capped at
+     * the largest value seen, or 0 when nothing was recorded
+     */
+    public long getPercentileMicros(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * e.g. "n=12 p50=1.4ms p90=2.1ms p99=9.8ms max=9.8ms"
+     */
+    public String summary() {
+        return "n=" + getCount()
+            + " p50=" + formatMicros(getPercentileMicros(50))
+            + " p90=" + formatMicros(getPercentileMicros(90))
+            + " p99=" + formatMicros(getPercentileMicros(99))
+            + " max=" + formatMicros(getMaxMicros());
+    }
+
+    public static String formatMicros(long micros) {
+        if (micros < 1000) {
+            return micros + "us";
+        }
+        return (micros / 1000) + "." + (micros % 1000 / 100) + "ms";
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int index = SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long low = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,115 @@
+package com.kidsguard;
+
+/**
+ * What the lock overlay is doing and what the parent PIN does in each mode.
+ *
+ * A device lock replaces an app block. An app block is skipped for the app
+ * the parent allowed with the PIN until another app comes to the foreground.
+ * On a device lock the PIN acts on the rule holding it, so rules stacked
+ * behind that one (the daily budget behind bedtime) keep running.
+ */
+public final class LockState {
+    public enum Mode {
+        UNLOCKED,
+        DEVICE_LOCKED,
+        APP_BLOCKED
+    }
+
+    /** What a correct PIN on the lock screen should do */
+    public enum PinAction {
+        // The daily budget holds the lock: stop enforcing it
+        STOP_ENFORCING,
+        // Bedtime holds the lock: lift it for a while, the budget keeps running
+        SUPPRESS_RULE,
+        // The session limit holds the lock: start a new session
+        RESTART_SESSION,
+        ALLOW_APP
+    }
+
+    private Mode mode = Mode.UNLOCKED;
+    private String blockedPackage;
+    private String allowedPackage;
+    // PolicyRules id of the rule that needs the device locked; read from other threads
+    private volatile String deviceLockRule;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Package being blocked, or null unless in APP_BLOCKED
+     */
+    public String getBlockedPackage() {
+        return blockedPackage;
+    }
+
+    /**
+     * Which rule needs the device locked, or null. Kept while unlocked too:
+     * it is set before a lock is shown and outlives a lock that failed to show.
+     */
+    public void setDeviceLockRule(String ruleId) {
+        this.deviceLockRule = ruleId;
+    }
+
+    public String getDeviceLockRule() {
+        return deviceLockRule;
+    }
+
+    /**
+     * Returns false when the device is already locked
+     */
+    public boolean lockDevice() {
+        if (mode == Mode.DEVICE_LOCKED) {
+            return false;
+        }
+        mode = Mode.DEVICE_LOCKED;
+        blockedPackage = null;
+        return true;
+    }
+
+    /**
+     * Returns false when something is already shown or the app is allowed
+     */
+    public boolean blockApp(String packageName) {
+        if (mode != Mode.UNLOCKED || packageName.equals(allowedPackage)) {
+            return false;
+        }
+        mode = Mode.APP_BLOCKED;
+        blockedPackage = packageName;
+        return true;
+    }
+
+    public void onForegroundAppChanged(String packageName) {
+        if (allowedPackage != null && !allowedPackage.equals(packageName)) {
+            allowedPackage = null;
+        }
+    }
+
+    /**
+     * Correct PIN entered: say what the caller must do for the rule holding
+     * the lock. SUPPRESS_RULE and RESTART_SESSION leave a device lock in
+     * place, since another rule may take it over; it is dismissed once no
+     * rule needs it. A lock without a rule is the budget's.
+     */
+    public PinAction onPinAccepted() {
+        if (mode == Mode.APP_BLOCKED) {
+            allowedPackage = blockedPackage;
+            unlock();
+            return PinAction.ALLOW_APP;
+        }
+        String rule = deviceLockRule;
+        if (PolicyRules.SCHEDULE_ID.equals(rule)) {
+            return PinAction.SUPPRESS_RULE;
+        }
+        if (PolicyRules.SESSION_ID.equals(rule)) {
+            return PinAction.RESTART_SESSION;
+        }
+        unlock();
+        return PinAction.STOP_ENFORCING;
+    }
+
+    public void unlock() {
+        mode = Mode.UNLOCKED;
+        blockedPackage = null;
+    }
+}
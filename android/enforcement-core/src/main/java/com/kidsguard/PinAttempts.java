@@ -0,0 +1,121 @@
+package com.kidsguard;
+
+/**
+ * Failed PIN attempt accounting shared by every unlock path.
+ *
+ * From FREE_ATTEMPTS failures on, each wrong PIN locks entry for
+ * 2^(failures / FREE_ATTEMPTS) minutes, so lockouts double every
+ * FREE_ATTEMPTS failures up to 2^MAX_DOUBLINGS minutes, until a correct PIN
+ * resets the count. The cap stays short because the parent shares the
+ * lockout: a child guessing must not keep them out for hours. While locked
+ * out, attempts are refused without comparing the PIN. The whole state packs
+ * into one long (toRecord) so it persists as a single value.
+ *
+ * Times are elapsed realtime, not wall clock, so changing the clock neither
+ * skips nor stretches a lockout. Elapsed realtime restarts at boot, so a
+ * restored lockout is started over (restartIfRebooted) rather than ending
+ * early or lasting until the new boot catches up with the old one.
+ */
+public final class PinAttempts {
+    public static final int FREE_ATTEMPTS = 5;
+    private static final long BASE_LOCKOUT_MS = 60000;
+    // 2^3 minutes
+    private static final int MAX_DOUBLINGS = 3;
+    private static final int FAILURE_BITS = 16;
+    private static final long MAX_FAILURES = (1L << FAILURE_BITS) - 1;
+    // The record keeps the lockout end in whole seconds
+    private static final long RECORD_UNIT_MS = 1000;
+
+    /** What an attempt did */
+    public enum Outcome {
+        ACCEPTED,
+        REJECTED,
+        // Rejected, and it started a lockout
+        LOCKED_OUT,
+        // Refused without checking the PIN
+        REFUSED
+    }
+
+    private int failures;
+    private long lockoutUntilMs;
+
+    public PinAttempts() {
+        this(0, 0);
+    }
+
+    private PinAttempts(int failures, long lockoutUntilMs) {
+        this.failures = failures;
+        this.lockoutUntilMs = lockoutUntilMs;
+    }
+
+    /**
+     * Time left before another attempt is allowed, 0 if none
+     */
+    public long getLockoutRemainingMs(long elapsedMs) {
+        return Math.max(0, lockoutUntilMs - elapsedMs);
+    }
+
+    /**
+     * Start a lockout over if it ends further ahead than its own length,
+     * which only happens when it was set before a reboot. Returns whether it
+     * moved, so the caller can persist it.
+     */
+    public boolean restartIfRebooted(long elapsedMs) {
+        long lockoutMs = getLockoutMs(failures);
+        // Rounding up to the record unit may push it that far past its length
+        if (lockoutUntilMs - elapsedMs <= lockoutMs + RECORD_UNIT_MS) {
+            return false;
+        }
+        lockoutUntilMs = elapsedMs + lockoutMs;
+        return true;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Whether the PIN may be checked at all; REFUSED callers must not compare it
+     */
+    public boolean mayAttempt(long elapsedMs) {
+        return getLockoutRemainingMs(elapsedMs) == 0;
+    }
+
+    /**
+     * Account for a checked attempt
+     */
+    public Outcome record(boolean matched, long elapsedMs) {
+        if (matched) {
+            failures = 0;
+            lockoutUntilMs = 0;
+            return Outcome.ACCEPTED;
+        }
+        if (failures < MAX_FAILURES) {
+            failures++;
+        }
+        if (failures < FREE_ATTEMPTS) {
+            return Outcome.REJECTED;
+        }
+        lockoutUntilMs = elapsedMs + getLockoutMs(failures);
+        return Outcome.LOCKED_OUT;
+    }
+
+    private static long getLockoutMs(int failures) {
+        if (failures < FREE_ATTEMPTS) {
+            return 0;
+        }
+        return BASE_LOCKOUT_MS << Math.min(MAX_DOUBLINGS, failures / FREE_ATTEMPTS);
+    }
+
+    /**
+     * Lockout end in whole seconds above the failure count
+     */
+    public long toRecord() {
+        long lockoutUntilSeconds = (lockoutUntilMs + RECORD_UNIT_MS - 1) / RECORD_UNIT_MS;
+        return (lockoutUntilSeconds << FAILURE_BITS) | failures;
+    }
+
+    public static PinAttempts fromRecord(long record) {
+        return new PinAttempts((int) (record & MAX_FAILURES), (record >>> FAILURE_BITS) * RECORD_UNIT_MS);
+    }
+}
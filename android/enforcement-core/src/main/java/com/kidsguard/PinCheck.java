@@ -0,0 +1,24 @@
+package com.kidsguard;
+
+/**
+ * PIN comparison used by every unlock path
+ */
+public final class PinCheck {
+    private PinCheck() {
+    }
+
+    /**
+     * Constant-time for equal lengths, so timing does not reveal how many
+     * leading digits were right. Allocation-free.
+     */
+    public static boolean matches(String storedPin, String enteredPin) {
+        if (storedPin == null || enteredPin == null || storedPin.length() != enteredPin.length()) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < storedPin.length(); i++) {
+            diff |= storedPin.charAt(i) ^ enteredPin.charAt(i);
+        }
+        return diff == 0;
+    }
+}
@@ -0,0 +1,270 @@
+package com.kidsguard;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Evaluates several concurrent limits (daily budget, continuous session,
+ * bedtime, ...) by keeping each rule's next deadline in a priority queue.
+ *
+ * Only the earliest deadline needs a timer. When it fires, just the rules
+ * whose deadline has passed are re-evaluated, so the cost of a wakeup does
+ * not grow with the number of rules.
+ *
+ * A violated rule can be suppressed (bedtime lifted with the parent's PIN):
+ * it counts as cleared until its next deadline or for a bounded time, and
+ * the end of the suppression is queued like any other deadline.
+ */
+public final class PolicyEvaluator {
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    // Rule deadlines clearTimeMs() follows before giving up
+    private static final int MAX_CLEAR_STEPS = 64;
+
+    /**
+     * A single limit. Implementations must be cheap to evaluate and must
+     * report when their verdict can next change.
+     */
+    public interface Rule {
+        String getId();
+
+        /** Whether the rule is violated (the device should be locked) at nowMs */
+        boolean isViolated(long nowMs);
+
+        /** Next instant after nowMs at which isViolated may change, or NO_DEADLINE */
+        long nextDeadlineMs(long nowMs);
+    }
+
+    /** Notified when a rule starts or stops being violated */
+    public interface Listener {
+        void onViolationChanged(Rule rule, boolean violated);
+    }
+
+    private static final class Entry {
+        final Rule rule;
+        long deadlineMs = NO_DEADLINE;
+        boolean violated;
+        // Counts as cleared from suppressedFromMs until suppressedUntilMs; 0 when not suppressed
+        long suppressedFromMs;
+        long suppressedUntilMs;
+        // Bumped on every re-evaluation; queued nodes with an older version are stale
+        int version;
+
+        Entry(Rule rule) {
+            this.rule = rule;
+        }
+    }
+
+    private static final class QueueNode {
+        final Entry entry;
+        final long deadlineMs;
+        final int version;
+
+        QueueNode(Entry entry) {
+            this.entry = entry;
+            this.deadlineMs = entry.deadlineMs;
+            this.version = entry.version;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final PriorityQueue<QueueNode> queue =
+        new PriorityQueue<>(16, (a, b) -> Long.compare(a.deadlineMs, b.deadlineMs));
+    private final Listener listener;
+    private int violatedCount;
+
+    public PolicyEvaluator(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Add or replace a rule and evaluate it immediately. A replacement inherits the
+     * previous verdict and suppression, so the listener only hears about a real change.
+     */
+    public void putRule(Rule rule, long nowMs) {
+        Entry entry = new Entry(rule);
+        Entry previous = entries.put(rule.getId(), entry);
+        if (previous != null) {
+            previous.version++;
+            entry.violated = previous.violated;
+            entry.suppressedFromMs = previous.suppressedFromMs;
+            entry.suppressedUntilMs = previous.suppressedUntilMs;
+        }
+        evaluate(entry, nowMs);
+    }
+
+    public void removeRule(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            retire(entry);
+        }
+    }
+
+    /**
+     * Re-evaluate one rule after its inputs changed (e.g. the limit was edited)
+     */
+    public void reevaluate(String id, long nowMs) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            evaluate(entry, nowMs);
+        }
+        trimStale();
+    }
+
+    /**
+     * Re-evaluate every rule, e.g. after the wall clock jumped
+     */
+    public void reevaluateAll(long nowMs) {
+        for (Entry entry : entries.values()) {
+            evaluate(entry, nowMs);
+        }
+        trimStale();
+    }
+
+    /**
+     * Treat a violated rule as cleared until its next deadline, or for maxMs at
+     * most. The suppression also ends if the clock goes back before nowMs.
+     * Returns false when the rule is missing or not violated.
+     */
+    public boolean suppress(String id, long nowMs, long maxMs) {
+        Entry entry = entries.get(id);
+        if (entry == null || !entry.violated) {
+            return false;
+        }
+        entry.suppressedFromMs = nowMs;
+        entry.suppressedUntilMs = Math.min(entry.rule.nextDeadlineMs(nowMs), nowMs + maxMs);
+        evaluate(entry, nowMs);
+        trimStale();
+        return true;
+    }
+
+    /**
+     * Called when the armed timer fires: re-evaluates only the rules that are due
+     */
+    public void onDeadline(long nowMs) {
+        trimStale();
+        while (!queue.isEmpty() && queue.peek().deadlineMs <= nowMs) {
+            QueueNode node = queue.poll();
+            if (node.version == node.entry.version && entries.get(node.entry.rule.getId()) == node.entry) {
+                evaluate(node.entry, nowMs);
+            }
+            trimStale();
+        }
+    }
+
+    /**
+     * Earliest deadline across all rules: the only timer that needs to be armed
+     */
+    public long nextDeadlineMs() {
+        trimStale();
+        return queue.isEmpty() ? NO_DEADLINE : queue.peek().deadlineMs;
+    }
+
+    public boolean isViolated(String id) {
+        Entry entry = entries.get(id);
+        return entry != null && entry.violated;
+    }
+
+    public boolean isAnyViolated() {
+        return violatedCount > 0;
+    }
+
+    /**
+     * Earliest instant from nowMs at which none of the given rules is violated,
+     * assuming no input changes, or NO_DEADLINE if one only clears on outside
+     * input (a parent's PIN, a screen-off break). Missing rules never hold it
+     * back. Walks the rules' own deadlines, so a lock handed from one rule to
+     * another (bedtime right after a session limit) is followed through.
+     */
+    public long clearTimeMs(long nowMs, String... ids) {
+        long timeMs = nowMs;
+        for (int step = 0; step < MAX_CLEAR_STEPS; step++) {
+            boolean anyViolated = false;
+            for (String id : ids) {
+                Entry entry = entries.get(id);
+                if (entry == null || isSuppressed(entry, timeMs) || !entry.rule.isViolated(timeMs)) {
+                    continue;
+                }
+                long nextMs = entry.rule.nextDeadlineMs(timeMs);
+                if (nextMs == NO_DEADLINE) {
+                    return NO_DEADLINE;
+                }
+                anyViolated = true;
+                timeMs = nextMs;
+            }
+            if (!anyViolated) {
+                return timeMs;
+            }
+        }
+        return NO_DEADLINE;
+    }
+
+    public int getRuleCount() {
+        return entries.size();
+    }
+
+    private void evaluate(Entry entry, long nowMs) {
+        boolean violated = entry.rule.isViolated(nowMs);
+        entry.version++;
+        entry.deadlineMs = entry.rule.nextDeadlineMs(nowMs);
+        if (isSuppressed(entry, nowMs)) {
+            violated = false;
+            entry.deadlineMs = Math.min(entry.deadlineMs, entry.suppressedUntilMs);
+        } else {
+            entry.suppressedUntilMs = 0;
+        }
+        if (entry.deadlineMs != NO_DEADLINE) {
+            queue.add(new QueueNode(entry));
+            if (queue.size() > 2 * entries.size() + 16) {
+                compact();
+            }
+        }
+        if (violated != entry.violated) {
+            entry.violated = violated;
+            violatedCount += violated ? 1 : -1;
+            if (listener != null) {
+                listener.onViolationChanged(entry.rule, violated);
+            }
+        }
+    }
+
+    private static boolean isSuppressed(Entry entry, long nowMs) {
+        return entry.suppressedUntilMs != 0 && nowMs >= entry.suppressedFromMs && nowMs < entry.suppressedUntilMs;
+    }
+
+    private void retire(Entry entry) {
+        entry.version++;
+        if (entry.violated) {
+            entry.violated = false;
+            violatedCount--;
+            if (listener != null) {
+                listener.onViolationChanged(entry.rule, false);
+            }
+        }
+    }
+
+    /**
+     * Rebuild the queue from live entries when superseded nodes pile up behind the head
+     */
+    private void compact() {
+        queue.clear();
+        for (Entry entry : entries.values()) {
+            if (entry.deadlineMs != NO_DEADLINE) {
+                queue.add(new QueueNode(entry));
+            }
+        }
+    }
+
+    /**
+     * Drop superseded nodes from the head so peek() reflects a live deadline
+     */
+    private void trimStale() {
+        while (!queue.isEmpty()) {
+            QueueNode head = queue.peek();
+            if (head.version == head.entry.version && entries.get(head.entry.rule.getId()) == head.entry) {
+                return;
+            }
+            queue.poll();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.kidsguard;
+
+import java.time.ZoneId;
+
+/**
+ * Android-free rules for the PolicyEvaluator
+ */
+public final class PolicyRules {
+    public static final String BUDGET_ID = "budget";
+    public static final String SCHEDULE_ID = "schedule";
+    public static final String SESSION_ID = "session";
+
+    private PolicyRules() {
+    }
+
+    /** Supplies the current budget; NONE when the budget is not monitored */
+    public interface BudgetSource {
+        ScreenTimeBudget load();
+    }
+
+    /**
+     * Locked once the daily budget (limit plus extra time) is used up
+     */
+    public static final class BudgetRule implements PolicyEvaluator.Rule {
+        private final BudgetSource source;
+
+        public BudgetRule(BudgetSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public String getId() {
+            return BUDGET_ID;
+        }
+
+        @Override
+        public boolean isViolated(long nowMs) {
+            return source.load().isExceeded(nowMs);
+        }
+
+        @Override
+        public long nextDeadlineMs(long nowMs) {
+            long deadlineMs = source.load().getDeadlineMs();
+            return deadlineMs > nowMs ? deadlineMs : PolicyEvaluator.NO_DEADLINE;
+        }
+    }
+
+    /**
+     * Locked while inside a weekly schedule window (bedtime)
+     */
+    public static final class ScheduleRule implements PolicyEvaluator.Rule {
+        private final ScheduleIndex index;
+        private final ZoneId zone;
+
+        public ScheduleRule(ScheduleIndex index, ZoneId zone) {
+            this.index = index;
+            this.zone = zone;
+        }
+
+        @Override
+        public String getId() {
+            return SCHEDULE_ID;
+        }
+
+        @Override
+        public boolean isViolated(long nowMs) {
+            return index.isLockedAt(nowMs, zone);
+        }
+
+        @Override
+        public long nextDeadlineMs(long nowMs) {
+            long next = index.nextTransitionMs(nowMs, zone);
+            return next < 0 ? PolicyEvaluator.NO_DEADLINE : next;
+        }
+    }
+
+    /**
+     * Limits continuous use. The session counts from the first screen-on after a
+     * break; turning the screen off for at least breakMs ends it and lifts the lock.
+     */
+    public static final class ContinuousSessionRule implements PolicyEvaluator.Rule {
+        private final long breakMs;
+        private long maxSessionMs;
+        private long sessionStartMs;
+        private long screenOffMs; // 0 while the screen is on
+
+        public ContinuousSessionRule(long maxSessionMs, long breakMs, long nowMs) {
+            this.maxSessionMs = maxSessionMs;
+            this.breakMs = breakMs;
+            this.sessionStartMs = nowMs;
+        }
+
+        public void setMaxSessionMs(long maxSessionMs) {
+            this.maxSessionMs = maxSessionMs;
+        }
+
+        /**
+         * Start a new session now, as a break would (the parent's PIN)
+         */
+        public void restart(long nowMs) {
+            sessionStartMs = nowMs;
+            screenOffMs = 0;
+        }
+
+        public void onScreenOn(long nowMs) {
+            if (screenOffMs != 0 && nowMs - screenOffMs >= breakMs) {
+                sessionStartMs = nowMs;
+            }
+            screenOffMs = 0;
+        }
+
+        public void onScreenOff(long nowMs) {
+            if (screenOffMs == 0) {
+                screenOffMs = nowMs;
+            }
+        }
+
+        @Override
+        public String getId() {
+            return SESSION_ID;
+        }
+
+        @Override
+        public boolean isViolated(long nowMs) {
+            if (screenOffMs != 0 && nowMs - screenOffMs >= breakMs) {
+                return false; // Break taken
+            }
+            long endMs = screenOffMs != 0 ? screenOffMs : nowMs;
+            return endMs - sessionStartMs >= maxSessionMs;
+        }
+
+        @Override
+        public long nextDeadlineMs(long nowMs) {
+            if (screenOffMs != 0) {
+                long breakEndMs = screenOffMs + breakMs;
+                return breakEndMs > nowMs && isViolated(nowMs) ? breakEndMs : PolicyEvaluator.NO_DEADLINE;
+            }
+            long limitMs = sessionStartMs + maxSessionMs;
+            return limitMs > nowMs ? limitMs : PolicyEvaluator.NO_DEADLINE;
+        }
+    }
+}
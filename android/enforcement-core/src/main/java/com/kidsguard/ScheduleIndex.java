@@ -0,0 +1,264 @@
+package com.kidsguard;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Weekly lock windows (e.g. bedtime 21:00-07:00 on school nights) compiled into
+ * a sorted, merged interval index over the minutes of the week.
+ *
+ * Windows are defined in local wall-clock time. Checking the current state and
+ * finding the next lock/unlock transition are binary searches, so the service
+ * only needs a single timer armed at the next transition.
+ */
+public final class ScheduleIndex {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    public static final ScheduleIndex EMPTY = new ScheduleIndex(new int[0], new int[0]);
+
+    /**
+     * A recurring window. Days are a bit mask over the day the window starts
+     * (bit 0 = Monday ... bit 6 = Sunday). When endMinute <= startMinute the
+     * window runs past midnight into the next day.
+     */
+    public static final class Window {
+        public final int daysMask;
+        public final int startMinute;
+        public final int endMinute;
+
+        public Window(int daysMask, int startMinute, int endMinute) {
+            if (startMinute < 0 || startMinute >= MINUTES_PER_DAY || endMinute < 0 || endMinute > MINUTES_PER_DAY) {
+                throw new IllegalArgumentException("Window minutes out of range: " + startMinute + "-" + endMinute);
+            }
+            this.daysMask = daysMask & 0x7F;
+            this.startMinute = startMinute;
+            this.endMinute = endMinute;
+        }
+
+        public boolean startsOn(DayOfWeek day) {
+            return (daysMask & (1 << (day.getValue() - 1))) != 0;
+        }
+
+        /**
+         * Encode as "daysMask:start:end" for storage
+         */
+        public String encode() {
+            return daysMask + ":" + startMinute + ":" + endMinute;
+        }
+
+        public static Window decode(String value) {
+            String[] parts = value.split(":");
+            return new Window(
+                Integer.parseInt(parts[0].trim()),
+                Integer.parseInt(parts[1].trim()),
+                Integer.parseInt(parts[2].trim())
+            );
+        }
+    }
+
+    // Merged, non-overlapping [start, end) intervals in minute-of-week, sorted by start
+    private final int[] starts;
+    private final int[] ends;
+    // Minute-of-week boundaries where the locked state actually flips, sorted
+    private final int[] transitions;
+
+    private ScheduleIndex(int[] starts, int[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+        this.transitions = computeTransitions(starts, ends);
+    }
+
+    /**
+     * Compile windows into the interval index. O(n log n) once per schedule change.
+     */
+    public static ScheduleIndex compile(List<Window> windows) {
+        if (windows == null || windows.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<int[]> raw = new ArrayList<>();
+        for (Window window : windows) {
+            if (window.startMinute == window.endMinute) {
+                continue; // Empty window
+            }
+            int length = window.endMinute > window.startMinute
+                ? window.endMinute - window.startMinute
+                : MINUTES_PER_DAY - window.startMinute + window.endMinute;
+
+            for (int day = 0; day < 7; day++) {
+                if ((window.daysMask & (1 << day)) == 0) {
+                    continue;
+                }
+                int start = day * MINUTES_PER_DAY + window.startMinute;
+                int end = start + length;
+                if (end <= MINUTES_PER_WEEK) {
+                    raw.add(new int[] {start, end});
+                } else {
+                    // Sunday night into Monday morning: split at the week boundary
+                    raw.add(new int[] {start, MINUTES_PER_WEEK});
+                    raw.add(new int[] {0, end - MINUTES_PER_WEEK});
+                }
+            }
+        }
+
+        if (raw.isEmpty()) {
+            return EMPTY;
+        }
+
+        int[][] sorted = raw.toArray(new int[0][]);
+        Arrays.sort(sorted, (a, b) -> Integer.compare(a[0], b[0]));
+
+        int[] mergedStarts = new int[sorted.length];
+        int[] mergedEnds = new int[sorted.length];
+        int count = 0;
+        for (int[] interval : sorted) {
+            if (count > 0 && interval[0] <= mergedEnds[count - 1]) {
+                mergedEnds[count - 1] = Math.max(mergedEnds[count - 1], interval[1]);
+            } else {
+                mergedStarts[count] = interval[0];
+                mergedEnds[count] = interval[1];
+                count++;
+            }
+        }
+
+        return new ScheduleIndex(Arrays.copyOf(mergedStarts, count), Arrays.copyOf(mergedEnds, count));
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * Whether the given minute of the week falls inside a lock window. O(log n).
+     */
+    public boolean isLockedAt(int minuteOfWeek) {
+        int i = floorIndex(starts, minuteOfWeek);
+        return i >= 0 && minuteOfWeek < ends[i];
+    }
+
+    public boolean isLockedAt(long nowMs, ZoneId zone) {
+        return isLockedAt(minuteOfWeek(Instant.ofEpochMilli(nowMs).atZone(zone)));
+    }
+
+    /**
+     * Next instant after nowMs at which the lock state may change, or -1 if it never does.
+     * Wall-clock boundaries that fall in a DST gap resolve to the moment the clock jumps
+     * past them; boundaries in a repeated hour resolve to the first occurrence after now.
+     * Offset changes are also returned, since the wall-clock state can flip there.
+     */
+    public long nextTransitionMs(long nowMs, ZoneId zone) {
+        if (transitions.length == 0) {
+            return -1;
+        }
+
+        ZonedDateTime now = Instant.ofEpochMilli(nowMs).atZone(zone);
+        int minute = minuteOfWeek(now);
+        LocalDateTime weekStart = now.toLocalDate()
+            .minusDays(now.getDayOfWeek().getValue() - 1)
+            .atStartOfDay();
+        ZoneRules rules = zone.getRules();
+
+        long next = -1;
+        int first = ceilIndex(transitions, minute + 1);
+        // One full lap of candidates (plus one) is enough to get past any repeated hour
+        for (int k = 0; k <= transitions.length; k++) {
+            int index = first + k;
+            int boundary = transitions[index % transitions.length]
+                + (index / transitions.length) * MINUTES_PER_WEEK;
+            long candidate = resolve(rules, weekStart.plusMinutes(boundary), nowMs);
+            if (candidate > nowMs) {
+                next = candidate;
+                break;
+            }
+        }
+
+        ZoneOffsetTransition offsetChange = rules.nextTransition(Instant.ofEpochMilli(nowMs));
+        if (offsetChange != null) {
+            long changeMs = offsetChange.getInstant().toEpochMilli();
+            if (next < 0 || changeMs < next) {
+                next = changeMs;
+            }
+        }
+        return next;
+    }
+
+    public static int minuteOfWeek(ZonedDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY
+            + time.getHour() * 60
+            + time.getMinute();
+    }
+
+    /**
+     * Earliest instant after nowMs showing the given wall-clock time, or -1
+     */
+    private static long resolve(ZoneRules rules, LocalDateTime localTime, long nowMs) {
+        List<ZoneOffset> offsets = rules.getValidOffsets(localTime);
+        if (offsets.isEmpty()) {
+            // DST gap: this wall-clock time is skipped, the boundary is crossed at the jump
+            return rules.getTransition(localTime).getInstant().toEpochMilli();
+        }
+        for (ZoneOffset offset : offsets) {
+            long ms = localTime.toInstant(offset).toEpochMilli();
+            if (ms > nowMs) {
+                return ms;
+            }
+        }
+        return -1;
+    }
+
+    private static int[] computeTransitions(int[] starts, int[] ends) {
+        int n = starts.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        // Intervals touching both ends of the week are one window across Sunday midnight.
+        // If that is the only interval the device is locked all week and nothing ever changes.
+        boolean wraps = starts[0] == 0 && ends[n - 1] == MINUTES_PER_WEEK;
+
+        int[] result = new int[2 * n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (!(wraps && i == 0)) {
+                result[count++] = starts[i];
+            }
+            if (!(wraps && i == n - 1)) {
+                result[count++] = ends[i];
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Index of the last element <= key, or -1
+     */
+    private static int floorIndex(int[] sorted, int key) {
+        int lo = 0;
+        int hi = sorted.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return hi;
+    }
+
+    /**
+     * Index of the first element >= key (may be sorted.length)
+     */
+    private static int ceilIndex(int[] sorted, int key) {
+        return floorIndex(sorted, key - 1) + 1;
+    }
+}
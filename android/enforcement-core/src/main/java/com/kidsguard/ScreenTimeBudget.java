@@ -0,0 +1,126 @@
+package com.kidsguard;
+
+/**
+ * Immutable daily budget state and its transitions.
+ *
+ * Usage is the accumulated time of closed segments plus the open segment
+ * (timerStartMs, 0 while paused), so every query is O(1) with no history to
+ * replay. Transitions return a new state, or this state unchanged when they
+ * do not apply, so callers can tell by identity whether anything changed.
+ */
+public final class ScreenTimeBudget {
+    public static final int DEFAULT_LIMIT_SECONDS = 7200; // 2 hours
+    // Daily limits the settings screen offers
+    public static final int MIN_LIMIT_MINUTES = 15;
+    public static final int MAX_LIMIT_MINUTES = 480;
+
+    /** Not enforcing: never exceeded, no deadline */
+    public static final ScreenTimeBudget NONE = new ScreenTimeBudget(DEFAULT_LIMIT_SECONDS, false, 0, 0, 0);
+
+    public final int limitSeconds;
+    public final boolean enforcing;
+    public final long timerStartMs;
+    public final long accumulatedMs;
+    public final int bonusSeconds;
+
+    public ScreenTimeBudget(int limitSeconds, boolean enforcing, long timerStartMs, long accumulatedMs, int bonusSeconds) {
+        this.limitSeconds = limitSeconds;
+        this.enforcing = enforcing;
+        this.timerStartMs = timerStartMs;
+        this.accumulatedMs = accumulatedMs;
+        this.bonusSeconds = bonusSeconds;
+    }
+
+    public static int clampLimitMinutes(int limitMinutes) {
+        return Math.max(MIN_LIMIT_MINUTES, Math.min(MAX_LIMIT_MINUTES, limitMinutes));
+    }
+
+    /**
+     * Fresh budget with the timer running from nowMs
+     */
+    public static ScreenTimeBudget start(int limitSeconds, long nowMs) {
+        return new ScreenTimeBudget(limitSeconds, true, nowMs, 0, 0);
+    }
+
+    /**
+     * Same enforcement and usage under a new daily limit
+     */
+    public ScreenTimeBudget withLimit(int newLimitSeconds) {
+        return new ScreenTimeBudget(newLimitSeconds, enforcing, timerStartMs, accumulatedMs, bonusSeconds);
+    }
+
+    /**
+     * Enforcement off and timer cleared; the limit is kept for next time
+     */
+    public ScreenTimeBudget stop() {
+        return new ScreenTimeBudget(limitSeconds, false, 0, 0, 0);
+    }
+
+    /**
+     * Close the open segment into the accumulated usage
+     */
+    public ScreenTimeBudget pause(long nowMs) {
+        if (!enforcing || timerStartMs == 0) {
+            return this;
+        }
+        return new ScreenTimeBudget(limitSeconds, true, 0, usageMs(nowMs), bonusSeconds);
+    }
+
+    /**
+     * Open a new segment at nowMs
+     */
+    public ScreenTimeBudget resume(long nowMs) {
+        if (!enforcing || timerStartMs != 0) {
+            return this;
+        }
+        return new ScreenTimeBudget(limitSeconds, true, nowMs, accumulatedMs, bonusSeconds);
+    }
+
+    /**
+     * Add extra seconds without resetting the timer. If the limit was already
+     * reached, the extra time counts from now.
+     */
+    public ScreenTimeBudget grantExtra(int extraSeconds, long nowMs) {
+        if (!enforcing || extraSeconds <= 0) {
+            return this;
+        }
+        int effectiveLimit = Math.max(getEffectiveLimitSeconds(), getUsageSeconds(nowMs)) + extraSeconds;
+        return new ScreenTimeBudget(limitSeconds, true, timerStartMs, accumulatedMs, effectiveLimit - limitSeconds);
+    }
+
+    public long usageMs(long nowMs) {
+        if (timerStartMs == 0) {
+            return accumulatedMs;
+        }
+        return accumulatedMs + Math.max(0, nowMs - timerStartMs);
+    }
+
+    public int getUsageSeconds(long nowMs) {
+        return (int) Math.max(0, usageMs(nowMs) / 1000);
+    }
+
+    /**
+     * Limit plus any extra time granted today
+     */
+    public int getEffectiveLimitSeconds() {
+        return limitSeconds + bonusSeconds;
+    }
+
+    public boolean isPaused() {
+        return enforcing && timerStartMs == 0;
+    }
+
+    public boolean isExceeded(long nowMs) {
+        return enforcing && getUsageSeconds(nowMs) >= getEffectiveLimitSeconds();
+    }
+
+    /**
+     * Wall-clock time at which the limit is reached, or 0 when stopped or paused
+     */
+    public long getDeadlineMs() {
+        if (!enforcing || timerStartMs == 0) {
+            return 0;
+        }
+        return timerStartMs + getEffectiveLimitSeconds() * 1000L - accumulatedMs;
+    }
+}
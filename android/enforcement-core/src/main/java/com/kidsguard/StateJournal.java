@@ -0,0 +1,234 @@
+package com.kidsguard;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal of budget transitions that survives a kill at any point.
+ *
+ * Every record is the whole budget, so the last valid record is the state:
+ * recovery is one sequential read that stops at the first torn, corrupt or
+ * out-of-sequence record (each has a CRC32 and a growing sequence number) and
+ * cuts the file back to there. Appends are fsync'd before they return. Once
+ * the file holds compactAfter records it is replaced by a one-record
+ * snapshot, written to a temp file, fsync'd and renamed over the journal, so
+ * either the old or the new file is complete. The directory is fsync'd after
+ * the rename, so appends made to the new file cannot be lost with it.
+ */
+public final class StateJournal {
+    public static final int DEFAULT_COMPACT_AFTER = 64;
+
+    private static final int MAGIC = 0x4B474A31; // "KGJ1"
+    // magic, seq, limit, enforcing, timerStart, accumulated, bonus, crc
+    static final int RECORD_SIZE = 4 + 8 + 4 + 1 + 8 + 8 + 4 + 4;
+
+    /**
+     * Called at each step that writes to disk; tests throw here to simulate a kill
+     */
+    interface WritePoint {
+        void reached(String point) throws IOException;
+    }
+
+    private static final WritePoint NO_OP = new WritePoint() {
+        @Override
+        public void reached(String point) {
+        }
+    };
+
+    /**
+     * Makes a rename in a directory durable
+     */
+    public interface DirectorySync {
+        void sync(File directory) throws IOException;
+    }
+
+    /** fsync through java.nio, which Android only has from API 26 */
+    public static final DirectorySync NIO_DIRECTORY_SYNC = directory -> {
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    };
+
+    private final File file;
+    private final File tempFile;
+    private final int compactAfter;
+    private final WritePoint writePoint;
+    private final DirectorySync directorySync;
+    private RandomAccessFile out;
+    private long seq = 0;
+    private int records = 0;
+
+    public StateJournal(File file) {
+        this(file, NIO_DIRECTORY_SYNC);
+    }
+
+    public StateJournal(File file, DirectorySync directorySync) {
+        this(file, DEFAULT_COMPACT_AFTER, NO_OP, directorySync);
+    }
+
+    StateJournal(File file, int compactAfter, WritePoint writePoint) {
+        this(file, compactAfter, writePoint, NIO_DIRECTORY_SYNC);
+    }
+
+    private StateJournal(File file, int compactAfter, WritePoint writePoint, DirectorySync directorySync) {
+        this.file = file;
+        this.tempFile = new File(file.getPath() + ".tmp");
+        this.compactAfter = compactAfter;
+        this.writePoint = writePoint;
+        this.directorySync = directorySync;
+    }
+
+    /**
+     * Read the journal front to back and return the last state it holds, or
+     * null when there is none. Must be called once before append().
+     */
+    public synchronized ScreenTimeBudget recover() throws IOException {
+        closeQuietly();
+        if (tempFile.exists() && !tempFile.delete()) {
+            throw new IOException("Cannot delete " + tempFile);
+        }
+        ScreenTimeBudget last = null;
+        long validLength = 0;
+        records = 0;
+        seq = 0;
+        if (file.exists()) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 8 * RECORD_SIZE));
+            try {
+                byte[] record = new byte[RECORD_SIZE];
+                while (true) {
+                    in.readFully(record);
+                    ScreenTimeBudget budget = decode(record);
+                    if (budget == null) {
+                        break;
+                    }
+                    last = budget;
+                    validLength += RECORD_SIZE;
+                    records++;
+                }
+            } catch (EOFException e) {
+                // Torn tail from a kill mid-append
+            } finally {
+                in.close();
+            }
+        }
+        out = new RandomAccessFile(file, "rw");
+        if (out.length() != validLength) {
+            out.setLength(validLength);
+            out.getFD().sync();
+        }
+        out.seek(validLength);
+        return last;
+    }
+
+    /**
+     * Durably record the new state; returns once it is on disk
+     */
+    public synchronized void append(ScreenTimeBudget budget) throws IOException {
+        if (out == null) {
+            throw new IllegalStateException("recover() first");
+        }
+        byte[] record = encode(++seq, budget);
+        writePoint.reached("append");
+        out.write(record, 0, RECORD_SIZE / 2);
+        writePoint.reached("append.torn");
+        out.write(record, RECORD_SIZE / 2, RECORD_SIZE - RECORD_SIZE / 2);
+        writePoint.reached("append.written");
+        out.getFD().sync();
+        writePoint.reached("append.synced");
+        records++;
+        if (records >= compactAfter) {
+            compact(record);
+        }
+    }
+
+    public synchronized int getRecordCount() {
+        return records;
+    }
+
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private void compact(byte[] lastRecord) throws IOException {
+        RandomAccessFile snapshot = new RandomAccessFile(tempFile, "rw");
+        try {
+            snapshot.setLength(0);
+            writePoint.reached("compact");
+            snapshot.write(lastRecord);
+            writePoint.reached("compact.written");
+            snapshot.getFD().sync();
+            writePoint.reached("compact.synced");
+        } finally {
+            snapshot.close();
+        }
+        out.close();
+        out = null;
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Cannot rename " + tempFile + " to " + file);
+        }
+        directorySync.sync(file.getAbsoluteFile().getParentFile());
+        writePoint.reached("compact.renamed");
+        out = new RandomAccessFile(file, "rw");
+        out.seek(out.length());
+        records = 1;
+    }
+
+    private void closeQuietly() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Nothing buffered; every append already synced
+            }
+            out = null;
+        }
+    }
+
+    private static byte[] encode(long seq, ScreenTimeBudget budget) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(RECORD_SIZE);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(MAGIC);
+        data.writeLong(seq);
+        data.writeInt(budget.limitSeconds);
+        data.writeBoolean(budget.enforcing);
+        data.writeLong(budget.timerStartMs);
+        data.writeLong(budget.accumulatedMs);
+        data.writeInt(budget.bonusSeconds);
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, RECORD_SIZE - 4);
+        data.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * null when the record is corrupt, or stale: its sequence number does not
+     * follow the previous record's
+     */
+    private ScreenTimeBudget decode(byte[] record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, RECORD_SIZE - 4);
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(record));
+        if (data.readInt() != MAGIC) {
+            return null;
+        }
+        long recordSeq = data.readLong();
+        ScreenTimeBudget budget = new ScreenTimeBudget(
+            data.readInt(), data.readBoolean(), data.readLong(), data.readLong(), data.readInt());
+        if (data.readInt() != (int) crc.getValue() || recordSeq <= seq) {
+            return null;
+        }
+        seq = recordSeq;
+        return budget;
+    }
+}
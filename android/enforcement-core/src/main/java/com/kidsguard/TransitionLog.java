@@ -0,0 +1,92 @@
+package com.kidsguard;
+
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The last few enforcement state changes, for the service's dump().
+ *
+ * A fixed ring of parallel arrays: recording overwrites the oldest entry and
+ * only stores references, so it does not allocate as long as callers pass
+ * constant strings (rule ids, event names) or strings they already hold.
+ */
+public final class TransitionLog {
+    public static final int DEFAULT_CAPACITY = 64;
+    public static final TransitionLog INSTANCE = new TransitionLog(DEFAULT_CAPACITY);
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final long[] timesMs;
+    private final String[] events;
+    private final String[] details;
+    private int next = 0;
+    private long recorded = 0;
+
+    public TransitionLog(int capacity) {
+        timesMs = new long[capacity];
+        events = new String[capacity];
+        details = new String[capacity];
+    }
+
+    /**
+     * detail may be null, e.g. record(now, "rule violated", PolicyRules.BUDGET_ID)
+     */
+    public synchronized void record(long timeMs, String event, String detail) {
+        timesMs[next] = timeMs;
+        events[next] = event;
+        details[next] = detail;
+        next = (next + 1) % timesMs.length;
+        recorded++;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(recorded, timesMs.length);
+    }
+
+    /**
+     * Total ever recorded, including entries already overwritten
+     */
+    public synchronized long getRecordedCount() {
+        return recorded;
+    }
+
+    /**
+     * Event name of the i-th kept entry, oldest first
+     */
+    public synchronized String getEvent(int i) {
+        return events[indexOf(i)];
+    }
+
+    public synchronized String getDetail(int i) {
+        return details[indexOf(i)];
+    }
+
+    public synchronized long getTimeMs(int i) {
+        return timesMs[indexOf(i)];
+    }
+
+    /**
+     * Oldest first, one line per entry in local time
+     */
+    public synchronized void dump(PrintWriter writer, String prefix, ZoneId zone) {
+        int size = size();
+        if (recorded > size) {
+            writer.println(prefix + "(" + (recorded - size) + " older entries dropped)");
+        }
+        for (int i = 0; i < size; i++) {
+            int index = indexOf(i);
+            String line = TIME_FORMAT.format(Instant.ofEpochMilli(timesMs[index]).atZone(zone)) + " " + events[index];
+            writer.println(prefix + (details[index] != null ? line + " " + details[index] : line));
+        }
+    }
+
+    private int indexOf(int i) {
+        int size = size();
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Entry " + i + " of " + size);
+        }
+        return (next - size + i + timesMs.length) % timesMs.length;
+    }
+}
@@ -0,0 +1,34 @@
+package com.kidsguard;
+
+/**
+ * Conversions between volume percent and raw stream steps, shared by
+ * setVolume and the enforcement observer that runs on every volume change.
+ */
+public final class VolumeMath {
+    // Drift allowed before the enforced volume is restored (rounding between steps)
+    public static final int TOLERANCE_PERCENT = 2;
+    // Level shown before the parent picks one
+    public static final int DEFAULT_PERCENT = 50;
+
+    private VolumeMath() {
+    }
+
+    public static int toPercent(int streamVolume, int maxVolume) {
+        if (maxVolume <= 0) {
+            return 0;
+        }
+        return (int) ((streamVolume * 100.0) / maxVolume);
+    }
+
+    public static int clampPercent(int percent) {
+        return Math.max(0, Math.min(100, percent));
+    }
+
+    public static int toStreamVolume(int percent, int maxVolume) {
+        return (int) ((percent / 100.0) * maxVolume);
+    }
+
+    public static boolean needsCorrection(int currentPercent, int enforcedPercent) {
+        return Math.abs(currentPercent - enforcedPercent) > TOLERANCE_PERCENT;
+    }
+}
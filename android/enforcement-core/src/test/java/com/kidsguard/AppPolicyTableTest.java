@@ -0,0 +1,43 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AppPolicyTableTest {
+    @Test
+    public void emptySpecAllowsEverything() {
+        AppPolicyTable table = AppPolicyTable.parse("");
+
+        assertTrue(table.isEmpty());
+        assertEquals(AppPolicyTable.ALLOW, table.lookup("com.example.game"));
+        assertEquals(AppPolicyTable.ALLOW, table.lookup(null));
+    }
+
+    @Test
+    public void looksUpStoredPolicies() {
+        AppPolicyTable table = AppPolicyTable.parse(
+            AppPolicyTable.encode("com.example.game", AppPolicyTable.BLOCK) + ";"
+                + AppPolicyTable.encode("com.example.video", AppPolicyTable.BLOCK_AFTER_LIMIT)
+        );
+
+        assertEquals(2, table.size());
+        assertTrue(table.hasLimitedApps());
+        // Package names from usage events are fresh strings, not the stored instances
+        assertEquals(AppPolicyTable.BLOCK, table.lookup(new String("com.example.game")));
+        assertEquals(AppPolicyTable.BLOCK_AFTER_LIMIT, table.lookup(new String("com.example.video")));
+        assertEquals(AppPolicyTable.ALLOW, table.lookup("com.example.books"));
+    }
+
+    @Test
+    public void skipsUnknownPoliciesAndMalformedEntries() {
+        AppPolicyTable table = AppPolicyTable.parse("com.example.game=1;broken;=2;com.example.chat=7");
+
+        assertEquals(1, table.size());
+        assertFalse(table.hasLimitedApps());
+        assertSame(AppPolicyTable.EMPTY, AppPolicyTable.parse("com.example.chat=0"));
+    }
+}
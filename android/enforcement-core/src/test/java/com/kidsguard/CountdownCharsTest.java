@@ -0,0 +1,38 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class CountdownCharsTest {
+    private static String format(String prefix, long remainingMs) {
+        char[] buffer = new char[prefix.length() + CountdownChars.MAX_LENGTH];
+        prefix.getChars(0, prefix.length(), buffer, 0);
+        int end = CountdownChars.write(buffer, prefix.length(), remainingMs);
+        return new String(buffer, 0, end);
+    }
+
+    @Test
+    public void writesHoursMinutesAndSecondsAfterThePrefix() {
+        assertEquals("in 1:23:45", format("in ", (3600 + 23 * 60 + 45) * 1000L));
+        assertEquals("in 10:00:00", format("in ", 10 * 3600 * 1000L));
+        assertEquals("0:00:59", format("", 59000));
+    }
+
+    @Test
+    public void roundsUpToTheNextSecond() {
+        assertEquals("0:00:01", format("", 1));
+        assertEquals("0:01:00", format("", 59001));
+        assertEquals("0:00:00", format("", 0));
+        assertEquals("0:00:00", format("", -5000));
+    }
+
+    @Test
+    public void reusesTheBufferWithoutLeftovers() {
+        char[] buffer = new char[CountdownChars.MAX_LENGTH];
+        int end = CountdownChars.write(buffer, 0, 100 * 3600 * 1000L);
+        assertEquals("100:00:00", new String(buffer, 0, end));
+        end = CountdownChars.write(buffer, 0, 5000);
+        assertEquals("0:00:05", new String(buffer, 0, end));
+    }
+}
@@ -0,0 +1,37 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+public class EnforcementStatsTest {
+    @Test
+    public void countsPerSource() {
+        EnforcementStats stats = new EnforcementStats();
+
+        stats.recordWakeup(EnforcementStats.Source.SERVICE_TICK, 2000000);
+        stats.recordWakeup(EnforcementStats.Source.SERVICE_TICK, 1000000);
+        stats.recordCallback(EnforcementStats.Source.VOLUME_OBSERVER, -1); // No CPU clock
+        stats.recordBinderCalls(EnforcementStats.Source.VOLUME_OBSERVER, 3);
+
+        assertEquals(2, stats.getWakeups(EnforcementStats.Source.SERVICE_TICK));
+        assertEquals(2, stats.getCallbacks(EnforcementStats.Source.SERVICE_TICK));
+        assertEquals(3000000, stats.getCpuNanos(EnforcementStats.Source.SERVICE_TICK));
+        assertEquals(0, stats.getWakeups(EnforcementStats.Source.VOLUME_OBSERVER));
+        assertEquals(1, stats.getCallbacks(EnforcementStats.Source.VOLUME_OBSERVER));
+        assertEquals(0, stats.getCpuNanos(EnforcementStats.Source.VOLUME_OBSERVER));
+        assertEquals(3, stats.getBinderCalls(EnforcementStats.Source.VOLUME_OBSERVER));
+
+        StringWriter out = new StringWriter();
+        stats.dump(new PrintWriter(out), "  ");
+        assertTrue(out.toString().contains("  service_tick: wakeups=2 callbacks=2 binder=0 cpu=3ms"));
+        assertTrue(out.toString().contains("  total: wakeups=2 cpu=3ms"));
+
+        stats.reset();
+        assertEquals(0, stats.getCallbacks(EnforcementStats.Source.SERVICE_TICK));
+    }
+}
@@ -0,0 +1,56 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LatencyHistogramTest {
+    @Test
+    public void percentilesAreWithinOneBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 1000; micros++) {
+            histogram.recordMicros(micros);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMaxMicros());
+        assertWithin(500, histogram.getPercentileMicros(50));
+        assertWithin(990, histogram.getPercentileMicros(99));
+        assertEquals(1000, histogram.getPercentileMicros(100));
+    }
+
+    @Test
+    public void bucketsCoverEveryValueOnce() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(40));
+            int bucket = LatencyHistogram.bucketOf(value);
+            if (bucket < LatencyHistogram.bucketOf(Long.MAX_VALUE)) {
+                assertTrue(value <= LatencyHistogram.upperBoundOf(bucket));
+                assertTrue(bucket == 0 || value > LatencyHistogram.upperBoundOf(bucket - 1));
+            }
+        }
+    }
+
+    @Test
+    public void emptyAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileMicros(99));
+
+        histogram.recordMicros(2500);
+        assertEquals("n=1 p50=2.5ms p90=2.5ms p99=2.5ms max=2.5ms", histogram.summary());
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        // 8 buckets per power of two: within 12.5%
+        assertTrue("Expected ~" + expected + " but was " + actual,
+            actual >= expected && actual <= expected + expected / 8);
+    }
+}
@@ -0,0 +1,99 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LockStateTest {
+    private static final String GAME = "com.example.game";
+
+    @Test
+    public void pinOnDeviceLockStopsEnforcing() {
+        LockState state = new LockState();
+
+        assertTrue(state.lockDevice());
+        assertFalse(state.lockDevice());
+        assertEquals(LockState.PinAction.STOP_ENFORCING, state.onPinAccepted());
+        assertEquals(LockState.Mode.UNLOCKED, state.getMode());
+    }
+
+    @Test
+    public void pinOnBudgetLockStopsEnforcing() {
+        LockState state = new LockState();
+        state.setDeviceLockRule(PolicyRules.BUDGET_ID);
+
+        state.lockDevice();
+        assertEquals(LockState.PinAction.STOP_ENFORCING, state.onPinAccepted());
+        assertEquals(LockState.Mode.UNLOCKED, state.getMode());
+    }
+
+    @Test
+    public void pinOnBedtimeLockOnlySuppressesBedtime() {
+        LockState state = new LockState();
+        state.setDeviceLockRule(PolicyRules.SCHEDULE_ID);
+
+        state.lockDevice();
+        assertEquals(LockState.PinAction.SUPPRESS_RULE, state.onPinAccepted());
+        // Stays up until the service finds no rule needing it
+        assertEquals(LockState.Mode.DEVICE_LOCKED, state.getMode());
+    }
+
+    @Test
+    public void pinOnSessionLockRestartsTheSession() {
+        LockState state = new LockState();
+        state.setDeviceLockRule(PolicyRules.SESSION_ID);
+
+        state.lockDevice();
+        assertEquals(LockState.PinAction.RESTART_SESSION, state.onPinAccepted());
+        assertEquals(LockState.Mode.DEVICE_LOCKED, state.getMode());
+    }
+
+    @Test
+    public void pinFollowsALockMovingFromTheBudgetToBedtime() {
+        LockState state = new LockState();
+        state.setDeviceLockRule(PolicyRules.BUDGET_ID);
+        state.lockDevice();
+
+        // Bedtime starts while the budget lock is up
+        state.setDeviceLockRule(PolicyRules.SCHEDULE_ID);
+        assertFalse(state.lockDevice());
+        assertEquals(LockState.PinAction.SUPPRESS_RULE, state.onPinAccepted());
+
+        // With bedtime lifted the exhausted budget holds the lock again
+        state.setDeviceLockRule(PolicyRules.BUDGET_ID);
+        assertEquals(LockState.PinAction.STOP_ENFORCING, state.onPinAccepted());
+        assertEquals(LockState.Mode.UNLOCKED, state.getMode());
+    }
+
+    @Test
+    public void pinOnAppBlockAllowsTheAppUntilItIsLeft() {
+        LockState state = new LockState();
+
+        assertTrue(state.blockApp(GAME));
+        assertEquals(GAME, state.getBlockedPackage());
+        assertEquals(LockState.PinAction.ALLOW_APP, state.onPinAccepted());
+        assertNull(state.getBlockedPackage());
+
+        // Still allowed while the game stays in front
+        state.onForegroundAppChanged(GAME);
+        assertFalse(state.blockApp(GAME));
+
+        // Blocked again once the child left and came back
+        state.onForegroundAppChanged("com.android.launcher");
+        assertTrue(state.blockApp(GAME));
+    }
+
+    @Test
+    public void deviceLockReplacesAnAppBlock() {
+        LockState state = new LockState();
+
+        state.blockApp(GAME);
+        assertTrue(state.lockDevice());
+        assertEquals(LockState.Mode.DEVICE_LOCKED, state.getMode());
+        assertNull(state.getBlockedPackage());
+        assertFalse(state.blockApp(GAME));
+    }
+}
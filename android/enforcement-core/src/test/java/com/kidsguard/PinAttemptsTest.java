@@ -0,0 +1,107 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PinAttemptsTest {
+    private static final long MINUTE_MS = 60000L;
+    // Elapsed realtime, three hours after boot
+    private static final long T0 = 3 * 60 * MINUTE_MS;
+
+    @Test
+    public void locksOutAfterTheFreeAttempts() {
+        PinAttempts attempts = new PinAttempts();
+        for (int i = 1; i < PinAttempts.FREE_ATTEMPTS; i++) {
+            assertEquals(PinAttempts.Outcome.REJECTED, attempts.record(false, T0));
+        }
+        assertTrue(attempts.mayAttempt(T0));
+
+        assertEquals(PinAttempts.Outcome.LOCKED_OUT, attempts.record(false, T0));
+        assertFalse(attempts.mayAttempt(T0));
+        assertEquals(2 * MINUTE_MS, attempts.getLockoutRemainingMs(T0));
+        assertTrue(attempts.mayAttempt(T0 + 2 * MINUTE_MS));
+    }
+
+    @Test
+    public void lockoutsDoubleUntilTheRightPin() {
+        PinAttempts attempts = new PinAttempts();
+        long now = T0;
+        for (int i = 0; i < 2 * PinAttempts.FREE_ATTEMPTS; i++) {
+            now += attempts.getLockoutRemainingMs(now);
+            attempts.record(false, now);
+        }
+        assertEquals(4 * MINUTE_MS, attempts.getLockoutRemainingMs(now));
+
+        now += attempts.getLockoutRemainingMs(now);
+        assertEquals(PinAttempts.Outcome.ACCEPTED, attempts.record(true, now));
+        assertEquals(0, attempts.getFailures());
+        assertEquals(PinAttempts.Outcome.REJECTED, attempts.record(false, now));
+    }
+
+    @Test
+    public void lockoutIsCapped() {
+        PinAttempts attempts = PinAttempts.fromRecord(60000);
+        attempts.record(false, T0);
+        assertEquals(8 * MINUTE_MS, attempts.getLockoutRemainingMs(T0));
+    }
+
+    @Test
+    public void lockoutStopsGrowingAtEightMinutes() {
+        PinAttempts attempts = new PinAttempts();
+        long now = T0;
+        long longestMs = 0;
+        for (int i = 0; i < 10 * PinAttempts.FREE_ATTEMPTS; i++) {
+            now += attempts.getLockoutRemainingMs(now);
+            attempts.record(false, now);
+            longestMs = Math.max(longestMs, attempts.getLockoutRemainingMs(now));
+        }
+        assertEquals(8 * MINUTE_MS, longestMs);
+        assertEquals(8 * MINUTE_MS, attempts.getLockoutRemainingMs(now));
+        assertTrue(attempts.mayAttempt(now + 8 * MINUTE_MS));
+    }
+
+    @Test
+    public void survivesARoundTripThroughTheRecord() {
+        PinAttempts attempts = new PinAttempts();
+        for (int i = 0; i < PinAttempts.FREE_ATTEMPTS; i++) {
+            attempts.record(false, T0 + 500);
+        }
+
+        PinAttempts restored = PinAttempts.fromRecord(attempts.toRecord());
+        assertEquals(PinAttempts.FREE_ATTEMPTS, restored.getFailures());
+        // Stored in whole seconds, rounded up so a restart never shortens it
+        assertEquals(2 * MINUTE_MS + 1000, restored.getLockoutRemainingMs(T0));
+        assertFalse(restored.restartIfRebooted(T0));
+        assertEquals(0, PinAttempts.fromRecord(new PinAttempts().toRecord()).getFailures());
+    }
+
+    @Test
+    public void rebootRestartsTheLockoutInsteadOfEndingIt() {
+        PinAttempts attempts = new PinAttempts();
+        for (int i = 0; i < PinAttempts.FREE_ATTEMPTS; i++) {
+            attempts.record(false, T0);
+        }
+
+        // Elapsed realtime starts over, so the stored end is far ahead of it
+        PinAttempts rebooted = PinAttempts.fromRecord(attempts.toRecord());
+        long bootMs = 10000;
+        assertTrue(rebooted.restartIfRebooted(bootMs));
+        assertEquals(2 * MINUTE_MS, rebooted.getLockoutRemainingMs(bootMs));
+        assertTrue(rebooted.mayAttempt(bootMs + 2 * MINUTE_MS));
+        assertFalse(rebooted.restartIfRebooted(bootMs + MINUTE_MS));
+    }
+
+    @Test
+    public void lockoutWithinTheBootIsNotRestarted() {
+        PinAttempts attempts = new PinAttempts();
+        for (int i = 0; i < PinAttempts.FREE_ATTEMPTS; i++) {
+            attempts.record(false, T0);
+        }
+        assertFalse(attempts.restartIfRebooted(T0));
+        assertFalse(attempts.restartIfRebooted(T0 + 3 * MINUTE_MS));
+        assertTrue(attempts.mayAttempt(T0 + 3 * MINUTE_MS));
+    }
+}
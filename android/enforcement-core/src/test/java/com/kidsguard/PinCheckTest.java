@@ -0,0 +1,23 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PinCheckTest {
+    @Test
+    public void matchesOnlyTheSamePin() {
+        assertTrue(PinCheck.matches("1234", new String("1234")));
+        assertFalse(PinCheck.matches("1234", "1235"));
+        assertFalse(PinCheck.matches("1234", "0234"));
+    }
+
+    @Test
+    public void rejectsMissingOrDifferentLengthPins() {
+        assertFalse(PinCheck.matches(null, "1234"));
+        assertFalse(PinCheck.matches("1234", null));
+        assertFalse(PinCheck.matches("1234", "12345"));
+        assertFalse(PinCheck.matches("1234", ""));
+    }
+}
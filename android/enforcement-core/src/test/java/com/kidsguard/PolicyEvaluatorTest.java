@@ -0,0 +1,291 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PolicyEvaluatorTest {
+    private static final long MINUTE_MS = 60000L;
+
+    /**
+     * Violated from lockAtMs until unlockAtMs; counts how often it is evaluated
+     */
+    private static final class WindowRule implements PolicyEvaluator.Rule {
+        final String id;
+        long lockAtMs;
+        long unlockAtMs;
+        int evaluations;
+
+        WindowRule(String id, long lockAtMs, long unlockAtMs) {
+            this.id = id;
+            this.lockAtMs = lockAtMs;
+            this.unlockAtMs = unlockAtMs;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public boolean isViolated(long nowMs) {
+            evaluations++;
+            return nowMs >= lockAtMs && nowMs < unlockAtMs;
+        }
+
+        @Override
+        public long nextDeadlineMs(long nowMs) {
+            if (nowMs < lockAtMs) {
+                return lockAtMs;
+            }
+            return nowMs < unlockAtMs ? unlockAtMs : PolicyEvaluator.NO_DEADLINE;
+        }
+    }
+
+    private static final class RecordingListener implements PolicyEvaluator.Listener {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onViolationChanged(PolicyEvaluator.Rule rule, boolean violated) {
+            events.add(rule.getId() + (violated ? ":on" : ":off"));
+        }
+    }
+
+    @Test
+    public void armsOnlyTheEarliestDeadline() {
+        PolicyEvaluator evaluator = new PolicyEvaluator(null);
+        evaluator.putRule(new WindowRule("late", 50 * MINUTE_MS, 60 * MINUTE_MS), 0);
+        evaluator.putRule(new WindowRule("early", 10 * MINUTE_MS, 20 * MINUTE_MS), 0);
+
+        assertEquals(10 * MINUTE_MS, evaluator.nextDeadlineMs());
+
+        evaluator.onDeadline(10 * MINUTE_MS);
+        assertTrue(evaluator.isViolated("early"));
+        assertFalse(evaluator.isViolated("late"));
+        assertEquals(20 * MINUTE_MS, evaluator.nextDeadlineMs());
+
+        evaluator.onDeadline(20 * MINUTE_MS);
+        assertFalse(evaluator.isAnyViolated());
+        assertEquals(50 * MINUTE_MS, evaluator.nextDeadlineMs());
+    }
+
+    @Test
+    public void overlappingRulesKeepTheLockUntilTheLastClears() {
+        RecordingListener listener = new RecordingListener();
+        PolicyEvaluator evaluator = new PolicyEvaluator(listener);
+        evaluator.putRule(new WindowRule("budget", 10 * MINUTE_MS, 30 * MINUTE_MS), 0);
+        evaluator.putRule(new WindowRule("bedtime", 20 * MINUTE_MS, 40 * MINUTE_MS), 0);
+
+        for (long t = 0; t <= 40 * MINUTE_MS; t = evaluator.nextDeadlineMs()) {
+            evaluator.onDeadline(t);
+            if (t == 30 * MINUTE_MS) {
+                assertTrue(evaluator.isAnyViolated());
+            }
+        }
+
+        assertFalse(evaluator.isAnyViolated());
+        assertEquals(4, listener.events.size());
+        assertEquals("budget:on", listener.events.get(0));
+        assertEquals("bedtime:on", listener.events.get(1));
+        assertEquals("budget:off", listener.events.get(2));
+        assertEquals("bedtime:off", listener.events.get(3));
+    }
+
+    @Test
+    public void reevaluateReplacesTheQueuedDeadline() {
+        PolicyEvaluator evaluator = new PolicyEvaluator(null);
+        WindowRule rule = new WindowRule("budget", 10 * MINUTE_MS, 30 * MINUTE_MS);
+        evaluator.putRule(rule, 0);
+
+        // Extra time granted: the old deadline must not fire any more
+        rule.lockAtMs = 25 * MINUTE_MS;
+        evaluator.reevaluate("budget", MINUTE_MS);
+        assertEquals(25 * MINUTE_MS, evaluator.nextDeadlineMs());
+
+        int before = rule.evaluations;
+        evaluator.onDeadline(10 * MINUTE_MS);
+        assertEquals(before, rule.evaluations);
+        assertFalse(evaluator.isViolated("budget"));
+    }
+
+    @Test
+    public void replacingAViolatedRuleDoesNotFlicker() {
+        RecordingListener listener = new RecordingListener();
+        PolicyEvaluator evaluator = new PolicyEvaluator(listener);
+        evaluator.putRule(new WindowRule("bedtime", 0, 60 * MINUTE_MS), MINUTE_MS);
+        evaluator.putRule(new WindowRule("bedtime", 0, 90 * MINUTE_MS), 2 * MINUTE_MS);
+
+        assertEquals(1, listener.events.size());
+        assertEquals(1, evaluator.getRuleCount());
+        assertEquals(90 * MINUTE_MS, evaluator.nextDeadlineMs());
+
+        evaluator.removeRule("bedtime");
+        assertEquals("bedtime:off", listener.events.get(1));
+        assertEquals(PolicyEvaluator.NO_DEADLINE, evaluator.nextDeadlineMs());
+    }
+
+    @Test
+    public void sessionRuleLocksUntilABreakIsTaken() {
+        PolicyRules.ContinuousSessionRule session =
+            new PolicyRules.ContinuousSessionRule(45 * MINUTE_MS, 5 * MINUTE_MS, 0);
+        PolicyEvaluator evaluator = new PolicyEvaluator(null);
+        evaluator.putRule(session, 0);
+
+        assertEquals(45 * MINUTE_MS, evaluator.nextDeadlineMs());
+        evaluator.onDeadline(45 * MINUTE_MS);
+        assertTrue(evaluator.isViolated(PolicyRules.SESSION_ID));
+
+        // A short screen-off is not a break
+        session.onScreenOff(46 * MINUTE_MS);
+        session.onScreenOn(48 * MINUTE_MS);
+        evaluator.reevaluate(PolicyRules.SESSION_ID, 48 * MINUTE_MS);
+        assertTrue(evaluator.isViolated(PolicyRules.SESSION_ID));
+
+        session.onScreenOff(50 * MINUTE_MS);
+        evaluator.reevaluate(PolicyRules.SESSION_ID, 50 * MINUTE_MS);
+        assertEquals(55 * MINUTE_MS, evaluator.nextDeadlineMs());
+        evaluator.onDeadline(55 * MINUTE_MS);
+        assertFalse(evaluator.isViolated(PolicyRules.SESSION_ID));
+
+        // The next session counts from the screen coming back on
+        session.onScreenOn(60 * MINUTE_MS);
+        evaluator.reevaluate(PolicyRules.SESSION_ID, 60 * MINUTE_MS);
+        assertEquals(105 * MINUTE_MS, evaluator.nextDeadlineMs());
+    }
+
+    @Test
+    public void sessionRestartStartsAFullSession() {
+        PolicyRules.ContinuousSessionRule session =
+            new PolicyRules.ContinuousSessionRule(45 * MINUTE_MS, 5 * MINUTE_MS, 0);
+        PolicyEvaluator evaluator = new PolicyEvaluator(null);
+        evaluator.putRule(session, 0);
+        evaluator.onDeadline(45 * MINUTE_MS);
+
+        session.restart(50 * MINUTE_MS);
+        evaluator.reevaluate(PolicyRules.SESSION_ID, 50 * MINUTE_MS);
+        assertFalse(evaluator.isViolated(PolicyRules.SESSION_ID));
+        assertEquals(95 * MINUTE_MS, evaluator.nextDeadlineMs());
+    }
+
+    @Test
+    public void suppressedRuleRelocksAfterTheBound() {
+        RecordingListener listener = new RecordingListener();
+        PolicyEvaluator evaluator = new PolicyEvaluator(listener);
+        evaluator.putRule(new WindowRule("bedtime", 0, 600 * MINUTE_MS), 0);
+        evaluator.putRule(new WindowRule("budget", 0, PolicyEvaluator.NO_DEADLINE), 0);
+
+        assertTrue(evaluator.suppress("bedtime", 10 * MINUTE_MS, 30 * MINUTE_MS));
+        assertFalse(evaluator.isViolated("bedtime"));
+        // Other rules are left alone
+        assertTrue(evaluator.isViolated("budget"));
+        assertEquals(40 * MINUTE_MS, evaluator.nextDeadlineMs());
+        assertEquals(10 * MINUTE_MS, evaluator.clearTimeMs(10 * MINUTE_MS, "bedtime"));
+
+        evaluator.onDeadline(40 * MINUTE_MS);
+        assertTrue(evaluator.isViolated("bedtime"));
+        assertEquals(600 * MINUTE_MS, evaluator.nextDeadlineMs());
+        assertEquals("[bedtime:on, budget:on, bedtime:off, bedtime:on]", listener.events.toString());
+    }
+
+    @Test
+    public void suppressionEndsAtTheRulesNextTransition() {
+        WindowRule bedtime = new WindowRule("bedtime", 0, 20 * MINUTE_MS);
+        PolicyEvaluator evaluator = new PolicyEvaluator(null);
+        evaluator.putRule(bedtime, 0);
+
+        assertTrue(evaluator.suppress("bedtime", 10 * MINUTE_MS, 30 * MINUTE_MS));
+        assertEquals(20 * MINUTE_MS, evaluator.nextDeadlineMs());
+        evaluator.onDeadline(20 * MINUTE_MS);
+        assertFalse(evaluator.isViolated("bedtime"));
+
+        // The next window locks as usual
+        bedtime.lockAtMs = 100 * MINUTE_MS;
+        bedtime.unlockAtMs = 120 * MINUTE_MS;
+        evaluator.reevaluate("bedtime", 20 * MINUTE_MS);
+        evaluator.onDeadline(100 * MINUTE_MS);
+        assertTrue(evaluator.isViolated("bedtime"));
+        assertFalse(evaluator.suppress("missing", 100 * MINUTE_MS, 30 * MINUTE_MS));
+    }
+
+    @Test
+    public void suppressionEndsWhenTheClockGoesBack() {
+        PolicyEvaluator evaluator = new PolicyEvaluator(null);
+        evaluator.putRule(new WindowRule("bedtime", 0, 600 * MINUTE_MS), 0);
+
+        evaluator.suppress("bedtime", 100 * MINUTE_MS, 30 * MINUTE_MS);
+        evaluator.reevaluateAll(50 * MINUTE_MS);
+        assertTrue(evaluator.isViolated("bedtime"));
+        // And stays over once the clock is right again
+        evaluator.reevaluateAll(110 * MINUTE_MS);
+        assertTrue(evaluator.isViolated("bedtime"));
+    }
+
+    @Test
+    public void clearTimeFollowsTheLockAcrossRules() {
+        PolicyEvaluator evaluator = new PolicyEvaluator(null);
+        evaluator.putRule(new WindowRule("session", 0, 30 * MINUTE_MS), 0);
+        evaluator.putRule(new WindowRule("bedtime", 20 * MINUTE_MS, 90 * MINUTE_MS), 0);
+        evaluator.putRule(new WindowRule("later", 200 * MINUTE_MS, 210 * MINUTE_MS), 0);
+
+        assertEquals(90 * MINUTE_MS, evaluator.clearTimeMs(0, "session", "bedtime", "later", "missing"));
+        assertEquals(30 * MINUTE_MS, evaluator.clearTimeMs(0, "session"));
+        assertEquals(100 * MINUTE_MS, evaluator.clearTimeMs(100 * MINUTE_MS, "session", "bedtime"));
+    }
+
+    @Test
+    public void clearTimeIsUnknownForRulesThatNeedOutsideInput() {
+        PolicyEvaluator evaluator = new PolicyEvaluator(null);
+        evaluator.putRule(new WindowRule("bedtime", 0, 90 * MINUTE_MS), 0);
+        evaluator.putRule(new WindowRule("budget", 10 * MINUTE_MS, PolicyEvaluator.NO_DEADLINE), 0);
+
+        assertEquals(PolicyEvaluator.NO_DEADLINE, evaluator.clearTimeMs(0, "bedtime", "budget"));
+        assertEquals(90 * MINUTE_MS, evaluator.clearTimeMs(0, "bedtime"));
+    }
+
+    /**
+     * Work per wakeup stays at one rule however many there are. Time per wakeup
+     * is measured by PolicyBenchmark (JMH), not here.
+     */
+    @Test
+    public void wakeupEvaluatesOnlyTheDueRule() {
+        for (int ruleCount : new int[] {10, 100, 1000}) {
+            Random random = new Random(ruleCount);
+            PolicyEvaluator evaluator = new PolicyEvaluator(null);
+            List<WindowRule> rules = new ArrayList<>();
+            for (int i = 0; i < ruleCount; i++) {
+                // Distinct deadlines so each wakeup is due for exactly one rule
+                long lockAtMs = (i + 1) * MINUTE_MS + random.nextInt(1000);
+                WindowRule rule = new WindowRule("rule-" + i, lockAtMs, lockAtMs + 24 * 60 * MINUTE_MS);
+                rules.add(rule);
+                evaluator.putRule(rule, 0);
+            }
+
+            int wakeups = 0;
+            for (int i = 0; i < ruleCount; i++) {
+                long before = totalEvaluations(rules);
+                evaluator.onDeadline(evaluator.nextDeadlineMs());
+                wakeups++;
+                assertEquals("rules evaluated per wakeup", 1, totalEvaluations(rules) - before);
+            }
+
+            assertEquals(ruleCount, wakeups);
+            for (WindowRule rule : rules) {
+                assertTrue(evaluator.isViolated(rule.id));
+            }
+        }
+    }
+
+    private static long totalEvaluations(List<WindowRule> rules) {
+        long total = 0;
+        for (WindowRule rule : rules) {
+            total += rule.evaluations;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,210 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class ScheduleIndexTest {
+    private static final int WEEKDAYS = 0x1F; // Monday-Friday
+    private static final long MINUTE_MS = 60000L;
+    private static final long LOOKAHEAD_MS = 8L * 24 * 60 * MINUTE_MS;
+
+    private static final ZoneId[] ZONES = {
+        ZoneId.of("UTC"),
+        ZoneId.of("America/New_York"),
+        ZoneId.of("Europe/Madrid"),
+        ZoneId.of("Australia/Sydney"),
+    };
+
+    @Test
+    public void emptyScheduleNeverLocks() {
+        ScheduleIndex index = ScheduleIndex.compile(new ArrayList<ScheduleIndex.Window>());
+
+        assertTrue(index.isEmpty());
+        assertFalse(index.isLockedAt(0));
+        assertEquals(-1, index.nextTransitionMs(0, ZoneId.of("UTC")));
+    }
+
+    @Test
+    public void bedtimeCrossesMidnight() {
+        // School nights: Sunday-Thursday 21:00 until 07:00 the next morning
+        ScheduleIndex index = ScheduleIndex.compile(Arrays.asList(
+            new ScheduleIndex.Window(0x4F, 21 * 60, 7 * 60)
+        ));
+        ZoneId utc = ZoneId.of("UTC");
+
+        // Monday 2024-01-08
+        assertFalse(at(index, "2024-01-08T20:59", utc));
+        assertTrue(at(index, "2024-01-08T21:00", utc));
+        assertTrue(at(index, "2024-01-09T06:59", utc));
+        assertFalse(at(index, "2024-01-09T07:00", utc));
+        // Friday night is free, Sunday night into Monday is locked
+        assertFalse(at(index, "2024-01-12T22:00", utc));
+        assertTrue(at(index, "2024-01-14T23:00", utc));
+        assertTrue(at(index, "2024-01-15T03:00", utc));
+
+        long nowMs = ms("2024-01-08T12:00", utc);
+        assertEquals(ms("2024-01-08T21:00", utc), index.nextTransitionMs(nowMs, utc));
+    }
+
+    @Test
+    public void fullWeekHasNoTransitions() {
+        ScheduleIndex index = ScheduleIndex.compile(Arrays.asList(
+            new ScheduleIndex.Window(0x7F, 0, ScheduleIndex.MINUTES_PER_DAY)
+        ));
+
+        assertTrue(index.isLockedAt(0));
+        assertTrue(index.isLockedAt(ScheduleIndex.MINUTES_PER_WEEK - 1));
+        assertEquals(-1, index.nextTransitionMs(ms("2024-01-08T12:00", ZoneId.of("UTC")), ZoneId.of("UTC")));
+    }
+
+    @Test
+    public void boundaryInSpringForwardGapFiresAtTheJump() {
+        ZoneId zone = ZoneId.of("America/New_York");
+        // 02:30 does not exist on 2024-03-10; the window starts when clocks jump to 03:00
+        ScheduleIndex index = ScheduleIndex.compile(Arrays.asList(
+            new ScheduleIndex.Window(0x7F, 2 * 60 + 30, 5 * 60)
+        ));
+
+        long nowMs = ms("2024-03-10T01:45", zone);
+        long expected = ms("2024-03-10T03:00", zone);
+
+        assertEquals(expected, index.nextTransitionMs(nowMs, zone));
+        assertTrue(index.isLockedAt(expected, zone));
+    }
+
+    @Test
+    public void randomizedSchedulesMatchBruteForce() {
+        Random random = new Random(20240310L);
+
+        for (int trial = 0; trial < 150; trial++) {
+            List<ScheduleIndex.Window> windows = randomWindows(random);
+            ScheduleIndex index = ScheduleIndex.compile(windows);
+            ZoneId zone = ZONES[random.nextInt(ZONES.length)];
+
+            for (int sample = 0; sample < 6; sample++) {
+                long nowMs = randomInstant(random, zone);
+                assertMatchesBruteForce(windows, index, zone, nowMs);
+            }
+        }
+    }
+
+    @Test
+    public void randomizedSchedulesAroundDstBoundaries() {
+        Random random = new Random(20241103L);
+
+        for (int trial = 0; trial < 150; trial++) {
+            List<ScheduleIndex.Window> windows = randomWindows(random);
+            ScheduleIndex index = ScheduleIndex.compile(windows);
+            ZoneId zone = ZONES[1 + random.nextInt(ZONES.length - 1)];
+
+            // Start within a few hours of a DST change
+            ZoneOffsetTransition change = zone.getRules().nextTransition(
+                ZonedDateTime.of(2024, 1 + random.nextInt(12), 1, 0, 0, 0, 0, zone).toInstant()
+            );
+            long changeMs = change.getInstant().toEpochMilli();
+            long nowMs = changeMs + (random.nextInt(6 * 60) - 3 * 60) * MINUTE_MS + random.nextInt(60000);
+
+            assertMatchesBruteForce(windows, index, zone, nowMs);
+        }
+    }
+
+    private static void assertMatchesBruteForce(List<ScheduleIndex.Window> windows, ScheduleIndex index,
+                                                ZoneId zone, long nowMs) {
+        boolean lockedNow = naiveLocked(windows, nowMs, zone);
+        assertEquals("state at " + nowMs, lockedNow, index.isLockedAt(nowMs, zone));
+
+        long next = index.nextTransitionMs(nowMs, zone);
+
+        // First minute at which the wall-clock state really flips
+        long firstChange = -1;
+        for (long t = (nowMs / MINUTE_MS + 1) * MINUTE_MS; t <= nowMs + LOOKAHEAD_MS; t += MINUTE_MS) {
+            if (naiveLocked(windows, t, zone) != lockedNow) {
+                firstChange = t;
+                break;
+            }
+        }
+
+        if (firstChange < 0) {
+            // Nothing changes; only an offset change may be reported
+            assertTrue("unexpected transition at " + next, next < 0 || isOffsetChange(zone, next));
+            return;
+        }
+
+        assertTrue("missed transition at " + firstChange + ", got " + next, next > nowMs && next <= firstChange);
+        if (next != firstChange) {
+            assertTrue("early transition at " + next, isOffsetChange(zone, next));
+        }
+    }
+
+    /**
+     * Reference implementation: check every window against the local wall clock
+     */
+    private static boolean naiveLocked(List<ScheduleIndex.Window> windows, long ms, ZoneId zone) {
+        ZonedDateTime time = ZonedDateTime.ofInstant(Instant.ofEpochMilli(ms), zone);
+        int minute = time.getHour() * 60 + time.getMinute();
+        for (ScheduleIndex.Window w : windows) {
+            if (w.startMinute == w.endMinute) {
+                continue;
+            }
+            if (w.endMinute > w.startMinute) {
+                if (w.startsOn(time.getDayOfWeek()) && minute >= w.startMinute && minute < w.endMinute) {
+                    return true;
+                }
+            } else {
+                if (w.startsOn(time.getDayOfWeek()) && minute >= w.startMinute) {
+                    return true;
+                }
+                if (w.startsOn(time.getDayOfWeek().minus(1)) && minute < w.endMinute) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOffsetChange(ZoneId zone, long ms) {
+        ZoneOffsetTransition change = zone.getRules().nextTransition(Instant.ofEpochMilli(ms - 1));
+        return change != null && change.getInstant().toEpochMilli() == ms;
+    }
+
+    private static List<ScheduleIndex.Window> randomWindows(Random random) {
+        List<ScheduleIndex.Window> windows = new ArrayList<>();
+        int count = random.nextInt(6);
+        for (int i = 0; i < count; i++) {
+            int days = random.nextBoolean() ? WEEKDAYS : random.nextInt(128);
+            // Mostly quarter hours, sometimes anywhere, sometimes inside typical DST hours
+            int start = random.nextInt(4) == 0 ? (1 + random.nextInt(2)) * 60 + random.nextInt(60)
+                : random.nextInt(ScheduleIndex.MINUTES_PER_DAY / 15) * 15;
+            int end = random.nextInt(3) == 0 ? random.nextInt(ScheduleIndex.MINUTES_PER_DAY + 1)
+                : (start + 15 + random.nextInt(12 * 60)) % ScheduleIndex.MINUTES_PER_DAY;
+            windows.add(new ScheduleIndex.Window(days, start, end));
+        }
+        return windows;
+    }
+
+    private static long randomInstant(Random random, ZoneId zone) {
+        long base = ms("2024-01-01T00:00", zone);
+        return base + (long) (random.nextDouble() * 365 * 24 * 60) * MINUTE_MS + random.nextInt(60000);
+    }
+
+    private static boolean at(ScheduleIndex index, String localTime, ZoneId zone) {
+        return index.isLockedAt(ms(localTime, zone), zone);
+    }
+
+    private static long ms(String localTime, ZoneId zone) {
+        return LocalDateTime.parse(localTime).atZone(zone).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,90 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ScreenTimeBudgetTest {
+    private static final long MINUTE_MS = 60000L;
+    // timerStartMs == 0 means paused, so tests run at a real epoch time
+    private static final long T0 = 1704700800000L; // 2024-01-08T08:00Z
+
+    @Test
+    public void countsOnlyUnpausedTime() {
+        ScreenTimeBudget budget = ScreenTimeBudget.start(3600, T0);
+
+        budget = budget.pause(T0 + 20 * MINUTE_MS);
+        assertTrue(budget.isPaused());
+        assertEquals(20 * 60, budget.getUsageSeconds(T0 + 50 * MINUTE_MS));
+        assertEquals(0, budget.getDeadlineMs());
+
+        budget = budget.resume(T0 + 50 * MINUTE_MS);
+        assertEquals(30 * 60, budget.getUsageSeconds(T0 + 60 * MINUTE_MS));
+        // 40 minutes left from the resume at 50
+        assertEquals(T0 + 90 * MINUTE_MS, budget.getDeadlineMs());
+    }
+
+    @Test
+    public void exceededExactlyAtTheDeadline() {
+        ScreenTimeBudget budget = ScreenTimeBudget.start(3600, T0 + 1000);
+        long deadlineMs = budget.getDeadlineMs();
+
+        assertFalse(budget.isExceeded(deadlineMs - 1));
+        assertTrue(budget.isExceeded(deadlineMs));
+    }
+
+    @Test
+    public void extraTimeAfterTheLimitCountsFromNow() {
+        ScreenTimeBudget budget = ScreenTimeBudget.start(3600, T0);
+
+        // Granted 10 minutes after the limit ran out: 15 more minutes from now
+        ScreenTimeBudget granted = budget.grantExtra(15 * 60, T0 + 70 * MINUTE_MS);
+        assertEquals(T0 + 85 * MINUTE_MS, granted.getDeadlineMs());
+        assertFalse(granted.isExceeded(T0 + 70 * MINUTE_MS));
+
+        // Granted early: added on top of the remaining budget
+        granted = budget.grantExtra(15 * 60, T0 + 10 * MINUTE_MS);
+        assertEquals(T0 + 75 * MINUTE_MS, granted.getDeadlineMs());
+    }
+
+    @Test
+    public void newLimitKeepsUsageAndEnforcement() {
+        ScreenTimeBudget budget = ScreenTimeBudget.start(3600, T0).pause(T0 + 20 * MINUTE_MS);
+
+        ScreenTimeBudget changed = budget.withLimit(7200);
+        assertEquals(7200, changed.limitSeconds);
+        assertTrue(changed.enforcing);
+        assertTrue(changed.isPaused());
+        assertEquals(20 * 60, changed.getUsageSeconds(T0 + 60 * MINUTE_MS));
+        assertFalse(ScreenTimeBudget.NONE.withLimit(1800).enforcing);
+    }
+
+    @Test
+    public void clampsLimitToTheOfferedRange() {
+        assertEquals(15, ScreenTimeBudget.clampLimitMinutes(5));
+        assertEquals(15, ScreenTimeBudget.clampLimitMinutes(-30));
+        assertEquals(480, ScreenTimeBudget.clampLimitMinutes(600));
+        assertEquals(120, ScreenTimeBudget.clampLimitMinutes(120));
+        assertEquals(15, ScreenTimeBudget.clampLimitMinutes(15));
+        assertEquals(480, ScreenTimeBudget.clampLimitMinutes(480));
+    }
+
+    @Test
+    public void transitionsThatDoNotApplyReturnTheSameState() {
+        ScreenTimeBudget stopped = ScreenTimeBudget.start(3600, T0).stop();
+
+        assertFalse(stopped.enforcing);
+        assertEquals(3600, stopped.limitSeconds);
+        assertSame(stopped, stopped.pause(T0 + MINUTE_MS));
+        assertSame(stopped, stopped.resume(T0 + MINUTE_MS));
+        assertSame(stopped, stopped.grantExtra(60, T0 + MINUTE_MS));
+        assertFalse(stopped.isExceeded(Long.MAX_VALUE / 2));
+
+        ScreenTimeBudget running = ScreenTimeBudget.start(3600, T0);
+        assertSame(running, running.resume(T0 + MINUTE_MS));
+        assertSame(running, running.grantExtra(0, T0 + MINUTE_MS));
+    }
+}
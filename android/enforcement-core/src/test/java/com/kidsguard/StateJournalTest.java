@@ -0,0 +1,215 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StateJournalTest {
+    private static final long T0 = 1704700800000L; // 2024-01-08 08:00 UTC
+    private static final int COMPACT_AFTER = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Thrown at a write point to stand in for the process being killed */
+    private static class Killed extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static class KillAt implements StateJournal.WritePoint {
+        private final int killAt;
+        private int reached = 0;
+        String killedAt;
+
+        KillAt(int killAt) {
+            this.killAt = killAt;
+        }
+
+        @Override
+        public void reached(String point) throws IOException {
+            if (reached++ == killAt) {
+                killedAt = point;
+                throw new Killed();
+            }
+        }
+    }
+
+    /** Start, pause, resume, extra time and stop, enough to compact twice */
+    private static List<ScreenTimeBudget> script() {
+        List<ScreenTimeBudget> states = new ArrayList<>();
+        long now = T0;
+        ScreenTimeBudget budget = ScreenTimeBudget.start(3600, now);
+        states.add(budget);
+        for (int i = 0; i < 3; i++) {
+            now += 600000;
+            states.add(budget = budget.pause(now));
+            now += 60000;
+            states.add(budget = budget.resume(now));
+            now += 60000;
+            states.add(budget = budget.grantExtra(900, now));
+        }
+        states.add(budget.stop());
+        return states;
+    }
+
+    @Test
+    public void emptyJournalHasNoState() throws IOException {
+        StateJournal journal = new StateJournal(folder.newFile("journal"));
+        assertNull(journal.recover());
+    }
+
+    @Test
+    public void recoversTheLastStateAcrossCompactions() throws IOException {
+        File file = new File(folder.getRoot(), "journal");
+        StateJournal journal = new StateJournal(file, COMPACT_AFTER, killNever());
+        journal.recover();
+        List<ScreenTimeBudget> states = script();
+        for (ScreenTimeBudget state : states) {
+            journal.append(state);
+        }
+        assertTrue(journal.getRecordCount() < COMPACT_AFTER);
+        assertTrue(file.length() < COMPACT_AFTER * StateJournal.RECORD_SIZE);
+
+        assertSameBudget(states.get(states.size() - 1), new StateJournal(file).recover());
+    }
+
+    @Test
+    public void killAtEveryWritePointRestoresTheLastDurableState() throws IOException {
+        List<ScreenTimeBudget> states = script();
+        int killPoints = 0;
+        for (int killAt = 0; ; killAt++) {
+            File file = new File(folder.getRoot(), "journal" + killAt);
+            KillAt hook = new KillAt(killAt);
+            StateJournal journal = new StateJournal(file, COMPACT_AFTER, hook);
+            journal.recover();
+
+            ScreenTimeBudget durable = null;
+            ScreenTimeBudget inFlight = null;
+            try {
+                for (ScreenTimeBudget state : states) {
+                    inFlight = state;
+                    journal.append(state);
+                    durable = state;
+                }
+            } catch (Killed killed) {
+                // The new process finds whatever reached the file
+            }
+            if (hook.killedAt == null) {
+                break; // Ran past the last write point
+            }
+            killPoints++;
+
+            // Complete records survive a kill even before fsync; torn ones do not
+            boolean recordWritten = !hook.killedAt.equals("append") && !hook.killedAt.equals("append.torn");
+            ScreenTimeBudget expected = recordWritten ? inFlight : durable;
+
+            StateJournal restarted = new StateJournal(file, COMPACT_AFTER, killNever());
+            ScreenTimeBudget recovered = restarted.recover();
+            assertSameBudget("killed at " + hook.killedAt + " (#" + killAt + ")", expected, recovered);
+
+            // The restarted journal keeps working after dropping the torn tail
+            ScreenTimeBudget next = ScreenTimeBudget.start(1800, T0 + 86400000L);
+            restarted.append(next);
+            assertSameBudget("append after " + hook.killedAt, next, new StateJournal(file).recover());
+        }
+        // 4 points per append plus 4 per compaction
+        assertEquals(states.size() * 4 + (states.size() - 1) / (COMPACT_AFTER - 1) * 4, killPoints);
+    }
+
+    @Test
+    public void corruptRecordEndsRecoveryAtThePreviousOne() throws IOException {
+        File file = new File(folder.getRoot(), "journal");
+        StateJournal journal = new StateJournal(file);
+        journal.recover();
+        ScreenTimeBudget started = ScreenTimeBudget.start(3600, T0);
+        ScreenTimeBudget paused = started.pause(T0 + 60000);
+        journal.append(started);
+        journal.append(paused);
+        journal.close();
+
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        raw.seek(StateJournal.RECORD_SIZE + 20);
+        raw.write(raw.read() ^ 0x01);
+        raw.close();
+
+        StateJournal restarted = new StateJournal(file);
+        assertSameBudget(started, restarted.recover());
+        assertEquals(1, restarted.getRecordCount());
+        assertEquals(StateJournal.RECORD_SIZE, file.length());
+    }
+
+    @Test
+    public void staleRecordEndsRecoveryAtThePreviousOne() throws IOException {
+        File file = new File(folder.getRoot(), "journal");
+        StateJournal journal = new StateJournal(file);
+        journal.recover();
+        ScreenTimeBudget started = ScreenTimeBudget.start(3600, T0);
+        ScreenTimeBudget paused = started.pause(T0 + 60000);
+        journal.append(started);
+        journal.append(paused);
+        journal.close();
+
+        // A valid record with an old sequence number, as from a writer still on the pre-compaction file
+        RandomAccessFile raw = new RandomAccessFile(file, "rw");
+        byte[] first = new byte[StateJournal.RECORD_SIZE];
+        raw.readFully(first);
+        raw.seek(raw.length());
+        raw.write(first);
+        raw.close();
+
+        StateJournal restarted = new StateJournal(file);
+        assertSameBudget(paused, restarted.recover());
+        assertEquals(2, restarted.getRecordCount());
+        assertEquals(2 * StateJournal.RECORD_SIZE, file.length());
+    }
+
+    @Test
+    public void compactionSyncsTheDirectoryAfterTheRename() throws IOException {
+        File file = new File(folder.getRoot(), "journal");
+        final List<File> synced = new ArrayList<>();
+        StateJournal journal = new StateJournal(file, new StateJournal.DirectorySync() {
+            @Override
+            public void sync(File directory) throws IOException {
+                assertTrue("synced before the rename", !new File(file.getPath() + ".tmp").exists());
+                synced.add(directory);
+            }
+        });
+        journal.recover();
+        for (int i = 0; i < StateJournal.DEFAULT_COMPACT_AFTER; i++) {
+            journal.append(ScreenTimeBudget.start(3600 + i, T0));
+        }
+        assertEquals(1, journal.getRecordCount());
+        assertEquals(1, synced.size());
+        assertEquals(folder.getRoot().getAbsoluteFile(), synced.get(0));
+    }
+
+    private static StateJournal.WritePoint killNever() {
+        return new KillAt(-1);
+    }
+
+    private static void assertSameBudget(ScreenTimeBudget expected, ScreenTimeBudget actual) {
+        assertSameBudget("", expected, actual);
+    }
+
+    private static void assertSameBudget(String message, ScreenTimeBudget expected, ScreenTimeBudget actual) {
+        if (expected == null) {
+            assertNull(message, actual);
+            return;
+        }
+        assertEquals(message, expected.limitSeconds, actual.limitSeconds);
+        assertEquals(message, expected.enforcing, actual.enforcing);
+        assertEquals(message, expected.timerStartMs, actual.timerStartMs);
+        assertEquals(message, expected.accumulatedMs, actual.accumulatedMs);
+        assertEquals(message, expected.bonusSeconds, actual.bonusSeconds);
+    }
+}
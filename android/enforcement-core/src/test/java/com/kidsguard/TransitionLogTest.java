@@ -0,0 +1,36 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.ZoneOffset;
+
+public class TransitionLogTest {
+    private static final long T0 = 1704700800000L; // 2024-01-08 08:00 UTC
+
+    @Test
+    public void keepsTheNewestEntriesOldestFirst() {
+        TransitionLog log = new TransitionLog(3);
+        log.record(T0, "rule violated", PolicyRules.BUDGET_ID);
+        log.record(T0 + 1000, "device locked", null);
+        log.record(T0 + 2000, "rule cleared", PolicyRules.BUDGET_ID);
+        log.record(T0 + 3000, "overlay dismissed", null);
+
+        assertEquals(3, log.size());
+        assertEquals(4, log.getRecordedCount());
+        assertEquals("device locked", log.getEvent(0));
+        assertEquals(T0 + 1000, log.getTimeMs(0));
+        assertEquals("overlay dismissed", log.getEvent(2));
+
+        StringWriter out = new StringWriter();
+        log.dump(new PrintWriter(out, true), "  ", ZoneOffset.UTC);
+        String text = out.toString();
+        assertTrue(text, text.startsWith("  (1 older entries dropped)"));
+        assertTrue(text, text.contains("  2024-01-08 08:00:02.000 rule cleared " + PolicyRules.BUDGET_ID));
+        assertTrue(text, text.contains("  2024-01-08 08:00:03.000 overlay dismissed\n"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.kidsguard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VolumeMathTest {
+    @Test
+    public void convertsBetweenPercentAndSteps() {
+        assertEquals(60, VolumeMath.toPercent(9, 15));
+        assertEquals(9, VolumeMath.toStreamVolume(60, 15));
+        assertEquals(0, VolumeMath.toPercent(5, 0));
+    }
+
+    @Test
+    public void clampsPercentToTheValidRange() {
+        assertEquals(100, VolumeMath.clampPercent(150));
+        assertEquals(0, VolumeMath.clampPercent(-10));
+        assertEquals(75, VolumeMath.clampPercent(75));
+    }
+
+    @Test
+    public void correctsOnlyBeyondTheRoundingTolerance() {
+        // 40% on a 15 step stream rounds down to 6 steps, which reads back as 40%
+        assertFalse(VolumeMath.needsCorrection(VolumeMath.toPercent(6, 15), 40));
+        assertFalse(VolumeMath.needsCorrection(42, 40));
+        assertTrue(VolumeMath.needsCorrection(46, 40));
+    }
+}
@@ -44,8 +44,45 @@ const mockNativeModules = {
     startEnforcing: jest.fn(() => Promise.resolve()),
     stopEnforcing: jest.fn(() => Promise.resolve()),
     isEnforcing: jest.fn(() => Promise.resolve(false)),
+    setWarningMinutes: jest.fn(() => Promise.resolve(true)),
+    grantExtraTime: jest.fn(() => Promise.resolve(true)),
+    pauseTimer: jest.fn(() => Promise.resolve(true)),
+    resumeTimer: jest.fn(() => Promise.resolve(true)),
+    isPaused: jest.fn(() => Promise.resolve(false)),
+    setScheduleWindows: jest.fn(() => Promise.resolve(true)),
+    isInScheduleWindow: jest.fn(() => Promise.resolve(false)),
+    setMaxSessionMinutes: jest.fn(() => Promise.resolve(true)),
+    setAppPolicies: jest.fn(() => Promise.resolve(true)),
+    getAppBlockLatency: jest.fn(() => Promise.resolve({ lastMs: -1, maxMs: -1, blocks: 0, slowBlocks: 0, targetMs: 300 })),
+    getEnforcementStats: jest.fn(() => Promise.resolve({})),
+    getLatencyStats: jest.fn(() => Promise.resolve({})),
+    getSnapshotSync: jest.fn(() => ({ usageSeconds: 0, limitSeconds: 7200, enforcing: false, paused: false, deadlineMs: 0 })),
+    addListener: jest.fn(),
+    removeListeners: jest.fn(),
+    checkUsageAccessPermission: jest.fn(() => Promise.resolve(true)),
+    requestUsageAccessPermission: jest.fn(() => Promise.resolve(true)),
+  },
+  AdInitModule: {
+    whenReady: jest.fn(() => Promise.resolve(true)),
+  },
+  PINStorageModule: {
+    savePIN: jest.fn(() => Promise.resolve(true)),
+    verifyPIN: jest.fn((pin) => Promise.resolve({
+      valid: pin === '1234',
+      outcome: pin === '1234' ? 'ACCEPTED' : 'REJECTED',
+      lockoutSeconds: 0,
+    })),
+  },
+  SettingsModule: {
+    getAllSettings: jest.fn(() => Promise.resolve({
+      volume: { volume: 50, locked: false, isDefault: true },
+      screenTime: { limitMinutes: 120, locked: false, isDefault: true },
+    })),
+    saveVolumeSettings: jest.fn(() => Promise.resolve(true)),
+    saveScreenTimeSettings: jest.fn(() => Promise.resolve(true)),
   },
   EnforcementServiceModule: {
+    startService: jest.fn(() => Promise.resolve(true)),
     updateScreenTimeEnforcement: jest.fn(() => Promise.resolve()),
     stopScreenTimeEnforcement: jest.fn(() => Promise.resolve()),
   },
@@ -5,7 +5,7 @@ import { Button, Text, Card, IconButton } from 'react-native-paper';
 import { theme, statusColors } from '../utils/theme';
 import { getAllSettings } from '../utils/storage';
 import { initializeVolumeControl, isVolumeMonitoring } from '../utils/volumeControl';
-import { initializeScreenTimeControl, getDailyUsageSeconds, isScreenTimeMonitoring, formatSeconds, formatMinutes } from '../utils/screenTimeControl';
+import { initializeScreenTimeControl, getDailyUsageSeconds, formatSeconds, formatMinutes } from '../utils/screenTimeControl';
 import { t } from '../utils/i18n';
 
 export default function HomeScreen({ navigation }) {
@@ -32,19 +32,9 @@ export default function HomeScreen({ navigation }) {
       const allSettings = await getAllSettings();
       setSettings(allSettings);
 
-      // Load screen time data and sync lock state
+      // Load screen time data
       if (allSettings.screenTime) {
         try {
-          // Sync lock state with native enforcement
-          if (allSettings.screenTime.locked) {
-            const nativeEnforcing = await isScreenTimeMonitoring();
-            if (!nativeEnforcing) {
-              allSettings.screenTime.locked = false;
-              const { saveScreenTimeSettings } = require('../utils/storage');
-              await saveScreenTimeSettings({ limitMinutes: allSettings.screenTime.limitMinutes, locked: false });
-            }
-          }
-
           const elapsed = await getDailyUsageSeconds();
           setDailyUsageSeconds(elapsed);
         } catch (error) {
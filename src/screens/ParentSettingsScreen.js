@@ -7,7 +7,6 @@ import { updateVolumeSettings, getVolume } from '../utils/volumeControl';
 import {
   updateScreenTimeSettings,
   getDailyUsageSeconds,
-  isScreenTimeMonitoring,
   checkOverlayPermission,
   requestOverlayPermission,
   formatSeconds,
@@ -92,21 +91,8 @@ export default function ParentSettingsScreen({ navigation }) {
 
       if (hasPersistedScreenTime) {
         setScreenTimeLimitMinutes(snapToScreenTimeStep(settings.screenTime.limitMinutes));
-
-        // Sync lock state with native enforcement
-        // (overlay PIN unlock sets native enforcing=false but doesn't update AsyncStorage)
-        let isLocked = settings.screenTime.locked;
-        if (isLocked) {
-          const nativeEnforcing = await isScreenTimeMonitoring();
-          if (!nativeEnforcing) {
-            // Native enforcement was stopped (e.g., by PIN unlock on overlay)
-            isLocked = false;
-            // Sync AsyncStorage
-            const { saveScreenTimeSettings } = require('../utils/storage');
-            await saveScreenTimeSettings({ limitMinutes: settings.screenTime.limitMinutes, locked: false });
-          }
-        }
-        setScreenTimeLocked(isLocked);
+        // Native enforcement state, so an overlay PIN unlock is already reflected
+        setScreenTimeLocked(settings.screenTime.locked);
       } else {
         setScreenTimeLimitMinutes(120);
         setScreenTimeLocked(false);
@@ -4,17 +4,33 @@ jest.mock('../storage', () => ({
   getScreenTimeSettings: jest.fn(),
 }));
 
-import { NativeModules } from 'react-native';
+import { NativeModules, NativeEventEmitter } from 'react-native';
 import * as storage from '../storage';
 import {
   initializeScreenTimeControl,
   getDailyUsageSeconds,
+  getScreenTimeSnapshotSync,
+  addScreenTimeListener,
+  removeScreenTimeListener,
   checkOverlayPermission,
   requestOverlayPermission,
   updateScreenTimeSettings,
   formatSeconds,
   formatMinutes,
   isScreenTimeMonitoring,
+  setWarningMinutes,
+  grantExtraTime,
+  pauseScreenTime,
+  resumeScreenTime,
+  isScreenTimePaused,
+  setScheduleWindows,
+  isInScheduleWindow,
+  setMaxSessionMinutes,
+  setAppPolicies,
+  getAppBlockLatency,
+  getEnforcementStats,
+  getLatencyStats,
+  checkUsageAccessPermission,
 } from '../screenTimeControl';
 
 // Get references to the mocked native modules (from jest.setup.js)
@@ -38,6 +54,17 @@ describe('Screen Time Control Utility', () => {
     mockScreenTimeModule.startEnforcing.mockResolvedValue();
     mockScreenTimeModule.stopEnforcing.mockResolvedValue();
     mockScreenTimeModule.isEnforcing.mockResolvedValue(false);
+    mockScreenTimeModule.setWarningMinutes.mockResolvedValue(true);
+    mockScreenTimeModule.grantExtraTime.mockResolvedValue(true);
+    mockScreenTimeModule.pauseTimer.mockResolvedValue(true);
+    mockScreenTimeModule.resumeTimer.mockResolvedValue(true);
+    mockScreenTimeModule.isPaused.mockResolvedValue(false);
+    mockScreenTimeModule.setScheduleWindows.mockResolvedValue(true);
+    mockScreenTimeModule.isInScheduleWindow.mockResolvedValue(false);
+    mockScreenTimeModule.setMaxSessionMinutes.mockResolvedValue(true);
+    mockScreenTimeModule.setAppPolicies.mockResolvedValue(true);
+    mockScreenTimeModule.checkUsageAccessPermission.mockResolvedValue(true);
+    mockEnforcementServiceModule.startService.mockResolvedValue(true);
     mockEnforcementServiceModule.updateScreenTimeEnforcement.mockResolvedValue();
     mockEnforcementServiceModule.stopScreenTimeEnforcement.mockResolvedValue();
   });
@@ -114,6 +141,51 @@ describe('Screen Time Control Utility', () => {
     });
   });
 
+  describe('getScreenTimeSnapshotSync', () => {
+    it('should return the native snapshot without a promise', () => {
+      mockScreenTimeModule.getSnapshotSync.mockReturnValueOnce({
+        usageSeconds: 1800, limitSeconds: 7200, enforcing: true, paused: false, deadlineMs: 1704700800000,
+      });
+
+      const snapshot = getScreenTimeSnapshotSync();
+
+      expect(snapshot.usageSeconds).toBe(1800);
+      expect(snapshot.enforcing).toBe(true);
+    });
+
+    it('should return null when the synchronous call fails', () => {
+      mockScreenTimeModule.getSnapshotSync.mockImplementationOnce(() => {
+        throw new Error('Calling synchronous methods on native modules is not supported in Chrome');
+      });
+
+      expect(getScreenTimeSnapshotSync()).toBeNull();
+    });
+  });
+
+  describe('screen time events', () => {
+    it('should subscribe to the native event stream', () => {
+      const callback = jest.fn();
+      const emitter = new NativeEventEmitter();
+
+      const subscription = addScreenTimeListener(callback);
+
+      expect(emitter.addListener).toHaveBeenCalledWith('onScreenTimeEvent', callback);
+      expect(subscription.remove).toBeDefined();
+    });
+
+    it('should remove the subscription', () => {
+      const subscription = { remove: jest.fn() };
+
+      removeScreenTimeListener(subscription);
+
+      expect(subscription.remove).toHaveBeenCalled();
+    });
+
+    it('should ignore a missing subscription', () => {
+      expect(() => removeScreenTimeListener(null)).not.toThrow();
+    });
+  });
+
   describe('checkOverlayPermission', () => {
     it('should return true when permission is granted', async () => {
       mockScreenTimeModule.checkOverlayPermission.mockResolvedValue(true);
@@ -204,6 +276,203 @@ describe('Screen Time Control Utility', () => {
     });
   });
 
+  describe('grantExtraTime', () => {
+    it('should grant extra minutes through native module', async () => {
+      const result = await grantExtraTime(15);
+
+      expect(result).toBe(true);
+      expect(mockScreenTimeModule.grantExtraTime).toHaveBeenCalledWith(15);
+      expect(mockScreenTimeModule.stopEnforcing).not.toHaveBeenCalled();
+    });
+
+    it('should return false when not enforcing', async () => {
+      mockScreenTimeModule.grantExtraTime.mockResolvedValue(false);
+
+      const result = await grantExtraTime(15);
+
+      expect(result).toBe(false);
+    });
+
+    it('should return false on error', async () => {
+      mockScreenTimeModule.grantExtraTime.mockRejectedValue(new Error('Error'));
+
+      const result = await grantExtraTime(15);
+
+      expect(result).toBe(false);
+    });
+  });
+
+  describe('pause and resume', () => {
+    it('should pause the timer without stopping enforcement', async () => {
+      const result = await pauseScreenTime();
+
+      expect(result).toBe(true);
+      expect(mockScreenTimeModule.pauseTimer).toHaveBeenCalled();
+      expect(mockScreenTimeModule.stopEnforcing).not.toHaveBeenCalled();
+    });
+
+    it('should resume the timer', async () => {
+      const result = await resumeScreenTime();
+
+      expect(result).toBe(true);
+      expect(mockScreenTimeModule.resumeTimer).toHaveBeenCalled();
+    });
+
+    it('should report paused state', async () => {
+      mockScreenTimeModule.isPaused.mockResolvedValue(true);
+
+      const paused = await isScreenTimePaused();
+
+      expect(paused).toBe(true);
+    });
+
+    it('should return false on errors', async () => {
+      mockScreenTimeModule.pauseTimer.mockRejectedValue(new Error('Error'));
+      mockScreenTimeModule.resumeTimer.mockRejectedValue(new Error('Error'));
+      mockScreenTimeModule.isPaused.mockRejectedValue(new Error('Error'));
+
+      expect(await pauseScreenTime()).toBe(false);
+      expect(await resumeScreenTime()).toBe(false);
+      expect(await isScreenTimePaused()).toBe(false);
+    });
+  });
+
+  describe('schedule windows', () => {
+    const bedtime = { days: [1, 2, 3, 4, 7], startMinute: 1260, endMinute: 420 };
+
+    it('should save windows and make sure the service is running', async () => {
+      const result = await setScheduleWindows([bedtime]);
+
+      expect(result).toBe(true);
+      expect(mockScreenTimeModule.setScheduleWindows).toHaveBeenCalledWith([bedtime]);
+      expect(mockEnforcementServiceModule.startService).toHaveBeenCalled();
+    });
+
+    it('should not start the service when clearing windows', async () => {
+      await setScheduleWindows([]);
+
+      expect(mockScreenTimeModule.setScheduleWindows).toHaveBeenCalledWith([]);
+      expect(mockEnforcementServiceModule.startService).not.toHaveBeenCalled();
+    });
+
+    it('should return false on error', async () => {
+      mockScreenTimeModule.setScheduleWindows.mockRejectedValue(new Error('Error'));
+
+      const result = await setScheduleWindows([bedtime]);
+
+      expect(result).toBe(false);
+    });
+
+    it('should report whether a window is active', async () => {
+      mockScreenTimeModule.isInScheduleWindow.mockResolvedValue(true);
+
+      expect(await isInScheduleWindow()).toBe(true);
+    });
+  });
+
+  describe('setMaxSessionMinutes', () => {
+    it('should save the limit and make sure the service is running', async () => {
+      const result = await setMaxSessionMinutes(45);
+
+      expect(result).toBe(true);
+      expect(mockScreenTimeModule.setMaxSessionMinutes).toHaveBeenCalledWith(45);
+      expect(mockEnforcementServiceModule.startService).toHaveBeenCalled();
+    });
+
+    it('should not start the service when turning the limit off', async () => {
+      await setMaxSessionMinutes(0);
+
+      expect(mockScreenTimeModule.setMaxSessionMinutes).toHaveBeenCalledWith(0);
+      expect(mockEnforcementServiceModule.startService).not.toHaveBeenCalled();
+    });
+
+    it('should return false on error', async () => {
+      mockScreenTimeModule.setMaxSessionMinutes.mockRejectedValue(new Error('Error'));
+
+      const result = await setMaxSessionMinutes(45);
+
+      expect(result).toBe(false);
+    });
+  });
+
+  describe('app policies', () => {
+    const game = { packageName: 'com.example.game', policy: 'block' };
+
+    it('should save policies and make sure the service is running', async () => {
+      const result = await setAppPolicies([game]);
+
+      expect(result).toBe(true);
+      expect(mockScreenTimeModule.setAppPolicies).toHaveBeenCalledWith([game]);
+      expect(mockEnforcementServiceModule.startService).toHaveBeenCalled();
+    });
+
+    it('should not start the service when clearing policies', async () => {
+      await setAppPolicies([]);
+
+      expect(mockEnforcementServiceModule.startService).not.toHaveBeenCalled();
+    });
+
+    it('should return false on error', async () => {
+      mockScreenTimeModule.setAppPolicies.mockRejectedValue(new Error('Error'));
+
+      const result = await setAppPolicies([game]);
+
+      expect(result).toBe(false);
+    });
+
+    it('should return latency stats, or null on error', async () => {
+      mockScreenTimeModule.getAppBlockLatency.mockResolvedValueOnce({ lastMs: 120, maxMs: 250, blocks: 3, slowBlocks: 0, targetMs: 300 });
+      expect((await getAppBlockLatency()).maxMs).toBe(250);
+
+      mockScreenTimeModule.getAppBlockLatency.mockRejectedValueOnce(new Error('Error'));
+      expect(await getAppBlockLatency()).toBeNull();
+    });
+
+    it('should return enforcement stats, or null on error', async () => {
+      mockScreenTimeModule.getEnforcementStats.mockResolvedValueOnce({
+        service_tick: { wakeups: 60, callbacks: 60, binderCalls: 0, cpuMs: 12.5 },
+      });
+      expect((await getEnforcementStats()).service_tick.wakeups).toBe(60);
+
+      mockScreenTimeModule.getEnforcementStats.mockRejectedValueOnce(new Error('Error'));
+      expect(await getEnforcementStats()).toBeNull();
+    });
+
+    it('should return latency stats, or null on error', async () => {
+      mockScreenTimeModule.getLatencyStats.mockResolvedValueOnce({
+        pinVerify: { count: 4, p50Ms: 0.2, p90Ms: 0.4, p99Ms: 0.9, maxMs: 0.9 },
+      });
+      expect((await getLatencyStats()).pinVerify.p99Ms).toBe(0.9);
+
+      mockScreenTimeModule.getLatencyStats.mockRejectedValueOnce(new Error('Error'));
+      expect(await getLatencyStats()).toBeNull();
+    });
+
+
+      expect(await checkUsageAccessPermission()).toBe(true);
+
+      mockScreenTimeModule.checkUsageAccessPermission.mockRejectedValue(new Error('Error'));
+      expect(await checkUsageAccessPermission()).toBe(false);
+    });
+  });
+
+  describe('setWarningMinutes', () => {
+    it('should pass warning thresholds to native module', async () => {
+      const result = await setWarningMinutes([15, 5, 1]);
+
+      expect(result).toBe(true);
+      expect(mockScreenTimeModule.setWarningMinutes).toHaveBeenCalledWith([15, 5, 1]);
+    });
+
+    it('should return false on error', async () => {
+      mockScreenTimeModule.setWarningMinutes.mockRejectedValue(new Error('Error'));
+
+      const result = await setWarningMinutes([5]);
+
+      expect(result).toBe(false);
+    });
+  });
+
   describe('formatSeconds', () => {
     it('should format seconds to hours and minutes', () => {
       expect(formatSeconds(3661)).toBe('1h 1m');
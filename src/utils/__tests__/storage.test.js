@@ -1,5 +1,6 @@
 import * as Keychain from 'react-native-keychain';
 import AsyncStorage from '@react-native-async-storage/async-storage';
+import { NativeModules } from 'react-native';
 import {
   savePIN,
   verifyPIN,
@@ -15,8 +16,24 @@ import {
   saveLastAdShownTime,
   getLastAdShownTime,
   canShowAd,
+  migrateSettingsToNativeStore,
 } from '../storage';
 
+const mockSettingsModule = NativeModules.SettingsModule;
+const mockPINStorageModule = NativeModules.PINStorageModule;
+
+// Native verification against the cached PIN '1234'
+const nativeVerify = (pin) => Promise.resolve({
+  valid: pin === '1234',
+  outcome: pin === '1234' ? 'ACCEPTED' : 'REJECTED',
+  lockoutSeconds: 0,
+});
+
+const NATIVE_SETTINGS = {
+  volume: { volume: 60, locked: true, isDefault: false },
+  screenTime: { limitMinutes: 180, locked: true, isDefault: false },
+};
+
 describe('Storage Utility', () => {
   beforeEach(() => {
     // Clear all mocks before each test
@@ -28,6 +45,10 @@ describe('Storage Utility', () => {
     AsyncStorage.removeItem.mockResolvedValue();
     Keychain.setGenericPassword.mockResolvedValue(true);
     Keychain.getGenericPassword.mockResolvedValue({ password: '1234' });
+    mockSettingsModule.getAllSettings.mockResolvedValue(NATIVE_SETTINGS);
+    mockPINStorageModule.verifyPIN.mockImplementation(nativeVerify);
+    mockSettingsModule.saveVolumeSettings.mockResolvedValue(true);
+    mockSettingsModule.saveScreenTimeSettings.mockResolvedValue(true);
   });
 
   describe('PIN Management', () => {
@@ -51,100 +72,44 @@ describe('Storage Utility', () => {
 
     describe('verifyPIN', () => {
       it('should return true for correct PIN', async () => {
-        Keychain.getGenericPassword.mockResolvedValue({ password: '1234' });
-
         const result = await verifyPIN('1234');
 
         expect(result).toBe(true);
-        expect(Keychain.getGenericPassword).toHaveBeenCalledWith({ service: 'parent_pin' });
+        expect(mockPINStorageModule.verifyPIN).toHaveBeenCalledWith('1234');
       });
 
       it('should return false for incorrect PIN', async () => {
-        Keychain.getGenericPassword.mockResolvedValue({ password: '1234' });
-
         const result = await verifyPIN('9999');
 
         expect(result).toBe(false);
       });
 
-      it('should return false if no PIN is stored', async () => {
-        Keychain.getGenericPassword.mockResolvedValue(false);
-
-        const result = await verifyPIN('1234');
-
-        expect(result).toBe(false);
-      });
-
-      it('should increment failed attempts on incorrect PIN', async () => {
-        Keychain.getGenericPassword.mockResolvedValue({ password: '1234' });
-
+      it('should not keep attempt counts in AsyncStorage', async () => {
         await verifyPIN('9999');
-
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith('failed_attempts', '1');
-      });
-
-      it('should clear failed attempts on successful PIN entry', async () => {
-        Keychain.getGenericPassword.mockResolvedValue({ password: '1234' });
-
         await verifyPIN('1234');
 
-        expect(AsyncStorage.removeItem).toHaveBeenCalledWith('failed_attempts');
-      });
-
-      it('should lock out after 5 failed attempts', async () => {
-        Keychain.getGenericPassword.mockResolvedValue({ password: '1234' });
-        AsyncStorage.getItem.mockResolvedValue('4'); // 4 previous failed attempts
-
-        await expect(verifyPIN('9999')).rejects.toThrow(/Locked out/);
-      });
-
-      it('should calculate exponential backoff correctly', async () => {
-        Keychain.getGenericPassword.mockResolvedValue({ password: '1234' });
-        AsyncStorage.getItem.mockResolvedValue('4'); // 4 previous attempts
-
-        try {
-          await verifyPIN('9999'); // This will be the 5th attempt
-        } catch (error) {
-          // Math.pow(2, Math.floor(5 / 5)) * 60 * 1000 = 120 seconds
-          expect(error.message).toContain('120 seconds');
-        }
+        expect(AsyncStorage.setItem).not.toHaveBeenCalled();
+        expect(AsyncStorage.removeItem).not.toHaveBeenCalled();
       });
 
-      it('should calculate longer lockout for 10 failed attempts', async () => {
-        Keychain.getGenericPassword.mockResolvedValue({ password: '1234' });
-        AsyncStorage.getItem.mockResolvedValue('9'); // 9 previous attempts
+      it('should throw when this attempt started a lockout', async () => {
+        mockPINStorageModule.verifyPIN.mockResolvedValue({ valid: false, outcome: 'LOCKED_OUT', lockoutSeconds: 120 });
 
-        try {
-          await verifyPIN('9999'); // This will be the 10th attempt
-        } catch (error) {
-          // Math.pow(2, Math.floor(10 / 5)) * 60 * 1000 = 240 seconds
-          expect(error.message).toContain('240 seconds');
-        }
+        await expect(verifyPIN('9999')).rejects.toThrow('Too many failed attempts. Locked out for 120 seconds.');
       });
 
       it('should throw lockout error if still in lockout period', async () => {
-        const futureTime = Date.now() + 60000; // 60 seconds in future
-        AsyncStorage.getItem.mockImplementation((key) => {
-          if (key === 'lockout_until') return Promise.resolve(futureTime.toString());
-          return Promise.resolve(null);
-        });
+        mockPINStorageModule.verifyPIN.mockResolvedValue({ valid: false, outcome: 'REFUSED', lockoutSeconds: 60 });
 
-        await expect(verifyPIN('1234')).rejects.toThrow(/Locked out/);
+        await expect(verifyPIN('1234')).rejects.toThrow('Locked out. Please try again in 60 seconds.');
       });
 
-      it('should clear lockout if period has passed', async () => {
-        const pastTime = Date.now() - 1000; // 1 second in past
-        Keychain.getGenericPassword.mockResolvedValue({ password: '1234' });
-        AsyncStorage.getItem.mockImplementation((key) => {
-          if (key === 'lockout_until') return Promise.resolve(pastTime.toString());
-          return Promise.resolve(null);
-        });
+      it('should return false if the native check fails', async () => {
+        mockPINStorageModule.verifyPIN.mockRejectedValue(new Error('Native error'));
 
         const result = await verifyPIN('1234');
 
-        expect(result).toBe(true);
-        expect(AsyncStorage.removeItem).toHaveBeenCalledWith('lockout_until');
-        expect(AsyncStorage.removeItem).toHaveBeenCalledWith('failed_attempts');
+        expect(result).toBe(false);
       });
     });
 
@@ -188,225 +153,142 @@ describe('Storage Utility', () => {
 
   describe('Volume Settings', () => {
     describe('saveVolumeSettings', () => {
-      it('should save volume settings to AsyncStorage', async () => {
+      it('should save the volume level to the native store', async () => {
         await saveVolumeSettings({ volume: 75, locked: true });
 
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith(
-          'volume_settings',
-          JSON.stringify({ volume: 75, locked: true })
-        );
-      });
-
-      it('should clamp volume to 0-100 range', async () => {
-        await saveVolumeSettings({ volume: 150, locked: false });
-
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith(
-          'volume_settings',
-          JSON.stringify({ volume: 100, locked: false })
-        );
-      });
-
-      it('should clamp negative volume to 0', async () => {
-        await saveVolumeSettings({ volume: -10, locked: false });
-
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith(
-          'volume_settings',
-          JSON.stringify({ volume: 0, locked: false })
-        );
+        expect(mockSettingsModule.saveVolumeSettings).toHaveBeenCalledWith(75);
+        expect(AsyncStorage.setItem).not.toHaveBeenCalled();
       });
 
       it('should use default volume if not provided', async () => {
         await saveVolumeSettings({ locked: true });
 
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith(
-          'volume_settings',
-          JSON.stringify({ volume: 50, locked: true })
-        );
+        expect(mockSettingsModule.saveVolumeSettings).toHaveBeenCalledWith(50);
       });
 
-      it('should convert locked to boolean', async () => {
-        await saveVolumeSettings({ volume: 50, locked: 'true' });
+      it('should round fractional volume', async () => {
+        await saveVolumeSettings({ volume: 62.6, locked: false });
 
-        const savedData = JSON.parse(AsyncStorage.setItem.mock.calls[0][1]);
-        expect(savedData.locked).toBe(true);
+        expect(mockSettingsModule.saveVolumeSettings).toHaveBeenCalledWith(63);
       });
-    });
-
-    describe('getVolumeSettings', () => {
-      it('should retrieve volume settings from AsyncStorage', async () => {
-        AsyncStorage.getItem.mockResolvedValue(
-          JSON.stringify({ volume: 75, locked: true })
-        );
 
-        const settings = await getVolumeSettings();
+      it('should throw if the native store fails', async () => {
+        mockSettingsModule.saveVolumeSettings.mockRejectedValue(new Error('Native error'));
 
-        expect(settings).toEqual({ volume: 75, locked: true, isDefault: false });
+        await expect(saveVolumeSettings({ volume: 50 })).rejects.toThrow('Native error');
       });
+    });
 
-      it('should return default settings if none exist', async () => {
-        AsyncStorage.getItem.mockResolvedValue(null);
-
+    describe('getVolumeSettings', () => {
+      it('should return the native volume settings', async () => {
         const settings = await getVolumeSettings();
 
-        expect(settings).toEqual({ volume: 50, locked: false, isDefault: true });
+        expect(settings).toEqual({ volume: 60, locked: true, isDefault: false });
       });
 
-      it('should handle invalid JSON gracefully', async () => {
-        AsyncStorage.getItem.mockResolvedValue('invalid json');
+      it('should return default settings if the native store fails', async () => {
+        mockSettingsModule.getAllSettings.mockRejectedValue(new Error('Native error'));
 
         const settings = await getVolumeSettings();
 
         expect(settings).toEqual({ volume: 50, locked: false, isDefault: true });
       });
-
-      it('should clamp stored volume to valid range', async () => {
-        AsyncStorage.getItem.mockResolvedValue(
-          JSON.stringify({ volume: 200, locked: false })
-        );
-
-        const settings = await getVolumeSettings();
-
-        expect(settings.volume).toBe(100);
-      });
-
-      it('should convert locked to boolean from storage', async () => {
-        AsyncStorage.getItem.mockResolvedValue(
-          JSON.stringify({ volume: 50, locked: 1 })
-        );
-
-        const settings = await getVolumeSettings();
-
-        expect(settings.locked).toBe(true);
-      });
     });
   });
 
-
-
   describe('getAllSettings', () => {
-    it('should return volume and screen time settings', async () => {
-      AsyncStorage.getItem.mockImplementation((key) => {
-        if (key === 'volume_settings') {
-          return Promise.resolve(JSON.stringify({ volume: 60, locked: true }));
-        }
-        if (key === 'screen_time_settings') {
-          return Promise.resolve(JSON.stringify({ limitMinutes: 180, locked: true }));
-        }
-        return Promise.resolve(null);
-      });
-
+    it('should return volume and screen time settings from one native read', async () => {
       const allSettings = await getAllSettings();
 
-      expect(allSettings).toEqual({
-        volume: { volume: 60, locked: true, isDefault: false },
-        screenTime: { limitMinutes: 180, locked: true, isDefault: false },
-      });
+      expect(allSettings).toEqual(NATIVE_SETTINGS);
+      expect(mockSettingsModule.getAllSettings).toHaveBeenCalledTimes(1);
+      expect(AsyncStorage.getItem).not.toHaveBeenCalled();
     });
 
-    it('should return default settings if none exist', async () => {
-      AsyncStorage.getItem.mockResolvedValue(null);
-
-      const allSettings = await getAllSettings();
+    it('should throw if the native store fails', async () => {
+      mockSettingsModule.getAllSettings.mockRejectedValue(new Error('Native error'));
 
-      expect(allSettings).toEqual({
-        volume: { volume: 50, locked: false, isDefault: true },
-        screenTime: { limitMinutes: 120, locked: false, isDefault: true },
-      });
+      await expect(getAllSettings()).rejects.toThrow('Native error');
     });
   });
 
   describe('Screen Time Settings', () => {
     describe('saveScreenTimeSettings', () => {
-      it('should save screen time settings to AsyncStorage', async () => {
+      it('should save the limit to the native store', async () => {
         await saveScreenTimeSettings({ limitMinutes: 180, locked: true });
 
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith(
-          'screen_time_settings',
-          JSON.stringify({ limitMinutes: 180, locked: true })
-        );
-      });
-
-      it('should clamp limit minutes to minimum 15', async () => {
-        await saveScreenTimeSettings({ limitMinutes: 5, locked: false });
-
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith(
-          'screen_time_settings',
-          JSON.stringify({ limitMinutes: 15, locked: false })
-        );
-      });
-
-      it('should clamp limit minutes to maximum 480', async () => {
-        await saveScreenTimeSettings({ limitMinutes: 600, locked: false });
-
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith(
-          'screen_time_settings',
-          JSON.stringify({ limitMinutes: 480, locked: false })
-        );
+        expect(mockSettingsModule.saveScreenTimeSettings).toHaveBeenCalledWith(180);
+        expect(AsyncStorage.setItem).not.toHaveBeenCalled();
       });
 
       it('should use default limit minutes if not provided', async () => {
         await saveScreenTimeSettings({ locked: false });
 
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith(
-          'screen_time_settings',
-          JSON.stringify({ limitMinutes: 120, locked: false })
-        );
+        expect(mockSettingsModule.saveScreenTimeSettings).toHaveBeenCalledWith(120);
       });
 
-      it('should handle AsyncStorage errors', async () => {
-        AsyncStorage.setItem.mockRejectedValue(new Error('Storage error'));
+      it('should throw if the native store fails', async () => {
+        mockSettingsModule.saveScreenTimeSettings.mockRejectedValue(new Error('Native error'));
 
-        await expect(saveScreenTimeSettings({ limitMinutes: 180, locked: true })).rejects.toThrow('Storage error');
+        await expect(saveScreenTimeSettings({ limitMinutes: 180, locked: true })).rejects.toThrow('Native error');
       });
     });
 
     describe('getScreenTimeSettings', () => {
-      it('should retrieve screen time settings from AsyncStorage', async () => {
-        AsyncStorage.getItem.mockResolvedValue(
-          JSON.stringify({ limitMinutes: 240, locked: true })
-        );
-
+      it('should return the native screen time settings', async () => {
         const settings = await getScreenTimeSettings();
 
-        expect(settings).toEqual({ limitMinutes: 240, locked: true, isDefault: false });
+        expect(settings).toEqual({ limitMinutes: 180, locked: true, isDefault: false });
       });
 
-      it('should return default settings if none exist', async () => {
-        AsyncStorage.getItem.mockResolvedValue(null);
+      it('should return default settings if the native store fails', async () => {
+        mockSettingsModule.getAllSettings.mockRejectedValue(new Error('Native error'));
 
         const settings = await getScreenTimeSettings();
 
         expect(settings).toEqual({ limitMinutes: 120, locked: false, isDefault: true });
       });
+    });
+  });
 
-      it('should handle AsyncStorage errors gracefully', async () => {
-        AsyncStorage.getItem.mockRejectedValue(new Error('Storage error'));
+  describe('migrateSettingsToNativeStore', () => {
+    it('should move stored settings to the native store and remove them', async () => {
+      AsyncStorage.multiGet.mockResolvedValue([
+        ['volume_settings', JSON.stringify({ volume: 40, locked: true })],
+        ['screen_time_settings', JSON.stringify({ limitMinutes: 90, locked: false })],
+      ]);
 
-        const settings = await getScreenTimeSettings();
+      await migrateSettingsToNativeStore();
 
-        expect(settings).toEqual({ limitMinutes: 120, locked: false, isDefault: true });
-      });
+      expect(mockSettingsModule.saveVolumeSettings).toHaveBeenCalledWith(40);
+      expect(NativeModules.VolumeControl.startEnforcing).toHaveBeenCalledWith(40);
+      expect(mockSettingsModule.saveScreenTimeSettings).toHaveBeenCalledWith(90);
+      expect(AsyncStorage.multiRemove).toHaveBeenCalledWith(['volume_settings', 'screen_time_settings']);
+    });
 
-      it('should clamp invalid stored limit minutes to valid range', async () => {
-        AsyncStorage.getItem.mockResolvedValue(
-          JSON.stringify({ limitMinutes: 1000, locked: false })
-        );
+    it('should do nothing when there is nothing to migrate', async () => {
+      AsyncStorage.multiGet.mockResolvedValue([
+        ['volume_settings', null],
+        ['screen_time_settings', null],
+      ]);
 
-        const settings = await getScreenTimeSettings();
+      await migrateSettingsToNativeStore();
 
-        expect(settings.limitMinutes).toBe(480); // Clamped to maximum
-      });
+      expect(mockSettingsModule.saveVolumeSettings).not.toHaveBeenCalled();
+      expect(mockSettingsModule.saveScreenTimeSettings).not.toHaveBeenCalled();
+      expect(AsyncStorage.multiRemove).not.toHaveBeenCalled();
+    });
 
-      it('should ensure locked is boolean', async () => {
-        AsyncStorage.getItem.mockResolvedValue(
-          JSON.stringify({ limitMinutes: 120, locked: 'true' })
-        );
+    it('should keep the stored settings if the native store fails', async () => {
+      AsyncStorage.multiGet.mockResolvedValue([
+        ['volume_settings', JSON.stringify({ volume: 40, locked: false })],
+        ['screen_time_settings', null],
+      ]);
+      mockSettingsModule.saveVolumeSettings.mockRejectedValue(new Error('Native error'));
 
-        const settings = await getScreenTimeSettings();
+      await migrateSettingsToNativeStore();
 
-        expect(settings.locked).toBe(true);
-        expect(typeof settings.locked).toBe('boolean');
-      });
+      expect(AsyncStorage.multiRemove).not.toHaveBeenCalled();
     });
   });
 
@@ -418,10 +300,7 @@ describe('Storage Utility', () => {
         await initializeApp();
 
         expect(AsyncStorage.setItem).toHaveBeenCalledWith('first_launch', 'true');
-        expect(AsyncStorage.setItem).toHaveBeenCalledWith(
-          'volume_settings',
-          JSON.stringify({ volume: 50, locked: false })
-        );
+        expect(mockSettingsModule.saveVolumeSettings).toHaveBeenCalledWith(50);
       });
 
       it('should not initialize if not first launch', async () => {
@@ -431,6 +310,7 @@ describe('Storage Utility', () => {
 
         // Should only have called getItem, not setItem
         expect(AsyncStorage.setItem).not.toHaveBeenCalled();
+        expect(mockSettingsModule.saveVolumeSettings).not.toHaveBeenCalled();
       });
 
       it('should throw error if initialization fails', async () => {
@@ -510,16 +390,7 @@ describe('Storage Utility', () => {
     it('should handle volume settings with missing fields', async () => {
       await saveVolumeSettings({});
 
-      const savedData = JSON.parse(AsyncStorage.setItem.mock.calls[0][1]);
-      expect(savedData).toEqual({ volume: 50, locked: false });
-    });
-
-    it('should handle malformed settings in storage', async () => {
-      AsyncStorage.getItem.mockResolvedValue('{ broken json');
-
-      const settings = await getVolumeSettings();
-
-      expect(settings).toEqual({ volume: 50, locked: false, isDefault: true });
+      expect(mockSettingsModule.saveVolumeSettings).toHaveBeenCalledWith(50);
     });
   });
 
@@ -1,3 +1,4 @@
+import {NativeModules} from 'react-native';
 import {InterstitialAd, AdEventType, TestIds} from 'react-native-google-mobile-ads';
 import AdMobConfig from '../config/admob';
 import {canShowAd, saveLastAdShownTime} from './storage';
@@ -6,6 +7,7 @@ let interstitial = null;
 let adLoaded = false;
 let admobInitialized = false;
 let isShowingAd = false;
+let initPromise = null;
 let minimumViewTimeMs = 10000; // 10 seconds
 
 // Get ad unit ID from config
@@ -22,13 +24,39 @@ const getAdUnitId = () => {
   return adUnitId;
 };
 
-// Initialize AdMob SDK and create interstitial ad
+// Resolves once native code lets the ad SDK start: after the first screen has been
+// drawn and the UI thread has gone idle (AdInitScheduler)
+const waitForAdInitSlot = async () => {
+  const {AdInitModule} = NativeModules;
+  if (!AdInitModule) {
+    return;
+  }
+  try {
+    await AdInitModule.whenReady();
+  } catch (error) {
+    console.warn('[AdMob] Could not wait for the first screen:', error);
+  }
+};
+
+// Initialize AdMob SDK and create interstitial ad. Resolves only after the first
+// screen is up, so callers on the startup path must not await it.
 export const initializeAdMob = async () => {
   if (admobInitialized) {
     console.log('[AdMob] Already initialized - skipping duplicate call');
     return true;
   }
 
+  if (!initPromise) {
+    initPromise = waitForAdInitSlot()
+      .then(createInterstitial)
+      .finally(() => {
+        initPromise = null;
+      });
+  }
+  return initPromise;
+};
+
+const createInterstitial = () => {
   try {
     console.log('[AdMob] Initializing AdMob...');
 
@@ -217,4 +245,5 @@ export const __resetAdMobForTesting = () => {
   adLoaded = false;
   admobInitialized = false;
   isShowingAd = false;
+  initPromise = null;
 };
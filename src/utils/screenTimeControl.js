@@ -1,8 +1,11 @@
-import { NativeModules } from 'react-native';
+import { NativeModules, NativeEventEmitter } from 'react-native';
 import { saveScreenTimeSettings, getScreenTimeSettings } from './storage';
 
 const { ScreenTimeModule } = NativeModules;
 
+// Usage ticks and lock/limit/service changes pushed by the native side
+const screenTimeEventEmitter = new NativeEventEmitter(NativeModules.ScreenTimeModule);
+
 if (!ScreenTimeModule) {
   console.warn('[ScreenTime] ScreenTimeModule not available');
 }
@@ -56,6 +59,41 @@ export const getDailyUsageSeconds = async () => {
   }
 };
 
+/**
+ * Read the timer state synchronously, for UI that updates every frame:
+ * { usageSeconds, limitSeconds, enforcing, paused, deadlineMs }
+ * Returns null when unavailable (e.g. remote JS debugging, which has no synchronous calls).
+ */
+export const getScreenTimeSnapshotSync = () => {
+  try {
+    if (!ScreenTimeModule || !ScreenTimeModule.getSnapshotSync) {
+      return null;
+    }
+    return ScreenTimeModule.getSnapshotSync();
+  } catch (error) {
+    console.error('[ScreenTime] Error reading snapshot:', error);
+    return null;
+  }
+};
+
+/**
+ * Listen for screen time events instead of polling. The callback receives
+ * { type, usageSeconds, limitSeconds, enforcing, paused, locked, reason? } where
+ * type is 'usage' (at most once a second while the app is open), 'locked',
+ * 'unlocked', 'limitChanged' or 'serviceStarted'. Events that happen while the
+ * app is in the background are delivered, latest state only, when it returns.
+ */
+export const addScreenTimeListener = (callback) => {
+  return screenTimeEventEmitter.addListener('onScreenTimeEvent', callback);
+};
+
+// Remove a screen time event listener
+export const removeScreenTimeListener = (subscription) => {
+  if (subscription) {
+    subscription.remove();
+  }
+};
+
 /**
  * Check if SYSTEM_ALERT_WINDOW (overlay) permission is granted
  */
@@ -86,6 +124,36 @@ export const requestOverlayPermission = async () => {
   }
 };
 
+/**
+ * Check if usage access is granted (needed to block individual apps)
+ */
+export const checkUsageAccessPermission = async () => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    return await ScreenTimeModule.checkUsageAccessPermission();
+  } catch (error) {
+    console.error('[ScreenTime] Error checking usage access:', error);
+    return false;
+  }
+};
+
+/**
+ * Request usage access (opens Settings)
+ */
+export const requestUsageAccessPermission = async () => {
+  try {
+    if (!ScreenTimeModule) {
+      throw new Error('ScreenTimeModule not available');
+    }
+    return await ScreenTimeModule.requestUsageAccessPermission();
+  } catch (error) {
+    console.error('[ScreenTime] Error requesting usage access:', error);
+    throw error;
+  }
+};
+
 /**
  * Update screen time settings and enforcement
  */
@@ -134,6 +202,222 @@ export const updateScreenTimeSettings = async (limitMinutes, locked) => {
   }
 };
 
+/**
+ * Grant extra minutes on top of today's limit without restarting the timer
+ * Dismisses the lock screen if it is showing; enforcement stays active
+ */
+export const grantExtraTime = async (minutes) => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    return await ScreenTimeModule.grantExtraTime(minutes);
+  } catch (error) {
+    console.error('[ScreenTime] Error granting extra time:', error);
+    return false;
+  }
+};
+
+/**
+ * Pause the screen time timer, keeping the time already used
+ */
+export const pauseScreenTime = async () => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    return await ScreenTimeModule.pauseTimer();
+  } catch (error) {
+    console.error('[ScreenTime] Error pausing timer:', error);
+    return false;
+  }
+};
+
+/**
+ * Resume a paused screen time timer
+ */
+export const resumeScreenTime = async () => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    return await ScreenTimeModule.resumeTimer();
+  } catch (error) {
+    console.error('[ScreenTime] Error resuming timer:', error);
+    return false;
+  }
+};
+
+/**
+ * Check if the screen time timer is paused
+ */
+export const isScreenTimePaused = async () => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    return await ScreenTimeModule.isPaused();
+  } catch (error) {
+    console.error('[ScreenTime] Error checking pause status:', error);
+    return false;
+  }
+};
+
+/**
+ * Set weekly lock windows (e.g. bedtime on school nights)
+ * Each window: { days: [1..7] (1 = Monday), startMinute, endMinute } in local time;
+ * an endMinute before startMinute means the window ends the next morning
+ */
+export const setScheduleWindows = async (windows) => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    await ScreenTimeModule.setScheduleWindows(windows);
+
+    // The enforcement service arms the schedule timer, so it must be running
+    const { EnforcementServiceModule } = NativeModules;
+    if (windows.length > 0 && EnforcementServiceModule) {
+      await EnforcementServiceModule.startService();
+    }
+
+    console.log('[ScreenTime] Schedule windows set:', windows.length);
+    return true;
+  } catch (error) {
+    console.error('[ScreenTime] Error setting schedule windows:', error);
+    return false;
+  }
+};
+
+/**
+ * Check if the current time falls inside a schedule lock window
+ */
+export const isInScheduleWindow = async () => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    return await ScreenTimeModule.isInScheduleWindow();
+  } catch (error) {
+    console.error('[ScreenTime] Error checking schedule window:', error);
+    return false;
+  }
+};
+
+/**
+ * Set the longest continuous session in minutes (0 turns the limit off).
+ * The child is locked out until the screen has been off for a short break.
+ */
+export const setMaxSessionMinutes = async (minutes) => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    await ScreenTimeModule.setMaxSessionMinutes(minutes);
+
+    // The session limit is enforced by the service, so it must be running
+    const { EnforcementServiceModule } = NativeModules;
+    if (minutes > 0 && EnforcementServiceModule) {
+      await EnforcementServiceModule.startService();
+    }
+
+    console.log('[ScreenTime] Max session set:', minutes);
+    return true;
+  } catch (error) {
+    console.error('[ScreenTime] Error setting max session:', error);
+    return false;
+  }
+};
+
+/**
+ * Set per-app policies, e.g. [{ packageName: 'com.example.game', policy: 'block' }]
+ * Policy is 'block' (always) or 'after_limit' (once the daily budget is used up).
+ * When any app is 'after_limit', the budget blocks those apps instead of the whole device.
+ */
+export const setAppPolicies = async (apps) => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    await ScreenTimeModule.setAppPolicies(apps);
+
+    // Foreground apps are watched by the service, so it must be running
+    const { EnforcementServiceModule } = NativeModules;
+    if (apps.length > 0 && EnforcementServiceModule) {
+      await EnforcementServiceModule.startService();
+    }
+
+    console.log('[ScreenTime] App policies set:', apps.length);
+    return true;
+  } catch (error) {
+    console.error('[ScreenTime] Error setting app policies:', error);
+    return false;
+  }
+};
+
+/**
+ * Get detection-to-block latency stats: { lastMs, maxMs, blocks, slowBlocks, targetMs }
+ */
+export const getAppBlockLatency = async () => {
+  try {
+    if (!ScreenTimeModule) {
+      return null;
+    }
+    return await ScreenTimeModule.getAppBlockLatency();
+  } catch (error) {
+    console.error('[ScreenTime] Error getting app block latency:', error);
+    return null;
+  }
+};
+
+/**
+ * Get battery cost counters per subsystem, e.g.
+ * { service_tick: { wakeups, callbacks, binderCalls, cpuMs }, relaunch_poll: {...}, ... }
+ */
+export const getEnforcementStats = async () => {
+  try {
+    if (!ScreenTimeModule) {
+      return null;
+    }
+    return await ScreenTimeModule.getEnforcementStats();
+  } catch (error) {
+    console.error('[ScreenTime] Error getting enforcement stats:', error);
+    return null;
+  }
+};
+
+/**
+ * Get latency percentiles for limit -> lock, check -> lock, unlock, PIN verify and
+ * keypad touch -> redraw, e.g.
+ * { limitToLock: { count, p50Ms, p90Ms, p99Ms, maxMs }, checkToLock, unlock, pinVerify, keypadDraw }
+ */
+export const getLatencyStats = async () => {
+  try {
+    if (!ScreenTimeModule) {
+      return null;
+    }
+    return await ScreenTimeModule.getLatencyStats();
+  } catch (error) {
+    console.error('[ScreenTime] Error getting latency stats:', error);
+    return null;
+  }
+};
+
+/**
+ * Set the warning thresholds, in minutes before the limit (e.g. [15, 5, 1])
+ */
+export const setWarningMinutes = async (minutes) => {
+  try {
+    if (!ScreenTimeModule) {
+      return false;
+    }
+    return await ScreenTimeModule.setWarningMinutes(minutes);
+  } catch (error) {
+    console.error('[ScreenTime] Error setting warning thresholds:', error);
+    return false;
+  }
+};
+
 /**
  * Format seconds to human-readable string
  */
@@ -2,16 +2,18 @@ import * as Keychain from 'react-native-keychain';
 import AsyncStorage from '@react-native-async-storage/async-storage';
 import { NativeModules } from 'react-native';
 
-const { PINStorageModule } = NativeModules;
+const { PINStorageModule, SettingsModule, VolumeControl } = NativeModules;
+
+const DEFAULT_VOLUME_SETTINGS = { volume: 50, locked: false, isDefault: true };
+const DEFAULT_SCREEN_TIME_SETTINGS = { limitMinutes: 120, locked: false, isDefault: true }; // Default 2 hours
 
 // Keys for storage
 const KEYS = {
   FIRST_LAUNCH: 'first_launch',
   PIN: 'parent_pin',
+  // Only read by migrateSettingsToNativeStore; settings now live natively
   VOLUME_SETTINGS: 'volume_settings',
   SCREEN_TIME_SETTINGS: 'screen_time_settings',
-  FAILED_ATTEMPTS: 'failed_attempts',
-  LOCKOUT_UNTIL: 'lockout_until',
   LAST_AD_SHOWN: 'last_ad_shown',
 };
 
@@ -74,6 +76,45 @@ export const migratePINToNativeStorage = async () => {
   }
 };
 
+// Move settings saved by older versions out of AsyncStorage into the native store
+export const migrateSettingsToNativeStore = async () => {
+  try {
+    if (!SettingsModule) {
+      console.warn('[Storage] SettingsModule not available, skipping settings migration');
+      return;
+    }
+
+    const stored = Object.fromEntries(await AsyncStorage.multiGet([
+      KEYS.VOLUME_SETTINGS,
+      KEYS.SCREEN_TIME_SETTINGS,
+    ]));
+    const volumeJson = stored[KEYS.VOLUME_SETTINGS];
+    const screenTimeJson = stored[KEYS.SCREEN_TIME_SETTINGS];
+    if (volumeJson == null && screenTimeJson == null) {
+      return;
+    }
+
+    if (volumeJson != null) {
+      const volume = JSON.parse(volumeJson);
+      await SettingsModule.saveVolumeSettings(volume.volume ?? 50);
+      // Older versions re-applied the volume lock from here on every start
+      if (volume.locked && VolumeControl) {
+        await VolumeControl.startEnforcing(volume.volume ?? 50);
+      }
+    }
+    if (screenTimeJson != null) {
+      // The native budget already knew whether screen time was enforced
+      const screenTime = JSON.parse(screenTimeJson);
+      await SettingsModule.saveScreenTimeSettings(screenTime.limitMinutes ?? 120);
+    }
+
+    await AsyncStorage.multiRemove([KEYS.VOLUME_SETTINGS, KEYS.SCREEN_TIME_SETTINGS]);
+    console.log('[Storage] Settings migrated to native storage');
+  } catch (error) {
+    console.error('[Storage] Error migrating settings to native storage:', error);
+  }
+};
+
 // PIN Management
 export const savePIN = async (pin) => {
   try {
@@ -90,39 +131,18 @@ export const savePIN = async (pin) => {
   }
 };
 
+// Attempts and the exponential lockout are counted natively, shared with the
+// lock screens, so restarting the app or switching screens does not reset them
 export const verifyPIN = async (inputPIN) => {
   try {
-    // Check if locked out
-    const lockoutUntil = await AsyncStorage.getItem(KEYS.LOCKOUT_UNTIL);
-    if (lockoutUntil) {
-      const lockoutTime = parseInt(lockoutUntil);
-      if (Date.now() < lockoutTime) {
-        const remainingSeconds = Math.ceil((lockoutTime - Date.now()) / 1000);
-        throw new Error(`Locked out. Please try again in ${remainingSeconds} seconds.`);
-      } else {
-        // Lockout period has passed
-        await AsyncStorage.removeItem(KEYS.LOCKOUT_UNTIL);
-        await AsyncStorage.removeItem(KEYS.FAILED_ATTEMPTS);
-      }
+    const { valid, outcome, lockoutSeconds } = await PINStorageModule.verifyPIN(inputPIN);
+    if (outcome === 'REFUSED') {
+      throw new Error(`Locked out. Please try again in ${lockoutSeconds} seconds.`);
     }
-
-    // Get stored PIN from Keychain
-    const credentials = await Keychain.getGenericPassword({ service: KEYS.PIN });
-    if (!credentials) {
-      return false;
+    if (outcome === 'LOCKED_OUT') {
+      throw new Error(`Too many failed attempts. Locked out for ${lockoutSeconds} seconds.`);
     }
-
-    const storedPIN = credentials.password;
-    const isValid = storedPIN === inputPIN;
-
-    if (!isValid) {
-      await handleFailedAttempt();
-    } else {
-      // Reset failed attempts on successful login
-      await AsyncStorage.removeItem(KEYS.FAILED_ATTEMPTS);
-    }
-
-    return isValid;
+    return valid;
   } catch (error) {
     if (error.message.includes('Locked out')) {
       throw error;
@@ -132,26 +152,6 @@ export const verifyPIN = async (inputPIN) => {
   }
 };
 
-const handleFailedAttempt = async () => {
-  try {
-    const failedAttemptsStr = await AsyncStorage.getItem(KEYS.FAILED_ATTEMPTS);
-    const failedAttempts = failedAttemptsStr ? parseInt(failedAttemptsStr) : 0;
-    const newFailedAttempts = failedAttempts + 1;
-
-    await AsyncStorage.setItem(KEYS.FAILED_ATTEMPTS, newFailedAttempts.toString());
-
-    // Lockout logic: 5 attempts = lockout
-    if (newFailedAttempts >= 5) {
-      const lockoutDuration = Math.pow(2, Math.floor(newFailedAttempts / 5)) * 60 * 1000; // Exponential backoff
-      const lockoutUntil = Date.now() + lockoutDuration;
-      await AsyncStorage.setItem(KEYS.LOCKOUT_UNTIL, lockoutUntil.toString());
-      throw new Error(`Too many failed attempts. Locked out for ${lockoutDuration / 1000} seconds.`);
-    }
-  } catch (error) {
-    throw error;
-  }
-};
-
 export const changePIN = async (oldPIN, newPIN) => {
   try {
     const isValid = await verifyPIN(oldPIN);
@@ -166,14 +166,15 @@ export const changePIN = async (oldPIN, newPIN) => {
   }
 };
 
+// Settings live in the native enforcer store, which also owns the volume and
+// screen time locks; "locked" is read from there, so it never drifts.
+// Values are clamped natively (volume 0-100, limit 15-480 minutes).
+
 // Volume Settings
+// locked is applied by volumeControl.updateVolumeSettings; only the level is saved
 export const saveVolumeSettings = async (settings) => {
   try {
-    const payload = {
-      volume: Math.max(0, Math.min(100, settings.volume ?? 50)),
-      locked: !!settings.locked,
-    };
-    await AsyncStorage.setItem(KEYS.VOLUME_SETTINGS, JSON.stringify(payload));
+    await SettingsModule.saveVolumeSettings(Math.round(settings.volume ?? 50));
   } catch (error) {
     console.error('Error saving volume settings:', error);
     throw error;
@@ -182,31 +183,19 @@ export const saveVolumeSettings = async (settings) => {
 
 export const getVolumeSettings = async () => {
   try {
-    const settings = await AsyncStorage.getItem(KEYS.VOLUME_SETTINGS);
-    if (!settings) {
-      return { volume: 50, locked: false, isDefault: true };
-    }
-
-    const parsed = JSON.parse(settings);
-    return {
-      volume: Math.max(0, Math.min(100, parsed.volume ?? 50)),
-      locked: !!parsed.locked,
-      isDefault: false,
-    };
+    const { volume } = await SettingsModule.getAllSettings();
+    return volume;
   } catch (error) {
     console.error('Error getting volume settings:', error);
-    return { volume: 50, locked: false, isDefault: true };
+    return { ...DEFAULT_VOLUME_SETTINGS };
   }
 };
 
 // Screen Time Settings
+// locked is applied by screenTimeControl.updateScreenTimeSettings; only the limit is saved
 export const saveScreenTimeSettings = async (settings) => {
   try {
-    const payload = {
-      limitMinutes: Math.max(15, Math.min(480, settings.limitMinutes ?? 120)),
-      locked: !!settings.locked,
-    };
-    await AsyncStorage.setItem(KEYS.SCREEN_TIME_SETTINGS, JSON.stringify(payload));
+    await SettingsModule.saveScreenTimeSettings(Math.round(settings.limitMinutes ?? 120));
   } catch (error) {
     console.error('Error saving screen time settings:', error);
     throw error;
@@ -215,34 +204,18 @@ export const saveScreenTimeSettings = async (settings) => {
 
 export const getScreenTimeSettings = async () => {
   try {
-    const settings = await AsyncStorage.getItem(KEYS.SCREEN_TIME_SETTINGS);
-    if (!settings) {
-      return { limitMinutes: 120, locked: false, isDefault: true }; // Default 2 hours
-    }
-
-    const parsed = JSON.parse(settings);
-    return {
-      limitMinutes: Math.max(15, Math.min(480, parsed.limitMinutes ?? 120)),
-      locked: !!parsed.locked,
-      isDefault: false,
-    };
+    const { screenTime } = await SettingsModule.getAllSettings();
+    return screenTime;
   } catch (error) {
     console.error('Error getting screen time settings:', error);
-    return { limitMinutes: 120, locked: false, isDefault: true };
+    return { ...DEFAULT_SCREEN_TIME_SETTINGS };
   }
 };
 
-// Get all settings for display
+// Get all settings for display, in one native read
 export const getAllSettings = async () => {
   try {
-    const [volumeSettings, screenTimeSettings] = await Promise.all([
-      getVolumeSettings(),
-      getScreenTimeSettings(),
-    ]);
-    return {
-      volume: volumeSettings,
-      screenTime: screenTimeSettings,
-    };
+    return await SettingsModule.getAllSettings();
   } catch (error) {
     console.error('Error getting all settings:', error);
     throw error;